@@ -0,0 +1,17 @@
+package androidx.media3.exoplayer.dash;
+
+import androidx.media3.exoplayer.dash.manifest.RangedUri;
+
+public interface DashSegmentIndex {
+    int INDEX_UNBOUNDED = -1;
+
+    long getFirstSegmentNum();
+
+    long getSegmentCount(long periodDurationUs);
+
+    long getTimeUs(long segmentNum);
+
+    long getDurationUs(long segmentNum, long periodDurationUs);
+
+    RangedUri getSegmentUrl(long segmentNum);
+}
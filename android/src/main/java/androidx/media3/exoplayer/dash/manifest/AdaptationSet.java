@@ -3,9 +3,13 @@ package androidx.media3.exoplayer.dash.manifest;
 import androidx.collection.CircularArray;
 import androidx.media3.common.C;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class AdaptationSet {
     public int type = 0;
     public CircularArray<Representation> representations;
+    public List<Descriptor> essentialProperties = new ArrayList<>();
 
     public AdaptationSet() {
         representations = null;
@@ -0,0 +1,5 @@
+package androidx.media3.exoplayer.dash.manifest;
+
+public class BaseUrl {
+    public String url = "";
+}
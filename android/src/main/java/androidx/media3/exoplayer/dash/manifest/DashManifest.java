@@ -1,5 +1,7 @@
 package androidx.media3.exoplayer.dash.manifest;
 
+import androidx.media3.common.C;
+
 public class DashManifest {
     public DashManifest() {
 
@@ -12,4 +14,8 @@ public class DashManifest {
     public Period getPeriod(int index) {
         return null;
     }
+
+    public long getPeriodDurationUs(int index) {
+        return C.TIME_UNSET;
+    }
 }
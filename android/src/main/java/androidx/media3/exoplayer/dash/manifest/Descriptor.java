@@ -0,0 +1,11 @@
+package androidx.media3.exoplayer.dash.manifest;
+
+import androidx.annotation.Nullable;
+
+public class Descriptor {
+    public String schemeIdUri = "";
+    @Nullable
+    public String value;
+    @Nullable
+    public String id;
+}
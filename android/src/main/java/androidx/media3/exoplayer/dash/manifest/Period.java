@@ -1,7 +1,11 @@
 package androidx.media3.exoplayer.dash.manifest;
 
+import androidx.annotation.Nullable;
 import androidx.collection.CircularArray;
 
 public class Period {
+    @Nullable
+    public String id;
+    public long startMs;
     public CircularArray<AdaptationSet> adaptationSets;
 }
@@ -0,0 +1,9 @@
+package androidx.media3.exoplayer.dash.manifest;
+
+import android.net.Uri;
+
+public class RangedUri {
+    public Uri resolveUri(String baseUri) {
+        return Uri.EMPTY;
+    }
+}
@@ -1,12 +1,25 @@
 package androidx.media3.exoplayer.dash.manifest;
 
+import androidx.annotation.Nullable;
 import androidx.media3.common.Format;
+import androidx.media3.exoplayer.dash.DashSegmentIndex;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class Representation {
     public Format format;
+    public long revisionId;
     public long presentationTimeOffsetUs;
+    public List<BaseUrl> baseUrls = new ArrayList<>();
+    public List<Descriptor> essentialProperties = new ArrayList<>();
 
     public Representation() {
         format = null;
     }
+
+    @Nullable
+    public DashSegmentIndex getIndex() {
+        return null;
+    }
 }
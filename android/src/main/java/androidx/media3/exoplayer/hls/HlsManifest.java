@@ -0,0 +1,7 @@
+package androidx.media3.exoplayer.hls;
+
+import androidx.media3.exoplayer.hls.playlist.HlsMultivariantPlaylist;
+
+public class HlsManifest {
+    public HlsMultivariantPlaylist multivariantPlaylist;
+}
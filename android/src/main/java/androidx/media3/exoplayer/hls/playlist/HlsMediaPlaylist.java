@@ -0,0 +1,25 @@
+package androidx.media3.exoplayer.hls.playlist;
+
+import androidx.annotation.Nullable;
+import androidx.media3.common.DrmInitData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class HlsMediaPlaylist extends HlsPlaylist {
+    public static class Segment {
+        public String url = "";
+        @Nullable
+        public Segment initializationSegment;
+        public long durationUs;
+        public long relativeStartTimeUs;
+        @Nullable
+        public DrmInitData drmInitData;
+        @Nullable
+        public String fullSegmentEncryptionKeyUri;
+        public long byteRangeOffset;
+        public long byteRangeLength;
+    }
+
+    public List<Segment> segments = new ArrayList<>();
+}
@@ -0,0 +1,17 @@
+package androidx.media3.exoplayer.hls.playlist;
+
+import android.net.Uri;
+
+import androidx.media3.common.Format;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class HlsMultivariantPlaylist extends HlsPlaylist {
+    public static class Variant {
+        public Uri url;
+        public Format format;
+    }
+
+    public List<Variant> variants = new ArrayList<>();
+}
@@ -0,0 +1,5 @@
+package androidx.media3.exoplayer.hls.playlist;
+
+public class HlsPlaylist {
+    public String baseUri = "";
+}
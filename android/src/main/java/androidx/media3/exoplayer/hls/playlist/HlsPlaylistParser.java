@@ -0,0 +1,12 @@
+package androidx.media3.exoplayer.hls.playlist;
+
+import android.net.Uri;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public class HlsPlaylistParser {
+    public HlsPlaylist parse(Uri uri, InputStream inputStream) throws IOException {
+        throw new IOException("HLS is disabled");
+    }
+}
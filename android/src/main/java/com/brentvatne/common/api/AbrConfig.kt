@@ -0,0 +1,114 @@
+package com.brentvatne.common.api
+
+import com.brentvatne.common.toolbox.DebugLog
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetFloat
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetInt
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetString
+import com.facebook.react.bridge.ReadableMap
+
+/**
+ * Class representing the adaptive bitrate configuration of a source (source.abr).
+ * Only generic code here, no reference to the player.
+ */
+class AbrConfig {
+
+    /**
+     * Algorithm used to pick the video rendition
+     */
+    enum class Algorithm {
+        /**
+         * exoplayer AdaptiveTrackSelection, used when the source doesn't provide any abr config
+         */
+        Default,
+
+        /**
+         * highest rendition fitting in the (scaled) bandwidth estimate
+         */
+        Throughput,
+
+        /**
+         * BOLA, buffer based: the rendition is driven by the buffer level only
+         */
+        Bola,
+
+        /**
+         * throughput while the buffer is building up, BOLA once it is stable
+         */
+        Hybrid
+    }
+
+    var algorithm = Algorithm.Default
+
+    /** minimum buffer (ms) required before switching to a higher rendition */
+    var minDurationForQualityIncreaseMs = DEFAULT_MIN_DURATION_FOR_QUALITY_INCREASE_MS
+
+    /** above this buffer level (ms) switching to a lower rendition is deferred */
+    var maxDurationForQualityDecreaseMs = DEFAULT_MAX_DURATION_FOR_QUALITY_DECREASE_MS
+
+    /** minimum time (ms) between two switches, unless the buffer is running low */
+    var minSwitchIntervalMs = DEFAULT_MIN_SWITCH_INTERVAL_MS
+
+    /** fraction of the bandwidth estimate considered usable */
+    var bandwidthFraction = DEFAULT_BANDWIDTH_FRACTION
+
+    /** buffer level (ms) BOLA aims at, also where hybrid mode hands over to BOLA */
+    var bufferTargetMs = DEFAULT_BUFFER_TARGET_MS
+
+    /** return true if this and src are equals  */
+    override fun equals(other: Any?): Boolean {
+        if (other == null || other !is AbrConfig) return false
+        return (
+            algorithm == other.algorithm &&
+                minDurationForQualityIncreaseMs == other.minDurationForQualityIncreaseMs &&
+                maxDurationForQualityDecreaseMs == other.maxDurationForQualityDecreaseMs &&
+                minSwitchIntervalMs == other.minSwitchIntervalMs &&
+                bandwidthFraction == other.bandwidthFraction &&
+                bufferTargetMs == other.bufferTargetMs
+            )
+    }
+
+    override fun hashCode(): Int = algorithm.hashCode()
+
+    companion object {
+        private const val TAG = "AbrConfig"
+
+        const val DEFAULT_MIN_DURATION_FOR_QUALITY_INCREASE_MS = 10_000
+        const val DEFAULT_MAX_DURATION_FOR_QUALITY_DECREASE_MS = 25_000
+        const val DEFAULT_MIN_SWITCH_INTERVAL_MS = 5_000
+        const val DEFAULT_BANDWIDTH_FRACTION = 0.7f
+        const val DEFAULT_BUFFER_TARGET_MS = 20_000
+
+        private const val PROP_ABR_ALGORITHM = "algorithm"
+        private const val PROP_ABR_MIN_DURATION_FOR_QUALITY_INCREASE_MS = "minDurationForQualityIncreaseMs"
+        private const val PROP_ABR_MAX_DURATION_FOR_QUALITY_DECREASE_MS = "maxDurationForQualityDecreaseMs"
+        private const val PROP_ABR_MIN_SWITCH_INTERVAL_MS = "minSwitchIntervalMs"
+        private const val PROP_ABR_BANDWIDTH_FRACTION = "bandwidthFraction"
+        private const val PROP_ABR_BUFFER_TARGET_MS = "bufferTargetMs"
+
+        private fun parseAlgorithm(src: String?): Algorithm {
+            if (src == null) return Algorithm.Default
+            return try {
+                Algorithm.valueOf(src.replaceFirstChar { it.uppercaseChar() })
+            } catch (e: Exception) {
+                DebugLog.e(TAG, "cannot parse abr algorithm $src")
+                Algorithm.Default
+            }
+        }
+
+        /** parse the source.abr ReadableMap, return null when the source doesn't provide one */
+        @JvmStatic
+        fun parse(src: ReadableMap?): AbrConfig? {
+            if (src == null) return null
+            val config = AbrConfig()
+            config.algorithm = parseAlgorithm(safeGetString(src, PROP_ABR_ALGORITHM))
+            config.minDurationForQualityIncreaseMs =
+                safeGetInt(src, PROP_ABR_MIN_DURATION_FOR_QUALITY_INCREASE_MS, DEFAULT_MIN_DURATION_FOR_QUALITY_INCREASE_MS)
+            config.maxDurationForQualityDecreaseMs =
+                safeGetInt(src, PROP_ABR_MAX_DURATION_FOR_QUALITY_DECREASE_MS, DEFAULT_MAX_DURATION_FOR_QUALITY_DECREASE_MS)
+            config.minSwitchIntervalMs = safeGetInt(src, PROP_ABR_MIN_SWITCH_INTERVAL_MS, DEFAULT_MIN_SWITCH_INTERVAL_MS)
+            config.bandwidthFraction = safeGetFloat(src, PROP_ABR_BANDWIDTH_FRACTION, DEFAULT_BANDWIDTH_FRACTION)
+            config.bufferTargetMs = safeGetInt(src, PROP_ABR_BUFFER_TARGET_MS, DEFAULT_BUFFER_TARGET_MS)
+            return config
+        }
+    }
+}
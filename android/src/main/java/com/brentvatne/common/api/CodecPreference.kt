@@ -0,0 +1,81 @@
+package com.brentvatne.common.api
+
+import com.brentvatne.common.toolbox.DebugLog
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetArray
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetString
+import com.facebook.react.bridge.ReadableMap
+
+/**
+ * Class representing the video codec preference (codecPreference prop).
+ * Only generic code here, no reference to the player.
+ */
+class CodecPreference {
+
+    /**
+     * How the video codec is picked when the content is offered in several codecs
+     */
+    enum class Policy {
+        /**
+         * exoplayer default selection, no codec preference
+         */
+        Default,
+
+        /**
+         * codecs with a hardware decoder first, then the most efficient one
+         */
+        HardwareFirst,
+
+        /**
+         * most efficient codec first (less bits for the same quality), a software only codec is
+         * accepted as long as its renditions stay small enough to be decoded cheaply
+         */
+        Efficiency
+    }
+
+    var policy = Policy.Default
+
+    /** mime types ranked before the others (after the hardware decoder check) */
+    var preferredCodecs: List<String> = emptyList()
+
+    /** return true if this and src are equals  */
+    override fun equals(other: Any?): Boolean {
+        if (other == null || other !is CodecPreference) return false
+        return policy == other.policy && preferredCodecs == other.preferredCodecs
+    }
+
+    override fun hashCode(): Int = policy.hashCode() * 31 + preferredCodecs.hashCode()
+
+    companion object {
+        private const val TAG = "CodecPreference"
+
+        private const val PROP_POLICY = "policy"
+        private const val PROP_PREFERRED_CODECS = "preferredCodecs"
+
+        private fun parsePolicy(src: String?): Policy {
+            if (src == null) return Policy.Default
+            return try {
+                Policy.valueOf(src.replaceFirstChar { it.uppercaseChar() })
+            } catch (e: Exception) {
+                DebugLog.e(TAG, "cannot parse codec preference policy $src")
+                Policy.Default
+            }
+        }
+
+        /** parse the codecPreference prop, a null prop gives the default policy */
+        @JvmStatic
+        fun parse(src: ReadableMap?): CodecPreference {
+            val preference = CodecPreference()
+            if (src == null) return preference
+            preference.policy = parsePolicy(safeGetString(src, PROP_POLICY))
+            val codecs = safeGetArray(src, PROP_PREFERRED_CODECS)
+            if (codecs != null) {
+                val list = ArrayList<String>(codecs.size())
+                for (i in 0 until codecs.size()) {
+                    codecs.getString(i)?.let { list.add(it) }
+                }
+                preference.preferredCodecs = list
+            }
+            return preference
+        }
+    }
+}
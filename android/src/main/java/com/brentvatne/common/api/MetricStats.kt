@@ -0,0 +1,43 @@
+package com.brentvatne.common.api
+
+/**
+ * Min / max / average / last value of a metric over a reporting interval.
+ * Only generic code here, no reference to the player.
+ */
+class MetricStats {
+
+    /** number of values added since the last reset */
+    var count = 0
+        private set
+    var min = 0.0
+        private set
+    var max = 0.0
+        private set
+    var last = 0.0
+        private set
+    private var sum = 0.0
+
+    val average: Double
+        get() = if (count == 0) 0.0 else sum / count
+
+    fun add(value: Double) {
+        if (count == 0) {
+            min = value
+            max = value
+        } else {
+            min = minOf(min, value)
+            max = maxOf(max, value)
+        }
+        last = value
+        sum += value
+        count++
+    }
+
+    fun reset() {
+        count = 0
+        min = 0.0
+        max = 0.0
+        last = 0.0
+        sum = 0.0
+    }
+}
@@ -0,0 +1,52 @@
+package com.brentvatne.common.api
+
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetBool
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetInt
+import com.facebook.react.bridge.ReadableMap
+
+/**
+ * Class representing the onPlaybackMetrics cadence (playbackMetricsConfig prop).
+ * Only generic code here, no reference to the player.
+ */
+class PlaybackMetricsConfig {
+
+    /** emission interval (ms), 0 to emit on every bandwidth sample */
+    var intervalMs = DEFAULT_INTERVAL_MS
+
+    /** keep emitting while the playback is paused */
+    var reportWhilePaused = false
+
+    /** keep emitting while the app is in background */
+    var reportInBackground = false
+
+    /** return true if this and src are equals  */
+    override fun equals(other: Any?): Boolean {
+        if (other == null || other !is PlaybackMetricsConfig) return false
+        return (
+            intervalMs == other.intervalMs &&
+                reportWhilePaused == other.reportWhilePaused &&
+                reportInBackground == other.reportInBackground
+            )
+    }
+
+    override fun hashCode(): Int = intervalMs
+
+    companion object {
+        const val DEFAULT_INTERVAL_MS = 1000
+
+        private const val PROP_INTERVAL_MS = "intervalMs"
+        private const val PROP_REPORT_WHILE_PAUSED = "reportWhilePaused"
+        private const val PROP_REPORT_IN_BACKGROUND = "reportInBackground"
+
+        /** parse the playbackMetricsConfig prop, a null prop gives the default config */
+        @JvmStatic
+        fun parse(src: ReadableMap?): PlaybackMetricsConfig {
+            val config = PlaybackMetricsConfig()
+            if (src == null) return config
+            config.intervalMs = maxOf(0, safeGetInt(src, PROP_INTERVAL_MS, DEFAULT_INTERVAL_MS))
+            config.reportWhilePaused = safeGetBool(src, PROP_REPORT_WHILE_PAUSED, false)
+            config.reportInBackground = safeGetBool(src, PROP_REPORT_IN_BACKGROUND, false)
+            return config
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.brentvatne.common.api
+
+import com.brentvatne.common.toolbox.DebugLog
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetBool
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetDouble
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetMap
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetString
+import com.facebook.react.bridge.ReadableArray
+import com.facebook.react.bridge.ReadableMap
+import com.facebook.react.bridge.ReadableType
+import kotlin.math.roundToLong
+
+/**
+ * Class representing the commands of one executeBatch call, coalesced: only the last
+ * command of each kind is kept (last seek, last paused state...), null when absent.
+ * Only generic code here, no reference to the player.
+ */
+class PlayerCommandBatch {
+
+    /** track selection of a selectAudioTrack / selectTextTrack / selectVideoTrack command */
+    class TrackSelection(val type: String?, val value: String?)
+
+    var seekPositionMs: Long? = null
+    var paused: Boolean? = null
+    var volume: Float? = null
+    var muted: Boolean? = null
+    var rate: Float? = null
+    var audioTrack: TrackSelection? = null
+    var textTrack: TrackSelection? = null
+    var videoTrack: TrackSelection? = null
+
+    /** commands received */
+    var commandCount = 0
+
+    /** commands dropped because a later one of the same kind overrides them */
+    var coalescedCount = 0
+
+    fun isEmpty(): Boolean =
+        seekPositionMs == null && paused == null && volume == null && muted == null && rate == null &&
+            audioTrack == null && textTrack == null && videoTrack == null
+
+    companion object {
+        private const val TAG = "PlayerCommandBatch"
+
+        private const val PROP_TYPE = "type"
+        private const val PROP_TIME = "time"
+        private const val PROP_PAUSED = "paused"
+        private const val PROP_VOLUME = "volume"
+        private const val PROP_MUTED = "muted"
+        private const val PROP_RATE = "rate"
+        private const val PROP_TRACK = "track"
+        private const val PROP_TRACK_TYPE = "type"
+        private const val PROP_TRACK_VALUE = "value"
+
+        private const val COMMAND_SEEK = "seek"
+        private const val COMMAND_SET_PAUSED = "setPaused"
+        private const val COMMAND_SET_VOLUME = "setVolume"
+        private const val COMMAND_SET_MUTED = "setMuted"
+        private const val COMMAND_SET_RATE = "setRate"
+        private const val COMMAND_SELECT_AUDIO_TRACK = "selectAudioTrack"
+        private const val COMMAND_SELECT_TEXT_TRACK = "selectTextTrack"
+        private const val COMMAND_SELECT_VIDEO_TRACK = "selectVideoTrack"
+
+        /** parse the executeBatch commands, unknown and invalid commands are ignored */
+        @JvmStatic
+        fun parse(src: ReadableArray?): PlayerCommandBatch {
+            val batch = PlayerCommandBatch()
+            if (src == null) return batch
+            for (i in 0 until src.size()) {
+                val command = src.getMap(i) ?: continue
+                batch.commandCount++
+                if (!batch.add(command)) {
+                    DebugLog.w(TAG, "ignoring invalid command " + safeGetString(command, PROP_TYPE))
+                }
+            }
+            return batch
+        }
+
+        private fun parseTrack(command: ReadableMap): TrackSelection {
+            val track = safeGetMap(command, PROP_TRACK)
+            if (track == null || !track.hasKey(PROP_TRACK_VALUE) || track.isNull(PROP_TRACK_VALUE)) {
+                return TrackSelection(safeGetString(track, PROP_TRACK_TYPE), null)
+            }
+            // Same string values as the selected*Track props
+            val value = when (track.getType(PROP_TRACK_VALUE)) {
+                ReadableType.Number -> track.getDouble(PROP_TRACK_VALUE).toLong().toString()
+                ReadableType.String -> track.getString(PROP_TRACK_VALUE)
+                else -> null
+            }
+            return TrackSelection(safeGetString(track, PROP_TRACK_TYPE), value)
+        }
+    }
+
+    /** @return false for an unknown or invalid command */
+    private fun add(command: ReadableMap): Boolean {
+        when (safeGetString(command, PROP_TYPE)) {
+            COMMAND_SEEK -> {
+                val time = safeGetDouble(command, PROP_TIME, -1.0)
+                if (time < 0) return false
+                if (seekPositionMs != null) coalescedCount++
+                seekPositionMs = (time * 1000).roundToLong()
+            }
+            COMMAND_SET_PAUSED -> {
+                if (paused != null) coalescedCount++
+                paused = safeGetBool(command, PROP_PAUSED, true)
+            }
+            COMMAND_SET_VOLUME -> {
+                if (volume != null) coalescedCount++
+                volume = safeGetDouble(command, PROP_VOLUME, 1.0).toFloat()
+            }
+            COMMAND_SET_MUTED -> {
+                if (muted != null) coalescedCount++
+                muted = safeGetBool(command, PROP_MUTED, false)
+            }
+            COMMAND_SET_RATE -> {
+                val newRate = safeGetDouble(command, PROP_RATE, 0.0).toFloat()
+                if (newRate <= 0) return false
+                if (rate != null) coalescedCount++
+                rate = newRate
+            }
+            COMMAND_SELECT_AUDIO_TRACK -> {
+                if (audioTrack != null) coalescedCount++
+                audioTrack = parseTrack(command)
+            }
+            COMMAND_SELECT_TEXT_TRACK -> {
+                if (textTrack != null) coalescedCount++
+                textTrack = parseTrack(command)
+            }
+            COMMAND_SELECT_VIDEO_TRACK -> {
+                if (videoTrack != null) coalescedCount++
+                videoTrack = parseTrack(command)
+            }
+            else -> return false
+        }
+        return true
+    }
+}
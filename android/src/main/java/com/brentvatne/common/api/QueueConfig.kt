@@ -0,0 +1,112 @@
+package com.brentvatne.common.api
+
+import android.content.Context
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetArray
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetInt
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetMap
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetString
+import com.facebook.react.bridge.ReadableMap
+
+/**
+ * Class representing the queue prop: sources played after src, in the same player.
+ * Only generic code here, no reference to the player.
+ */
+class QueueConfig {
+
+    /** sources played after src, in order */
+    val items: MutableList<Source> = ArrayList()
+
+    /** DRM of each item, null for the items using the drm prop */
+    val drm: MutableList<Drm?> = ArrayList()
+
+    /** the next item is added to the playlist when the current one has less than this left to play (ms) */
+    var preloadHorizonMs = DEFAULT_PRELOAD_HORIZON_MS
+
+    /** true when an item has its own drm */
+    fun hasDrm(): Boolean = drm.any { it != null }
+
+    /** return true if this and src are equals  */
+    override fun equals(other: Any?): Boolean {
+        if (other == null || other !is QueueConfig) return false
+        return (
+            items == other.items &&
+                drm == other.drm &&
+                preloadHorizonMs == other.preloadHorizonMs
+            )
+    }
+
+    override fun hashCode(): Int = items.size * 31 + preloadHorizonMs
+
+    /**
+     * drm of a queue item, same fields as the drm prop
+     */
+    class Drm {
+        var type: String? = null
+        var licenseServer: String? = null
+
+        /** license request headers, as key, value pairs */
+        val headers: MutableList<String> = ArrayList()
+
+        override fun equals(other: Any?): Boolean {
+            if (other == null || other !is Drm) return false
+            return type == other.type && licenseServer == other.licenseServer && headers == other.headers
+        }
+
+        override fun hashCode(): Int = (type?.hashCode() ?: 0) * 31 + (licenseServer?.hashCode() ?: 0)
+
+        companion object {
+            private const val PROP_TYPE = "type"
+            private const val PROP_LICENSE_SERVER = "licenseServer"
+            private const val PROP_HEADERS = "headers"
+
+            /** null without type or license server */
+            @JvmStatic
+            fun parse(src: ReadableMap?): Drm? {
+                val type = safeGetString(src, PROP_TYPE) ?: return null
+                val licenseServer = safeGetString(src, PROP_LICENSE_SERVER) ?: return null
+                val drm = Drm()
+                drm.type = type
+                drm.licenseServer = licenseServer
+                val headers = safeGetArray(src, PROP_HEADERS)
+                if (headers != null) {
+                    for (i in 0 until headers.size()) {
+                        val header = headers.getMap(i)
+                        drm.headers.add(safeGetString(header, "key") ?: continue)
+                        drm.headers.add(safeGetString(header, "value") ?: "")
+                    }
+                }
+                return drm
+            }
+        }
+    }
+
+    companion object {
+        const val DEFAULT_PRELOAD_HORIZON_MS = 30000
+
+        private const val PROP_ITEMS = "items"
+        private const val PROP_PRELOAD_HORIZON_MS = "preloadHorizonMs"
+        private const val PROP_ITEM_DRM = "drm"
+
+        /** parse the queue prop, null when there is nothing to play after src */
+        @JvmStatic
+        fun parse(src: ReadableMap?, context: Context): QueueConfig? {
+            if (src == null) return null
+            val config = QueueConfig()
+            val items = safeGetArray(src, PROP_ITEMS)
+            if (items != null) {
+                for (i in 0 until items.size()) {
+                    val itemMap = items.getMap(i)
+                    val item = Source.parse(itemMap, context)
+                    // Items without a playable uri are skipped
+                    if (item.uri != null) {
+                        config.items.add(item)
+                        config.drm.add(Drm.parse(safeGetMap(itemMap, PROP_ITEM_DRM)))
+                    }
+                }
+            }
+            if (config.items.isEmpty()) return null
+            config.preloadHorizonMs = maxOf(0, safeGetInt(src, PROP_PRELOAD_HORIZON_MS, DEFAULT_PRELOAD_HORIZON_MS))
+            return config
+        }
+    }
+}
@@ -48,6 +48,9 @@ class Source {
     /** http header list */
     val headers: MutableMap<String, String> = HashMap()
 
+    /** Adaptive bitrate configuration, null to keep the default exoplayer behavior */
+    var abrConfig: AbrConfig? = null
+
     /** return true if this and src are equals  */
     override fun equals(other: Any?): Boolean {
         if (other == null || other !is Source) return false
@@ -119,6 +122,7 @@ class Source {
         private const val PROP_SRC_METADATA = "metadata"
         private const val PROP_SRC_HEADERS = "requestHeaders"
         private const val PROP_SRC_ID = "id"
+        private const val PROP_SRC_ABR = "abr"
 
         @SuppressLint("DiscouragedApi")
         private fun getUriFromAssetId(context: Context, uriString: String): Uri? {
@@ -209,6 +213,7 @@ class Source {
                     }
                 }
                 source.metadata = Metadata.parse(safeGetMap(src, PROP_SRC_METADATA))
+                source.abrConfig = AbrConfig.parse(safeGetMap(src, PROP_SRC_ABR))
             }
             return source
         }
@@ -0,0 +1,60 @@
+package com.brentvatne.common.api
+
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetInt
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetString
+import com.facebook.react.bridge.ReadableMap
+
+/**
+ * Class representing the seek preview thumbnails config (thumbnails prop).
+ * Only generic code here, no reference to the player.
+ */
+class ThumbnailsConfig {
+
+    /** WebVTT sprite sheet index, null to use the I-frame playlist (HLS) or image adaptation set (DASH) */
+    var url: String? = null
+
+    /** thumbnails are scaled down to this width (px) */
+    var maxWidth = DEFAULT_MAX_WIDTH
+
+    /** size of the decoded thumbnails cache (MB) */
+    var cacheSizeMb = DEFAULT_CACHE_SIZE_MB
+
+    /** thumbnails decoded ahead of and behind the current position */
+    var prefetchCount = DEFAULT_PREFETCH_COUNT
+
+    /** return true if this and src are equals  */
+    override fun equals(other: Any?): Boolean {
+        if (other == null || other !is ThumbnailsConfig) return false
+        return (
+            url == other.url &&
+                maxWidth == other.maxWidth &&
+                cacheSizeMb == other.cacheSizeMb &&
+                prefetchCount == other.prefetchCount
+            )
+    }
+
+    override fun hashCode(): Int = (url?.hashCode() ?: 0) * 31 + maxWidth
+
+    companion object {
+        const val DEFAULT_MAX_WIDTH = 240
+        const val DEFAULT_CACHE_SIZE_MB = 16
+        const val DEFAULT_PREFETCH_COUNT = 5
+
+        private const val PROP_URL = "url"
+        private const val PROP_MAX_WIDTH = "maxWidth"
+        private const val PROP_CACHE_SIZE_MB = "cacheSizeMb"
+        private const val PROP_PREFETCH_COUNT = "prefetchCount"
+
+        /** parse the thumbnails prop, null when thumbnails are disabled */
+        @JvmStatic
+        fun parse(src: ReadableMap?): ThumbnailsConfig? {
+            if (src == null) return null
+            val config = ThumbnailsConfig()
+            config.url = safeGetString(src, PROP_URL)
+            config.maxWidth = maxOf(16, safeGetInt(src, PROP_MAX_WIDTH, DEFAULT_MAX_WIDTH))
+            config.cacheSizeMb = maxOf(1, safeGetInt(src, PROP_CACHE_SIZE_MB, DEFAULT_CACHE_SIZE_MB))
+            config.prefetchCount = maxOf(0, safeGetInt(src, PROP_PREFETCH_COUNT, DEFAULT_PREFETCH_COUNT))
+            return config
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package com.brentvatne.common.react;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.StringDef;
 
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
 import android.view.View;
 
+import com.brentvatne.common.api.MetricStats;
 import com.brentvatne.common.api.TimedMetadata;
 import com.brentvatne.common.api.Track;
 import com.brentvatne.common.api.VideoTrack;
@@ -20,13 +25,42 @@ import java.io.StringWriter;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 
 public class VideoEventEmitter {
 
     private final ReactContext mReactContext;
 
     private int viewId = View.NO_ID;
+    private long subscribedEvents = -1;
+
+    // Looked up on the first event, not for each of them
+    @Nullable
+    private UIManager uiManager;
+    private int surfaceId = View.NO_ID;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Latest value of the coalesced events not sent yet, in the order they first arrived
+    private final LinkedHashMap<String, WritableMap> pendingEvents = new LinkedHashMap<>();
+    private boolean frameCallbackPosted = false;
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> {
+        frameCallbackPosted = false;
+        flushPendingEvents();
+    };
+    // Display frames stop in background with the screen off and while the view is hidden,
+    // a delayed post replaces the frame callback then
+    private boolean frameClockAvailable = true;
+    private final Runnable flushRunnable = () -> {
+        frameCallbackPosted = false;
+        flushPendingEvents();
+    };
+    private static final long FLUSH_DELAY_WITHOUT_FRAMES_MS = 16;
 
     public VideoEventEmitter(ReactContext reactContext) {
         this.mReactContext = reactContext;
@@ -63,6 +97,10 @@ public class VideoEventEmitter {
     private static final String EVENT_VIDEO_TRACKS = "onVideoTracks";
     private static final String EVENT_ON_RECEIVE_AD_EVENT = "onReceiveAdEvent";
     private static final String EVENT_PICTURE_IN_PICTURE_STATUS_CHANGED = "onPictureInPictureStatusChanged";
+    private static final String EVENT_BUFFER_CONFIG_APPLIED = "onBufferConfigApplied";
+    private static final String EVENT_ABR_DECISION = "onAbrDecision";
+    private static final String EVENT_VIEWPORT_CAP_CHANGED = "onViewportCapChanged";
+    private static final String EVENT_QUEUE_ITEM_CHANGE = "onQueueItemChange";
 
     static public final String[] Events = {
             EVENT_LOAD_START,
@@ -93,7 +131,11 @@ public class VideoEventEmitter {
             EVENT_BANDWIDTH,
             EVENT_PLAYBACK_METRICS,
             EVENT_ON_RECEIVE_AD_EVENT,
-            EVENT_PICTURE_IN_PICTURE_STATUS_CHANGED
+            EVENT_PICTURE_IN_PICTURE_STATUS_CHANGED,
+            EVENT_BUFFER_CONFIG_APPLIED,
+            EVENT_ABR_DECISION,
+            EVENT_VIEWPORT_CAP_CHANGED,
+            EVENT_QUEUE_ITEM_CHANGE
     };
 
     @Retention(RetentionPolicy.SOURCE)
@@ -126,11 +168,33 @@ public class VideoEventEmitter {
             EVENT_BANDWIDTH,
             EVENT_PLAYBACK_METRICS,
             EVENT_ON_RECEIVE_AD_EVENT,
-            EVENT_PICTURE_IN_PICTURE_STATUS_CHANGED
+            EVENT_PICTURE_IN_PICTURE_STATUS_CHANGED,
+            EVENT_BUFFER_CONFIG_APPLIED,
+            EVENT_ABR_DECISION,
+            EVENT_VIEWPORT_CAP_CHANGED,
+            EVENT_QUEUE_ITEM_CHANGE
     })
     @interface VideoEvents {
     }
 
+    // Bit of each event in the subscribedEvents mask: its index in Events
+    private static final Map<String, Integer> EVENT_BITS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < Events.length; i++) {
+            EVENT_BITS.put(Events[i], i);
+        }
+    }
+
+    // Sent at most once per display frame
+    private static final Set<String> COALESCED_EVENTS = new HashSet<>(Arrays.asList(
+            EVENT_PROGRESS,
+            EVENT_BANDWIDTH,
+            EVENT_PLAYBACK_METRICS,
+            EVENT_TIMED_METADATA,
+            EVENT_TEXT_TRACK_DATA_CHANGED
+    ));
+
     private static final String EVENT_PROP_FAST_FORWARD = "canPlayFastForward";
     private static final String EVENT_PROP_SLOW_FORWARD = "canPlaySlowForward";
     private static final String EVENT_PROP_SLOW_REVERSE = "canPlaySlowReverse";
@@ -178,11 +242,119 @@ public class VideoEventEmitter {
 
     private static final String EVENT_PROP_PIP_IS_ACTIVE = "isActive";
 
+    private static final String EVENT_PROP_MODE = "mode";
+    private static final String EVENT_PROP_REASON = "reason";
+
+    private static final String EVENT_PROP_ALGORITHM = "algorithm";
+    private static final String EVENT_PROP_PREVIOUS_BITRATE = "previousBitrate";
+    private static final String EVENT_PROP_BITRATE_ESTIMATE = "bitrateEstimate";
+    private static final String EVENT_PROP_BUFFER_DURATION = "bufferDuration";
+    private static final String EVENT_PROP_SWITCH_COUNT = "switchCount";
+
+    private static final String EVENT_PROP_TRIGGER = "trigger";
+    private static final String EVENT_PROP_CAPPED_BITRATE = "cappedBitrate";
+    private static final String EVENT_PROP_UNCAPPED_BITRATE = "uncappedBitrate";
+    private static final String EVENT_PROP_BANDWIDTH_SAVED = "bandwidthSaved";
+
+    private static final String EVENT_PROP_INDEX = "index";
+    private static final String EVENT_PROP_ID = "id";
+    private static final String EVENT_PROP_URI = "uri";
+
+    private static final String EVENT_PROP_CODEC = "codec";
+    private static final String EVENT_PROP_PREFERRED_CODEC = "preferredCodec";
+    private static final String EVENT_PROP_CODEC_REASON = "codecReason";
+
+    private static final String EVENT_PROP_INTERVAL = "interval";
+    private static final String EVENT_PROP_THROUGHPUT_STATS = "throughputStats";
+    private static final String EVENT_PROP_BITRATE_STATS = "bitrateStats";
+    private static final String EVENT_PROP_FRAMES_PER_SECOND_STATS = "framesPerSecondStats";
+    private static final String EVENT_PROP_DROPPED_FRAMES_STATS = "droppedFramesStats";
+    private static final String EVENT_PROP_MIN = "min";
+    private static final String EVENT_PROP_MAX = "max";
+    private static final String EVENT_PROP_AVG = "avg";
+    private static final String EVENT_PROP_LAST = "last";
+
+    /**
+     * Events with a JS handler, bit i set for Events[i]. A negative mask subscribes to all
+     * of them (JS side not sending the mask).
+     */
+    public void setSubscribedEvents(long subscribedEvents) {
+        this.subscribedEvents = subscribedEvents;
+    }
+
+    private boolean isSubscribed(@VideoEvents String type) {
+        if (subscribedEvents < 0) {
+            return true;
+        }
+        Integer bit = EVENT_BITS.get(type);
+        return bit == null || (subscribedEvents & (1L << bit)) != 0;
+    }
+
+    // Checked by the player before building the data of an event
+
+    public boolean hasLoadListener() {
+        return isSubscribed(EVENT_LOAD);
+    }
+
+    public boolean hasAudioTracksListener() {
+        return isSubscribed(EVENT_AUDIO_TRACKS);
+    }
+
+    public boolean hasTextTracksListener() {
+        return isSubscribed(EVENT_TEXT_TRACKS);
+    }
+
+    public boolean hasVideoTracksListener() {
+        return isSubscribed(EVENT_VIDEO_TRACKS);
+    }
+
+    public boolean hasTimedMetadataListener() {
+        return isSubscribed(EVENT_TIMED_METADATA);
+    }
+
+    public boolean hasTextTrackDataListener() {
+        return isSubscribed(EVENT_TEXT_TRACK_DATA_CHANGED);
+    }
+
+    public boolean hasPlaybackMetricsListener() {
+        return isSubscribed(EVENT_PLAYBACK_METRICS);
+    }
+
+    public boolean hasReceiveAdEventListener() {
+        return isSubscribed(EVENT_ON_RECEIVE_AD_EVENT);
+    }
+
+    /**
+     * Whether display frames are coming (foreground, view shown). Held events are flushed on
+     * the next frame if so, after a short delay otherwise.
+     */
+    public void setFrameClockAvailable(boolean available) {
+        if (frameClockAvailable == available) {
+            return;
+        }
+        frameClockAvailable = available;
+        if (frameCallbackPosted) {
+            // Scheduled on the previous clock, it may never fire
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+            mainHandler.removeCallbacks(flushRunnable);
+            frameCallbackPosted = false;
+            flushPendingEvents();
+        }
+    }
+
     public void setViewId(int viewId) {
+        if (this.viewId != viewId) {
+            // Pending events belong to the previous id, the UIManager type depends on the id
+            flushPendingEvents();
+            uiManager = null;
+        }
         this.viewId = viewId;
     }
 
     public void loadStart() {
+        if (!isSubscribed(EVENT_LOAD_START)) {
+            return;
+        }
         receiveEvent(EVENT_LOAD_START, null);
     }
 
@@ -263,6 +435,9 @@ public class VideoEventEmitter {
 
     public void load(double duration, double currentPosition, int videoWidth, int videoHeight,
                      ArrayList<Track> audioTracks, ArrayList<Track> textTracks, ArrayList<VideoTrack> videoTracks, String trackId){
+        if (!isSubscribed(EVENT_LOAD)) {
+            return;
+        }
         WritableArray waAudioTracks = audioTracksToArray(audioTracks);
         WritableArray waVideoTracks = videoTracksToArray(videoTracks);
         WritableArray waTextTracks = textTracksToArray(textTracks);
@@ -302,24 +477,44 @@ public class VideoEventEmitter {
     }
 
     public void audioTracks(ArrayList<Track> audioTracks){
+        if (!isSubscribed(EVENT_AUDIO_TRACKS)) {
+            return;
+        }
         receiveEvent(EVENT_AUDIO_TRACKS, arrayToObject(EVENT_PROP_AUDIO_TRACKS, audioTracksToArray(audioTracks)));
     }
 
     public void textTracks(ArrayList<Track> textTracks){
+        if (!isSubscribed(EVENT_TEXT_TRACKS)) {
+            return;
+        }
         receiveEvent(EVENT_TEXT_TRACKS, arrayToObject(EVENT_PROP_TEXT_TRACKS, textTracksToArray(textTracks)));
     }
 
     public void textTrackDataChanged(String textTrackData){
+        if (!isSubscribed(EVENT_TEXT_TRACK_DATA_CHANGED)) {
+            return;
+        }
         WritableMap event = Arguments.createMap();
         event.putString(EVENT_PROP_TEXT_TRACK_DATA, textTrackData);
         receiveEvent(EVENT_TEXT_TRACK_DATA_CHANGED, event);
     }
 
-    public void videoTracks(ArrayList<VideoTrack> videoTracks){
-        receiveEvent(EVENT_VIDEO_TRACKS, arrayToObject(EVENT_PROP_VIDEO_TRACKS, videoTracksToArray(videoTracks)));
+    public void videoTracks(ArrayList<VideoTrack> videoTracks, @Nullable String preferredCodec, String codecReason){
+        if (!isSubscribed(EVENT_VIDEO_TRACKS)) {
+            return;
+        }
+        WritableMap event = arrayToObject(EVENT_PROP_VIDEO_TRACKS, videoTracksToArray(videoTracks));
+        if (preferredCodec != null) {
+            event.putString(EVENT_PROP_PREFERRED_CODEC, preferredCodec);
+            event.putString(EVENT_PROP_CODEC_REASON, codecReason);
+        }
+        receiveEvent(EVENT_VIDEO_TRACKS, event);
     }
 
     public void progressChanged(double currentPosition, double bufferedDuration, double seekableDuration, double currentPlaybackTime) {
+        if (!isSubscribed(EVENT_PROGRESS)) {
+            return;
+        }
         WritableMap event = Arguments.createMap();
         event.putDouble(EVENT_PROP_CURRENT_TIME, currentPosition / 1000D);
         event.putDouble(EVENT_PROP_PLAYABLE_DURATION, bufferedDuration / 1000D);
@@ -329,6 +524,9 @@ public class VideoEventEmitter {
     }
 
     public void bandwidthReport(double bitRateEstimate, int height, int width, String id) {
+        if (!isSubscribed(EVENT_BANDWIDTH)) {
+            return;
+        }
         WritableMap event = Arguments.createMap();
         event.putDouble(EVENT_PROP_BITRATE, bitRateEstimate);
         event.putInt(EVENT_PROP_WIDTH, width);
@@ -342,7 +540,13 @@ public class VideoEventEmitter {
     // the selected rendition. Byte counts use putDouble to avoid Int32 overflow.
     public void playbackMetrics(double bitrate, double throughput, double framesPerSecond,
                                 int droppedFrames, double totalBytesTransferred,
-                                int width, int height) {
+                                int width, int height, @Nullable String codec, String codecReason,
+                                int intervalMs, @Nullable MetricStats throughputStats,
+                                @Nullable MetricStats bitrateStats, @Nullable MetricStats framesPerSecondStats,
+                                @Nullable MetricStats droppedFramesStats) {
+        if (!isSubscribed(EVENT_PLAYBACK_METRICS)) {
+            return;
+        }
         WritableMap event = Arguments.createMap();
         event.putDouble(EVENT_PROP_BITRATE, bitrate);
         event.putDouble(EVENT_PROP_THROUGHPUT, throughput);
@@ -351,10 +555,83 @@ public class VideoEventEmitter {
         event.putDouble(EVENT_PROP_TOTAL_BYTES_TRANSFERRED, totalBytesTransferred);
         event.putInt(EVENT_PROP_WIDTH, width);
         event.putInt(EVENT_PROP_HEIGHT, height);
+        if (codec != null) {
+            event.putString(EVENT_PROP_CODEC, codec);
+        }
+        event.putString(EVENT_PROP_CODEC_REASON, codecReason);
+        if (intervalMs > 0) {
+            event.putInt(EVENT_PROP_INTERVAL, intervalMs);
+            putMetricStats(event, EVENT_PROP_THROUGHPUT_STATS, throughputStats);
+            putMetricStats(event, EVENT_PROP_BITRATE_STATS, bitrateStats);
+            putMetricStats(event, EVENT_PROP_FRAMES_PER_SECOND_STATS, framesPerSecondStats);
+            putMetricStats(event, EVENT_PROP_DROPPED_FRAMES_STATS, droppedFramesStats);
+        }
         receiveEvent(EVENT_PLAYBACK_METRICS, event);
     }
 
+    private static void putMetricStats(WritableMap event, String field, @Nullable MetricStats stats) {
+        if (stats == null || stats.getCount() == 0) {
+            return;
+        }
+        WritableMap map = Arguments.createMap();
+        map.putDouble(EVENT_PROP_MIN, stats.getMin());
+        map.putDouble(EVENT_PROP_MAX, stats.getMax());
+        map.putDouble(EVENT_PROP_AVG, stats.getAverage());
+        map.putDouble(EVENT_PROP_LAST, stats.getLast());
+        event.putMap(field, map);
+    }
+
+    public void abrDecision(String algorithm, String reason, int previousBitrate, int bitrate,
+                            int width, int height, double bitrateEstimate, double bufferDurationMs,
+                            int switchCount) {
+        if (!isSubscribed(EVENT_ABR_DECISION)) {
+            return;
+        }
+        WritableMap event = Arguments.createMap();
+        event.putString(EVENT_PROP_ALGORITHM, algorithm);
+        event.putString(EVENT_PROP_REASON, reason);
+        event.putDouble(EVENT_PROP_PREVIOUS_BITRATE, previousBitrate);
+        event.putDouble(EVENT_PROP_BITRATE, bitrate);
+        event.putInt(EVENT_PROP_WIDTH, width);
+        event.putInt(EVENT_PROP_HEIGHT, height);
+        event.putDouble(EVENT_PROP_BITRATE_ESTIMATE, bitrateEstimate);
+        event.putDouble(EVENT_PROP_BUFFER_DURATION, bufferDurationMs / 1000D);
+        event.putInt(EVENT_PROP_SWITCH_COUNT, switchCount);
+        receiveEvent(EVENT_ABR_DECISION, event);
+    }
+
+    public void viewportCapChanged(int width, int height, String trigger, int cappedBitrate, int uncappedBitrate) {
+        if (!isSubscribed(EVENT_VIEWPORT_CAP_CHANGED)) {
+            return;
+        }
+        WritableMap event = Arguments.createMap();
+        event.putInt(EVENT_PROP_WIDTH, width);
+        event.putInt(EVENT_PROP_HEIGHT, height);
+        event.putString(EVENT_PROP_TRIGGER, trigger);
+        event.putDouble(EVENT_PROP_CAPPED_BITRATE, cappedBitrate);
+        event.putDouble(EVENT_PROP_UNCAPPED_BITRATE, uncappedBitrate);
+        event.putDouble(EVENT_PROP_BANDWIDTH_SAVED, uncappedBitrate - cappedBitrate);
+        receiveEvent(EVENT_VIEWPORT_CAP_CHANGED, event);
+    }
+
+    public void queueItemChange(int index, @Nullable String id, String uri, String reason) {
+        if (!isSubscribed(EVENT_QUEUE_ITEM_CHANGE)) {
+            return;
+        }
+        WritableMap event = Arguments.createMap();
+        event.putInt(EVENT_PROP_INDEX, index);
+        if (id != null) {
+            event.putString(EVENT_PROP_ID, id);
+        }
+        event.putString(EVENT_PROP_URI, uri);
+        event.putString(EVENT_PROP_REASON, reason);
+        receiveEvent(EVENT_QUEUE_ITEM_CHANGE, event);
+    }
+
     public void seek(long currentPosition, long seekTime) {
+        if (!isSubscribed(EVENT_SEEK)) {
+            return;
+        }
         WritableMap event = Arguments.createMap();
         event.putDouble(EVENT_PROP_CURRENT_TIME, currentPosition / 1000D);
         event.putDouble(EVENT_PROP_SEEK_TIME, seekTime / 1000D);
@@ -362,16 +639,25 @@ public class VideoEventEmitter {
     }
 
     public void ready() {
+        if (!isSubscribed(EVENT_READY)) {
+            return;
+        }
         receiveEvent(EVENT_READY, null);
     }
 
     public void buffering(boolean isBuffering) {
+        if (!isSubscribed(EVENT_BUFFER)) {
+            return;
+        }
         WritableMap map = Arguments.createMap();
         map.putBoolean(EVENT_PROP_IS_BUFFERING, isBuffering);
         receiveEvent(EVENT_BUFFER, map);
     }
 
     public void playbackStateChanged(boolean isPlaying) {
+        if (!isSubscribed(EVENT_PLAYBACK_STATE_CHANGED)) {
+            return;
+        }
         WritableMap map = Arguments.createMap();
         map.putBoolean(EVENT_PROP_IS_PLAYING, isPlaying);
         receiveEvent(EVENT_PLAYBACK_STATE_CHANGED, map);
@@ -379,32 +665,65 @@ public class VideoEventEmitter {
 
     // Same name and payload as the iOS event (RCTVideo.swift onPictureInPictureStatusChanged)
     public void pictureInPictureStatusChanged(boolean isActive) {
+        if (!isSubscribed(EVENT_PICTURE_IN_PICTURE_STATUS_CHANGED)) {
+            return;
+        }
         WritableMap map = Arguments.createMap();
         map.putBoolean(EVENT_PROP_PIP_IS_ACTIVE, isActive);
         receiveEvent(EVENT_PICTURE_IN_PICTURE_STATUS_CHANGED, map);
     }
 
+    public void bufferConfigApplied(boolean rebuilt, String reason) {
+        if (!isSubscribed(EVENT_BUFFER_CONFIG_APPLIED)) {
+            return;
+        }
+        WritableMap map = Arguments.createMap();
+        map.putString(EVENT_PROP_MODE, rebuilt ? "rebuild" : "hot");
+        if (reason != null) {
+            map.putString(EVENT_PROP_REASON, reason);
+        }
+        receiveEvent(EVENT_BUFFER_CONFIG_APPLIED, map);
+    }
+
     public void idle() {
+        if (!isSubscribed(EVENT_IDLE)) {
+            return;
+        }
         receiveEvent(EVENT_IDLE, null);
     }
 
     public void end() {
+        if (!isSubscribed(EVENT_END)) {
+            return;
+        }
         receiveEvent(EVENT_END, null);
     }
 
     public void fullscreenWillPresent() {
+        if (!isSubscribed(EVENT_FULLSCREEN_WILL_PRESENT)) {
+            return;
+        }
         receiveEvent(EVENT_FULLSCREEN_WILL_PRESENT, null);
     }
 
     public void fullscreenDidPresent() {
+        if (!isSubscribed(EVENT_FULLSCREEN_DID_PRESENT)) {
+            return;
+        }
         receiveEvent(EVENT_FULLSCREEN_DID_PRESENT, null);
     }
 
     public void fullscreenWillDismiss() {
+        if (!isSubscribed(EVENT_FULLSCREEN_WILL_DISMISS)) {
+            return;
+        }
         receiveEvent(EVENT_FULLSCREEN_WILL_DISMISS, null);
     }
 
     public void fullscreenDidDismiss() {
+        if (!isSubscribed(EVENT_FULLSCREEN_DID_DISMISS)) {
+            return;
+        }
         receiveEvent(EVENT_FULLSCREEN_DID_DISMISS, null);
     }
 
@@ -434,18 +753,27 @@ public class VideoEventEmitter {
     }
 
     public void playbackRateChange(float rate) {
+        if (!isSubscribed(EVENT_PLAYBACK_RATE_CHANGE)) {
+            return;
+        }
         WritableMap map = Arguments.createMap();
         map.putDouble(EVENT_PROP_PLAYBACK_RATE, (double)rate);
         receiveEvent(EVENT_PLAYBACK_RATE_CHANGE, map);
     }
 
     public void volumeChange(float volume) {
+        if (!isSubscribed(EVENT_VOLUME_CHANGE)) {
+            return;
+        }
         WritableMap map = Arguments.createMap();
         map.putDouble(EVENT_PROP_VOLUME, volume);
         receiveEvent(EVENT_VOLUME_CHANGE, map);
     }
 
     public void timedMetadata(ArrayList<TimedMetadata> _metadataArrayList) {
+        if (!isSubscribed(EVENT_TIMED_METADATA)) {
+            return;
+        }
         if (_metadataArrayList.size() == 0) {
             return;
         }
@@ -464,16 +792,25 @@ public class VideoEventEmitter {
     }
 
     public void audioFocusChanged(boolean hasFocus) {
+        if (!isSubscribed(EVENT_AUDIO_FOCUS_CHANGE)) {
+            return;
+        }
         WritableMap map = Arguments.createMap();
         map.putBoolean(EVENT_PROP_HAS_AUDIO_FOCUS, hasFocus);
         receiveEvent(EVENT_AUDIO_FOCUS_CHANGE, map);
     }
 
     public void audioBecomingNoisy() {
+        if (!isSubscribed(EVENT_AUDIO_BECOMING_NOISY)) {
+            return;
+        }
         receiveEvent(EVENT_AUDIO_BECOMING_NOISY, null);
     }
 
     public void receiveAdEvent(String event, Map<String, String> data) {
+        if (!isSubscribed(EVENT_ON_RECEIVE_AD_EVENT)) {
+            return;
+        }
         WritableMap map = Arguments.createMap();
         map.putString("event", event);
 
@@ -487,6 +824,9 @@ public class VideoEventEmitter {
     }
 
     public void receiveAdEvent(String event) {
+        if (!isSubscribed(EVENT_ON_RECEIVE_AD_EVENT)) {
+            return;
+        }
         WritableMap map = Arguments.createMap();
         map.putString("event", event);
 
@@ -494,6 +834,9 @@ public class VideoEventEmitter {
     }
 
     public void receiveAdErrorEvent(String message, String code, String type) {
+        if (!isSubscribed(EVENT_ON_RECEIVE_AD_EVENT)) {
+            return;
+        }
         WritableMap map = Arguments.createMap();
         map.putString("event", "ERROR");
 
@@ -506,11 +849,54 @@ public class VideoEventEmitter {
         receiveEvent(EVENT_ON_RECEIVE_AD_EVENT, map);
     }
 
+    /**
+     * High rate events are kept until the next frame (or a short delay without frames), only
+     * the latest value of each is sent.
+     * Other events first send the pending ones, so JS sees events in the order they happened.
+     */
     private void receiveEvent(@VideoEvents String type, WritableMap event) {
-        UIManager uiManager = UIManagerHelper.getUIManager(mReactContext, ViewUtil.getUIManagerType(viewId));
+        if (!isSubscribed(type)) {
+            return;
+        }
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mainHandler.post(() -> receiveEvent(type, event));
+            return;
+        }
+        if (COALESCED_EVENTS.contains(type)) {
+            pendingEvents.put(type, event);
+            if (!frameCallbackPosted) {
+                frameCallbackPosted = true;
+                if (frameClockAvailable) {
+                    Choreographer.getInstance().postFrameCallback(frameCallback);
+                } else {
+                    mainHandler.postDelayed(flushRunnable, FLUSH_DELAY_WITHOUT_FRAMES_MS);
+                }
+            }
+            return;
+        }
+        flushPendingEvents();
+        dispatchEvent(type, event);
+    }
+
+    private void flushPendingEvents() {
+        if (pendingEvents.isEmpty()) {
+            return;
+        }
+        Iterator<Map.Entry<String, WritableMap>> iterator = pendingEvents.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, WritableMap> entry = iterator.next();
+            iterator.remove();
+            dispatchEvent(entry.getKey(), entry.getValue());
+        }
+    }
 
-        if(uiManager != null) {
-           uiManager.receiveEvent(UIManagerHelper.getSurfaceId(mReactContext), viewId, type, event);
+    private void dispatchEvent(String type, WritableMap event) {
+        if (uiManager == null) {
+            uiManager = UIManagerHelper.getUIManager(mReactContext, ViewUtil.getUIManagerType(viewId));
+            surfaceId = UIManagerHelper.getSurfaceId(mReactContext);
+        }
+        if (uiManager != null) {
+            uiManager.receiveEvent(surfaceId, viewId, type, event);
         }
     }
 }
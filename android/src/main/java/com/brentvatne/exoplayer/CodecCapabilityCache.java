@@ -0,0 +1,250 @@
+package com.brentvatne.exoplayer;
+
+import android.content.Context;
+import android.media.MediaCodecInfo;
+import android.media.MediaCodecList;
+import android.os.Build;
+
+import androidx.annotation.Nullable;
+
+import com.brentvatne.common.toolbox.DebugLog;
+
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Process wide cache of video decoder capabilities, shared by the player track filtering and
+ * VideoDecoderPropertiesModule.
+ *
+ * Answers are memoized per (mime, width, height, frameRate) and saved to disk, so the decoder
+ * list is only enumerated again after a system update (the file is tied to Build.FINGERPRINT).
+ * {@link #warmUp(Context)} loads the file and enumerates decoders on a background thread,
+ * queries arriving before that compute the answer synchronously.
+ */
+public final class CodecCapabilityCache {
+
+    public enum Support {
+        /** a hardware decoder handles the format */
+        HARDWARE,
+        /** only a software decoder handles the format (or the OS can't tell, before Android 10) */
+        SOFTWARE,
+        /** decoders exist for the mime type, none of them handles this size / frame rate */
+        UNSUPPORTED,
+        /** no decoder at all for the mime type */
+        NO_DECODER
+    }
+
+    private static final String TAG = "CodecCapabilityCache";
+    private static final String CACHE_FILE_NAME = "RNVCodecCapabilities.json";
+    private static final String KEY_FINGERPRINT = "fingerprint";
+    private static final String KEY_ENTRIES = "entries";
+
+    private static final CodecCapabilityCache INSTANCE = new CodecCapabilityCache();
+
+    private final Map<String, Support> supportByQuery = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean savePending = new AtomicBoolean(false);
+    private final AtomicBoolean warmedUp = new AtomicBoolean(false);
+
+    @Nullable
+    private volatile File cacheFile;
+    @Nullable
+    private MediaCodecInfo[] decoders;
+
+    private CodecCapabilityCache() {
+    }
+
+    public static CodecCapabilityCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Background thread used for codec queries, decoder probes shouldn't run on the UI or
+     * native modules threads.
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Load the persisted answers and enumerate the decoders off the calling thread.
+     * Only the first call does something.
+     */
+    public void warmUp(Context context) {
+        if (!warmedUp.compareAndSet(false, true)) {
+            return;
+        }
+        File file = new File(context.getApplicationContext().getCacheDir(), CACHE_FILE_NAME);
+        executor.execute(() -> {
+            load(file);
+            cacheFile = file;
+            getDecoders();
+        });
+    }
+
+    /**
+     * Support of a video format, frameRate <= 0 when unknown.
+     */
+    public Support getSupport(String mimeType, int width, int height, float frameRate) {
+        String key = mimeType + '|' + width + '|' + height + '|' + (frameRate > 0 ? Math.round(frameRate) : 0);
+        Support support = supportByQuery.get(key);
+        if (support == null) {
+            support = evaluate(mimeType, width, height, frameRate);
+            supportByQuery.put(key, support);
+            scheduleSave();
+        }
+        return support;
+    }
+
+    /**
+     * First decoder handling the format, null if none. Not cached, the MediaCodecInfo isn't
+     * persisted: use it for details ({@link #getSupport} gives the answer).
+     */
+    @Nullable
+    public MediaCodecInfo findDecoder(String mimeType, int width, int height, float frameRate) {
+        for (MediaCodecInfo info : getDecoders()) {
+            MediaCodecInfo.CodecCapabilities capabilities = getCapabilities(info, mimeType);
+            if (capabilities != null && isSupported(capabilities, width, height, frameRate)) {
+                return info;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    public static MediaCodecInfo.CodecCapabilities getCapabilities(MediaCodecInfo info, String mimeType) {
+        for (String type : info.getSupportedTypes()) {
+            if (type.equalsIgnoreCase(mimeType)) {
+                try {
+                    return info.getCapabilitiesForType(type);
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private Support evaluate(String mimeType, int width, int height, float frameRate) {
+        boolean hasDecoder = false;
+        for (MediaCodecInfo info : getDecoders()) {
+            MediaCodecInfo.CodecCapabilities capabilities = getCapabilities(info, mimeType);
+            if (capabilities == null) {
+                continue;
+            }
+            hasDecoder = true;
+            if (isSupported(capabilities, width, height, frameRate)) {
+                if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
+                    // Fallback for android < 10
+                    return Support.SOFTWARE;
+                }
+                return info.isHardwareAccelerated() ? Support.HARDWARE : Support.SOFTWARE;
+            }
+        }
+        return hasDecoder ? Support.UNSUPPORTED : Support.NO_DECODER;
+    }
+
+    private static boolean isSupported(MediaCodecInfo.CodecCapabilities capabilities,
+                                       int width, int height, float frameRate) {
+        MediaCodecInfo.VideoCapabilities video = capabilities.getVideoCapabilities();
+        if (video == null || width <= 0 || height <= 0) {
+            // Not a video decoder or unknown size: the mime type is all we can check
+            return true;
+        }
+        if (frameRate > 0) {
+            return video.areSizeAndRateSupported(width, height, frameRate);
+        }
+        return video.isSizeSupported(width, height);
+    }
+
+    private synchronized MediaCodecInfo[] getDecoders() {
+        if (decoders == null) {
+            List<MediaCodecInfo> list = new ArrayList<>();
+            for (MediaCodecInfo info : new MediaCodecList(MediaCodecList.REGULAR_CODECS).getCodecInfos()) {
+                if (!info.isEncoder()) {
+                    list.add(info);
+                }
+            }
+            decoders = list.toArray(new MediaCodecInfo[0]);
+        }
+        return decoders;
+    }
+
+    private void load(File file) {
+        if (!file.exists()) {
+            return;
+        }
+        try (FileInputStream input = new FileInputStream(file)) {
+            byte[] bytes = new byte[(int) file.length()];
+            int read = 0;
+            while (read < bytes.length) {
+                int count = input.read(bytes, read, bytes.length - read);
+                if (count < 0) {
+                    break;
+                }
+                read += count;
+            }
+            JSONObject root = new JSONObject(new String(bytes, 0, read, StandardCharsets.UTF_8));
+            if (!Build.FINGERPRINT.equals(root.optString(KEY_FINGERPRINT))) {
+                // System update: decoders may have changed
+                return;
+            }
+            JSONObject entries = root.getJSONObject(KEY_ENTRIES);
+            Iterator<String> keys = entries.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                supportByQuery.putIfAbsent(key, Support.valueOf(entries.getString(key).toUpperCase(Locale.ROOT)));
+            }
+        } catch (Exception e) {
+            DebugLog.w(TAG, "cannot read codec capabilities cache: " + e.getMessage());
+        }
+    }
+
+    private void scheduleSave() {
+        if (cacheFile == null || !savePending.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            savePending.set(false);
+            save();
+        });
+    }
+
+    private void save() {
+        File file = cacheFile;
+        if (file == null) {
+            return;
+        }
+        try {
+            JSONObject entries = new JSONObject();
+            for (Map.Entry<String, Support> entry : supportByQuery.entrySet()) {
+                entries.put(entry.getKey(), entry.getValue().name().toLowerCase(Locale.ROOT));
+            }
+            JSONObject root = new JSONObject();
+            root.put(KEY_FINGERPRINT, Build.FINGERPRINT);
+            root.put(KEY_ENTRIES, entries);
+            File tmp = new File(file.getPath() + ".tmp");
+            try (FileOutputStream output = new FileOutputStream(tmp)) {
+                output.write(root.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            if (!tmp.renameTo(file)) {
+                DebugLog.w(TAG, "cannot write codec capabilities cache");
+            }
+        } catch (Exception e) {
+            DebugLog.w(TAG, "cannot write codec capabilities cache: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.brentvatne.exoplayer;
+
+import androidx.annotation.Nullable;
+import androidx.media3.common.Format;
+import androidx.media3.common.MimeTypes;
+import androidx.media3.common.TrackGroup;
+import androidx.media3.exoplayer.source.TrackGroupArray;
+
+import com.brentvatne.common.api.CodecPreference;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ranks the video codecs offered by the content (HLS variants or DASH adaptation sets encoded
+ * in several codecs) to save battery and bandwidth.
+ *
+ * A hardware decoder is what matters most for power, software decoding keeps the CPU busy for
+ * every frame. Among decodable codecs the one needing less bits for the same quality saves
+ * network and radio time: AV1 before HEVC before VP9 before AVC, the measured bits per pixel of
+ * the renditions breaking ties.
+ * Decoder answers come from {@link CodecCapabilityCache}, the ranking is done once per track
+ * groups and given to the track selector as preferred video mime types.
+ */
+final class CodecPreferencePolicy {
+
+    /** no policy, exoplayer picks the codec */
+    static final String REASON_NONE = "none";
+    /** the content is offered in a single decodable codec */
+    static final String REASON_SINGLE_CODEC = "singleCodec";
+    /** the only codec with a hardware decoder */
+    static final String REASON_HARDWARE_DECODER = "hardwareDecoder";
+    /** first of the preferredCodecs list */
+    static final String REASON_PREFERRED_CODECS = "preferredCodecs";
+    /** the most efficient codec */
+    static final String REASON_EFFICIENCY = "efficiency";
+    /** no hardware decoder, the most efficient software codec */
+    static final String REASON_SOFTWARE_ONLY = "softwareOnly";
+
+    static final Result NONE = new Result(new String[0], null, REASON_NONE);
+
+    // Software decoding is accepted by the Efficiency policy up to this height
+    private static final int SOFTWARE_DECODE_MAX_HEIGHT = 720;
+
+    static final class Result {
+        /** decodable mime types, best first (empty: no preference) */
+        final String[] mimeTypes;
+        /** chosen codec, null when no policy applies */
+        @Nullable
+        final String codec;
+        final String reason;
+
+        Result(String[] mimeTypes, @Nullable String codec, String reason) {
+            this.mimeTypes = mimeTypes;
+            this.codec = codec;
+            this.reason = reason;
+        }
+    }
+
+    private static final class Candidate {
+        final String mimeType;
+        final List<Format> formats = new ArrayList<>();
+        boolean hardware;
+        // Height of the biggest rendition a decoder handles
+        int maxHeight;
+        int preferredIndex;
+        float relativeBitrate;
+        // Lowest bits per pixel of the renditions, MAX_VALUE when unknown
+        double bitsPerPixel = Double.MAX_VALUE;
+
+        Candidate(String mimeType) {
+            this.mimeType = mimeType;
+        }
+    }
+
+    private CodecPreferencePolicy() {
+    }
+
+    /**
+     * Video mime type of a format, HLS variants only carry the codecs string.
+     */
+    @Nullable
+    static String getVideoMimeType(Format format) {
+        if (format.sampleMimeType != null && MimeTypes.isVideo(format.sampleMimeType)) {
+            return format.sampleMimeType;
+        }
+        return MimeTypes.getVideoMediaMimeType(format.codecs);
+    }
+
+    static Result rank(TrackGroupArray groups, CodecPreference preference) {
+        if (preference.getPolicy() == CodecPreference.Policy.Default || groups.length == 0) {
+            return NONE;
+        }
+        Map<String, Candidate> byMimeType = new LinkedHashMap<>();
+        for (int i = 0; i < groups.length; i++) {
+            TrackGroup group = groups.get(i);
+            for (int j = 0; j < group.length; j++) {
+                Format format = group.getFormat(j);
+                String mimeType = getVideoMimeType(format);
+                if (mimeType == null) {
+                    continue;
+                }
+                Candidate candidate = byMimeType.get(mimeType);
+                if (candidate == null) {
+                    candidate = new Candidate(mimeType);
+                    byMimeType.put(mimeType, candidate);
+                }
+                candidate.formats.add(format);
+            }
+        }
+
+        List<Candidate> candidates = new ArrayList<>(byMimeType.size());
+        for (Candidate candidate : byMimeType.values()) {
+            if (evaluate(candidate, preference)) {
+                candidates.add(candidate);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return NONE;
+        }
+        boolean efficiencyFirst = preference.getPolicy() == CodecPreference.Policy.Efficiency;
+        candidates.sort((a, b) -> compare(a, b, efficiencyFirst));
+
+        String[] mimeTypes = new String[candidates.size()];
+        for (int i = 0; i < mimeTypes.length; i++) {
+            mimeTypes[i] = candidates.get(i).mimeType;
+        }
+        Candidate best = candidates.get(0);
+        String reason;
+        if (candidates.size() == 1) {
+            reason = REASON_SINGLE_CODEC;
+        } else {
+            reason = getReason(best, candidates.get(1), efficiencyFirst);
+        }
+        return new Result(mimeTypes, best.mimeType, reason);
+    }
+
+    /**
+     * Query the decoders for the renditions of a codec, biggest first.
+     * @return false when no decoder handles any of them
+     */
+    private static boolean evaluate(Candidate candidate, CodecPreference preference) {
+        candidate.formats.sort((a, b) -> Integer.compare(b.height, a.height));
+        CodecCapabilityCache cache = CodecCapabilityCache.getInstance();
+        boolean decodable = false;
+        for (Format format : candidate.formats) {
+            int width = format.width == Format.NO_VALUE ? 0 : format.width;
+            int height = format.height == Format.NO_VALUE ? 0 : format.height;
+            float frameRate = format.frameRate == Format.NO_VALUE ? 0 : format.frameRate;
+            if (!decodable) {
+                CodecCapabilityCache.Support support = cache.getSupport(candidate.mimeType, width, height, frameRate);
+                if (support == CodecCapabilityCache.Support.HARDWARE || support == CodecCapabilityCache.Support.SOFTWARE) {
+                    decodable = true;
+                    candidate.hardware = support == CodecCapabilityCache.Support.HARDWARE;
+                    candidate.maxHeight = height;
+                }
+            }
+            if (format.bitrate > 0 && width > 0 && height > 0) {
+                float fps = frameRate > 0 ? frameRate : 30;
+                candidate.bitsPerPixel = Math.min(candidate.bitsPerPixel,
+                        format.bitrate / ((double) width * height * fps));
+            }
+        }
+        int index = preference.getPreferredCodecs().indexOf(candidate.mimeType);
+        candidate.preferredIndex = index < 0 ? Integer.MAX_VALUE : index;
+        candidate.relativeBitrate = getRelativeBitrate(candidate.mimeType);
+        return decodable;
+    }
+
+    private static boolean isCheapToDecode(Candidate candidate, boolean efficiencyFirst) {
+        return candidate.hardware || (efficiencyFirst && candidate.maxHeight <= SOFTWARE_DECODE_MAX_HEIGHT);
+    }
+
+    private static int compare(Candidate a, Candidate b, boolean efficiencyFirst) {
+        boolean aCheap = isCheapToDecode(a, efficiencyFirst);
+        boolean bCheap = isCheapToDecode(b, efficiencyFirst);
+        if (aCheap != bCheap) {
+            return aCheap ? -1 : 1;
+        }
+        if (a.preferredIndex != b.preferredIndex) {
+            return Integer.compare(a.preferredIndex, b.preferredIndex);
+        }
+        if (a.relativeBitrate != b.relativeBitrate) {
+            return Float.compare(a.relativeBitrate, b.relativeBitrate);
+        }
+        if (a.hardware != b.hardware) {
+            return a.hardware ? -1 : 1;
+        }
+        return Double.compare(a.bitsPerPixel, b.bitsPerPixel);
+    }
+
+    /**
+     * The criterion of {@link #compare} which put best before second.
+     */
+    private static String getReason(Candidate best, Candidate second, boolean efficiencyFirst) {
+        if (!best.hardware && !second.hardware) {
+            return REASON_SOFTWARE_ONLY;
+        }
+        if (isCheapToDecode(best, efficiencyFirst) != isCheapToDecode(second, efficiencyFirst)) {
+            return REASON_HARDWARE_DECODER;
+        }
+        if (best.preferredIndex != second.preferredIndex) {
+            return REASON_PREFERRED_CODECS;
+        }
+        return REASON_EFFICIENCY;
+    }
+
+    /**
+     * Bitrate needed for the same quality, relative to AVC.
+     */
+    private static float getRelativeBitrate(String mimeType) {
+        switch (mimeType) {
+            case MimeTypes.VIDEO_AV1:
+                return 0.5f;
+            case MimeTypes.VIDEO_H265:
+            case MimeTypes.VIDEO_DOLBY_VISION:
+                return 0.6f;
+            case MimeTypes.VIDEO_VP9:
+                return 0.65f;
+            case MimeTypes.VIDEO_H264:
+                return 1f;
+            default:
+                return 1.2f;
+        }
+    }
+}
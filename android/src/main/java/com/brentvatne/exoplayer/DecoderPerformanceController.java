@@ -0,0 +1,233 @@
+package com.brentvatne.exoplayer;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+import androidx.media3.common.Format;
+import androidx.media3.exoplayer.DecoderCounters;
+import androidx.media3.exoplayer.ExoPlayer;
+
+import com.brentvatne.common.toolbox.DebugLog;
+
+/**
+ * Lowers the video resolution / frame rate when the decoder can't keep up.
+ *
+ * Every WINDOW_MS the video decoder counters are sampled while playing: a window is
+ * overloaded when more than MAX_DROP_RATIO of the frames were dropped, or when frames are
+ * rendered late on average. After OVERLOAD_WINDOWS overloaded windows in a row the cap is
+ * lowered one step: 30fps first (the cheapest cut), then the next lower height.
+ * After COOL_DOWN_MS without overload the cap is raised one step again.
+ *
+ * A cap set by a downgrade or that survived a cool-down is saved in SharedPreferences
+ * (tied to Build.FINGERPRINT), so next sessions start from what the device can play.
+ * All methods are called on the main thread.
+ */
+final class DecoderPerformanceController {
+
+    interface Listener {
+        /** new cap, Integer.MAX_VALUE when not capped */
+        void onDecoderCapChanged(int maxHeight, int maxFrameRate);
+    }
+
+    private static final String TAG = "DecoderPerformance";
+    private static final String PREFERENCES_NAME = "RNVDecoderPerformance";
+    private static final String KEY_FINGERPRINT = "fingerprint";
+    private static final String KEY_MAX_HEIGHT = "maxHeight";
+    private static final String KEY_MAX_FRAME_RATE = "maxFrameRate";
+
+    private static final long WINDOW_MS = 2000;
+    private static final int OVERLOAD_WINDOWS = 3;
+    private static final long COOL_DOWN_MS = 60000;
+    private static final float MAX_DROP_RATIO = 0.1f;
+    // Below this many frames in a window (paused, seeking, slideshow) it isn't evaluated
+    private static final int MIN_FRAMES_PER_WINDOW = 10;
+    private static final int CAPPED_FRAME_RATE = 30;
+    private static final int[] HEIGHT_LADDER = {2160, 1440, 1080, 720, 540, 480, 360};
+
+    private final SharedPreferences preferences;
+    private final Listener listener;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable tick = this::onTick;
+
+    @Nullable
+    private ExoPlayer player;
+    private boolean enabled = true;
+    private int maxHeight = Integer.MAX_VALUE;
+    private int maxFrameRate = Integer.MAX_VALUE;
+
+    private int lastRendered;
+    private int lastDropped;
+    private long lastProcessingOffsetUs;
+    private int lastProcessingOffsetCount;
+    private int overloadedWindows;
+    private long lastChangeTimeMs;
+    private boolean capSaved = true;
+
+    DecoderPerformanceController(Context context, Listener listener) {
+        this.preferences = context.getApplicationContext().getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+        this.listener = listener;
+        if (Build.FINGERPRINT.equals(preferences.getString(KEY_FINGERPRINT, null))) {
+            maxHeight = preferences.getInt(KEY_MAX_HEIGHT, Integer.MAX_VALUE);
+            maxFrameRate = preferences.getInt(KEY_MAX_FRAME_RATE, Integer.MAX_VALUE);
+        }
+    }
+
+    int getMaxHeight() {
+        return enabled ? maxHeight : Integer.MAX_VALUE;
+    }
+
+    int getMaxFrameRate() {
+        return enabled ? maxFrameRate : Integer.MAX_VALUE;
+    }
+
+    void setEnabled(boolean enabled) {
+        if (this.enabled == enabled) {
+            return;
+        }
+        this.enabled = enabled;
+        listener.onDecoderCapChanged(getMaxHeight(), getMaxFrameRate());
+        if (enabled && player != null) {
+            start(player);
+        } else {
+            handler.removeCallbacks(tick);
+        }
+    }
+
+    void start(ExoPlayer player) {
+        this.player = player;
+        handler.removeCallbacks(tick);
+        resetWindow();
+        lastChangeTimeMs = SystemClock.elapsedRealtime();
+        if (enabled) {
+            handler.postDelayed(tick, WINDOW_MS);
+        }
+    }
+
+    void stop() {
+        handler.removeCallbacks(tick);
+        player = null;
+    }
+
+    private void resetWindow() {
+        lastRendered = -1;
+        overloadedWindows = 0;
+    }
+
+    private void onTick() {
+        handler.postDelayed(tick, WINDOW_MS);
+        ExoPlayer player = this.player;
+        DecoderCounters counters = player == null ? null : player.getVideoDecoderCounters();
+        if (counters == null || !player.isPlaying() || player.isPlayingAd()) {
+            resetWindow();
+            return;
+        }
+        counters.ensureUpdated();
+        int rendered = counters.renderedOutputBufferCount;
+        int dropped = counters.droppedBufferCount;
+        long processingOffsetUs = counters.totalVideoFrameProcessingOffsetUs;
+        int processingOffsetCount = counters.videoFrameProcessingOffsetCount;
+        boolean hasWindow = lastRendered >= 0 && rendered >= lastRendered;
+        int renderedDelta = rendered - lastRendered;
+        int droppedDelta = dropped - lastDropped;
+        long offsetDeltaUs = processingOffsetUs - lastProcessingOffsetUs;
+        int offsetCountDelta = processingOffsetCount - lastProcessingOffsetCount;
+        lastRendered = rendered;
+        lastDropped = dropped;
+        lastProcessingOffsetUs = processingOffsetUs;
+        lastProcessingOffsetCount = processingOffsetCount;
+        if (!hasWindow || renderedDelta + droppedDelta < MIN_FRAMES_PER_WINDOW) {
+            // New decoder (counters reset) or not enough frames to judge
+            return;
+        }
+
+        float dropRatio = (float) droppedDelta / (renderedDelta + droppedDelta);
+        // The processing offset is how early frames are ready, negative means late
+        boolean late = offsetCountDelta > 0 && offsetDeltaUs / offsetCountDelta < 0;
+        long now = SystemClock.elapsedRealtime();
+        if (dropRatio > MAX_DROP_RATIO || late) {
+            overloadedWindows++;
+            DebugLog.d(TAG, "overloaded window " + overloadedWindows + ": dropped " + droppedDelta
+                    + "/" + (renderedDelta + droppedDelta) + (late ? ", late" : ""));
+            if (overloadedWindows >= OVERLOAD_WINDOWS) {
+                overloadedWindows = 0;
+                lowerCap(player.getVideoFormat(), now);
+            }
+        } else {
+            overloadedWindows = 0;
+            if (now - lastChangeTimeMs >= COOL_DOWN_MS) {
+                if (!capSaved) {
+                    // The current cap played a full cool-down without overload
+                    save();
+                }
+                if (isCapped()) {
+                    raiseCap(now);
+                }
+            }
+        }
+    }
+
+    private boolean isCapped() {
+        return maxHeight != Integer.MAX_VALUE || maxFrameRate != Integer.MAX_VALUE;
+    }
+
+    private void lowerCap(@Nullable Format format, long now) {
+        if (format == null) {
+            return;
+        }
+        int height = format.height;
+        if (format.frameRate != Format.NO_VALUE && format.frameRate > CAPPED_FRAME_RATE + 1
+                && maxFrameRate == Integer.MAX_VALUE) {
+            maxFrameRate = CAPPED_FRAME_RATE;
+        } else {
+            int lowerHeight = Integer.MAX_VALUE;
+            for (int step : HEIGHT_LADDER) {
+                if (step < height) {
+                    lowerHeight = step;
+                    break;
+                }
+            }
+            if (lowerHeight == Integer.MAX_VALUE || lowerHeight >= maxHeight) {
+                // Already at the bottom of the ladder
+                return;
+            }
+            maxHeight = lowerHeight;
+        }
+        lastChangeTimeMs = now;
+        DebugLog.w(TAG, "decoder overloaded, cap to " + maxHeight + "p " + maxFrameRate + "fps");
+        save();
+        listener.onDecoderCapChanged(maxHeight, maxFrameRate);
+    }
+
+    private void raiseCap(long now) {
+        if (maxHeight != Integer.MAX_VALUE) {
+            int higherHeight = Integer.MAX_VALUE;
+            for (int i = HEIGHT_LADDER.length - 1; i >= 0; i--) {
+                if (HEIGHT_LADDER[i] > maxHeight) {
+                    higherHeight = HEIGHT_LADDER[i];
+                    break;
+                }
+            }
+            maxHeight = higherHeight == HEIGHT_LADDER[0] ? Integer.MAX_VALUE : higherHeight;
+        } else {
+            maxFrameRate = Integer.MAX_VALUE;
+        }
+        lastChangeTimeMs = now;
+        capSaved = false;
+        DebugLog.d(TAG, "cool-down over, cap to " + maxHeight + "p " + maxFrameRate + "fps");
+        listener.onDecoderCapChanged(maxHeight, maxFrameRate);
+    }
+
+    private void save() {
+        capSaved = true;
+        preferences.edit()
+                .putString(KEY_FINGERPRINT, Build.FINGERPRINT)
+                .putInt(KEY_MAX_HEIGHT, maxHeight)
+                .putInt(KEY_MAX_FRAME_RATE, maxFrameRate)
+                .apply();
+    }
+}
@@ -3,6 +3,7 @@ package com.brentvatne.exoplayer;
 import android.content.Context;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 import androidx.media3.common.AdViewProvider;
 import androidx.media3.common.C;
@@ -31,6 +32,7 @@ import com.google.common.collect.ImmutableList;
 import androidx.media3.ui.CaptionStyleCompat;
 import android.util.Log;
 
+import java.util.Collections;
 import java.util.List;
 
 public final class ExoPlayerView extends FrameLayout implements AdViewProvider {
@@ -40,6 +42,8 @@ public final class ExoPlayerView extends FrameLayout implements AdViewProvider {
     private final SubtitleView subtitleLayout;
     private final AspectRatioFrameLayout layout;
     private final ComponentListener componentListener;
+    // Keeps the video surface across view moves and player rebuilds
+    private final VideoSurfaceManager surfaceManager = new VideoSurfaceManager();
     private ExoPlayer player;
     private final Context context;
     private final ViewGroup.LayoutParams layoutParams;
@@ -48,6 +52,8 @@ public final class ExoPlayerView extends FrameLayout implements AdViewProvider {
     private boolean useTextureView = true;
     private boolean useSecureView = false;
     private boolean hideShutterView = false;
+    // Side-loaded subtitles are rendered outside of the player, its cues are ignored meanwhile
+    private boolean showSideLoadedCues = false;
 
     public ExoPlayerView(Context context) {
         this(context, null);
@@ -102,22 +108,6 @@ public final class ExoPlayerView extends FrameLayout implements AdViewProvider {
         // addViewInLayout(subtitleLayout, 1, subtitleParams);
     }
 
-    private void clearVideoView() {
-        if (surfaceView instanceof TextureView) {
-            player.clearVideoTextureView((TextureView) surfaceView);
-        } else if (surfaceView instanceof SurfaceView) {
-            player.clearVideoSurfaceView((SurfaceView) surfaceView);
-        }
-    }
-
-    private void setVideoView() {
-        if (surfaceView instanceof TextureView) {
-            player.setVideoTextureView((TextureView) surfaceView);
-        } else if (surfaceView instanceof SurfaceView) {
-            player.setVideoSurfaceView((SurfaceView) surfaceView);
-        }
-    }
-
     public boolean isPlaying() {
         return player != null && player.isPlaying();
     }
@@ -198,15 +188,13 @@ public final class ExoPlayerView extends FrameLayout implements AdViewProvider {
         }
         view.setLayoutParams(layoutParams);
 
+        // A TextureView replacing another one gets its texture, the player output is unchanged
+        surfaceManager.setView(view);
         surfaceView = view;
         if (layout.getChildAt(0) != null) {
             layout.removeViewAt(0);
         }
         layout.addView(surfaceView, 0, layoutParams);
-
-        if (this.player != null) {
-            setVideoView();
-        }
     }
 
     private void updateShutterViewVisibility() {
@@ -239,16 +227,30 @@ public final class ExoPlayerView extends FrameLayout implements AdViewProvider {
         }
         if (this.player != null) {
             this.player.removeListener(componentListener);
-            clearVideoView();
         }
         this.player = player;
+        surfaceManager.setPlayer(player);
         shutterView.setVisibility(this.hideShutterView ? View.INVISIBLE : View.VISIBLE);
         if (player != null) {
-            setVideoView();
             player.addListener(componentListener);
         }
     }
 
+    /** releases the video surface, the view is not used anymore */
+    public void release() {
+        setPlayer(null);
+        surfaceManager.release();
+    }
+
+    /**
+     * Shows the cues of side-loaded subtitles instead of the player ones, null to show the
+     * player ones again.
+     */
+    public void setSideLoadedCues(@Nullable List<Cue> cues) {
+        showSideLoadedCues = cues != null;
+        subtitleLayout.setCues(cues != null ? cues : Collections.emptyList());
+    }
+
     /**
      * Sets the resize mode which can be of value {@link ResizeMode.Mode}
      *
@@ -315,7 +317,9 @@ public final class ExoPlayerView extends FrameLayout implements AdViewProvider {
 
         @Override
         public void onCues(@NonNull List<Cue> cues) {
-            subtitleLayout.setCues(cues);
+            if (!showSideLoadedCues) {
+                subtitleLayout.setCues(cues);
+            }
         }
 
         @Override
@@ -1,7 +1,13 @@
 package com.brentvatne.exoplayer;
 
+import android.os.Handler;
+
+import androidx.annotation.Nullable;
+import androidx.media3.common.FlagSet;
+import androidx.media3.common.ForwardingPlayer;
 import androidx.media3.common.MediaMetadata;
 import androidx.media3.common.Player;
+import androidx.media3.common.util.Util;
 import androidx.media3.exoplayer.ExoPlayer;
 
 import com.brentvatne.common.toolbox.DebugLog;
@@ -12,6 +18,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
  * Reflective bridge to the optional {@code @overon} {@code player-now-playing} module.
@@ -33,13 +40,56 @@ final class NowPlayingBridge {
     private static final String MODULE_CLASS = "com.overonplayernowplaying.OveronPlayerNowPlayingModule";
     private static final String ADAPTER_INTERFACE = "com.overonplayernowplaying.IPlayerAdapter";
 
+    /**
+     * "next" of the now playing controls. Only the current and the preloaded queue item are in
+     * the playlist, see ReactExoplayerView.maybeAppendQueueItem: the view adds the next one on
+     * demand. Called on the player thread.
+     */
+    interface QueueNavigator {
+        /** true when a later queue item exists, in the playlist or not yet */
+        boolean hasNextQueueItem();
+
+        void seekToNextQueueItem();
+    }
+
     private final ExoPlayer player;
+    private final QueueNavigator queueNavigator;
+    // Handed to the module instead of the raw player when its adapter takes a Player
+    private final MetadataPlayer sessionPlayer;
     private final List<Object> listeners = new ArrayList<>();
     private Player.Listener forwardingListener;
     private boolean registered = false;
+    @Nullable
+    private MediaMetadata metadataOverride;
 
-    NowPlayingBridge(ExoPlayer player) {
+    NowPlayingBridge(ExoPlayer player, QueueNavigator queueNavigator) {
         this.player = player;
+        this.queueNavigator = queueNavigator;
+        this.sessionPlayer = new MetadataPlayer(player);
+    }
+
+    /**
+     * Now playing metadata shown instead of the media item's one, null for the media item's
+     * one only. The fields of the metadata prop are replaced, a null one clears the media
+     * item's value. The media item is not replaced, so playback and buffer are untouched.
+     * Must be called on the player thread.
+     */
+    void setMetadata(@Nullable MediaMetadata metadata) {
+        if (Util.areEqual(metadataOverride, metadata)) {
+            return;
+        }
+        metadataOverride = metadata;
+        MediaMetadata mediaMetadata = sessionPlayer.getMediaMetadata();
+        sessionPlayer.notifyMediaMetadataChanged(mediaMetadata);
+        invokeListeners("onMetadataChanged", MediaMetadata.class, mediaMetadata);
+    }
+
+    /**
+     * Tells the MediaSession that "next" may have changed: queue or playlist change. Must be
+     * called on the player thread.
+     */
+    void notifyQueueChanged() {
+        sessionPlayer.notifyAvailableCommandsChanged();
     }
 
     /**
@@ -97,7 +147,8 @@ final class NowPlayingBridge {
                     new Player.Listener() {
                         @Override
                         public void onMediaMetadataChanged(MediaMetadata mediaMetadata) {
-                            invokeListeners("onMetadataChanged", MediaMetadata.class, mediaMetadata);
+                            invokeListeners("onMetadataChanged", MediaMetadata.class,
+                                    sessionPlayer.getMediaMetadata());
                         }
 
                         @Override
@@ -132,18 +183,120 @@ final class NowPlayingBridge {
         }
     }
 
+    /**
+     * The player with the metadata override applied and "next" going through the queue.
+     * Listeners added by the MediaSession are told about override and queue changes, the other
+     * calls go to the ExoPlayer.
+     */
+    private final class MetadataPlayer extends ForwardingPlayer {
+        private final CopyOnWriteArraySet<Player.Listener> sessionListeners = new CopyOnWriteArraySet<>();
+
+        MetadataPlayer(Player player) {
+            super(player);
+        }
+
+        @Override
+        public MediaMetadata getMediaMetadata() {
+            MediaMetadata mediaMetadata = super.getMediaMetadata();
+            if (metadataOverride == null) {
+                return mediaMetadata;
+            }
+            // Not populate(), it keeps the media item's value of the fields cleared in the prop
+            return mediaMetadata.buildUpon()
+                    .setTitle(metadataOverride.title)
+                    .setSubtitle(metadataOverride.subtitle)
+                    .setDescription(metadataOverride.description)
+                    .setArtist(metadataOverride.artist)
+                    .setArtworkUri(metadataOverride.artworkUri)
+                    .setArtworkData(metadataOverride.artworkData, metadataOverride.artworkDataType)
+                    .build();
+        }
+
+        @Override
+        public boolean hasNextMediaItem() {
+            return queueNavigator.hasNextQueueItem();
+        }
+
+        @Override
+        public boolean isCommandAvailable(int command) {
+            return isNextCommand(command) ? super.isCommandAvailable(command) || queueNavigator.hasNextQueueItem()
+                    : super.isCommandAvailable(command);
+        }
+
+        @Override
+        public Commands getAvailableCommands() {
+            Commands commands = super.getAvailableCommands();
+            if (!queueNavigator.hasNextQueueItem()) {
+                return commands;
+            }
+            return commands.buildUpon()
+                    .addAll(Player.COMMAND_SEEK_TO_NEXT, Player.COMMAND_SEEK_TO_NEXT_MEDIA_ITEM)
+                    .build();
+        }
+
+        @Override
+        public void seekToNext() {
+            if (queueNavigator.hasNextQueueItem()) {
+                queueNavigator.seekToNextQueueItem();
+            } else {
+                // Live edge
+                super.seekToNext();
+            }
+        }
+
+        @Override
+        public void seekToNextMediaItem() {
+            queueNavigator.seekToNextQueueItem();
+        }
+
+        private boolean isNextCommand(int command) {
+            return command == Player.COMMAND_SEEK_TO_NEXT || command == Player.COMMAND_SEEK_TO_NEXT_MEDIA_ITEM;
+        }
+
+        @Override
+        public void addListener(Player.Listener listener) {
+            super.addListener(listener);
+            sessionListeners.add(listener);
+        }
+
+        @Override
+        public void removeListener(Player.Listener listener) {
+            super.removeListener(listener);
+            sessionListeners.remove(listener);
+        }
+
+        void notifyMediaMetadataChanged(MediaMetadata mediaMetadata) {
+            Player.Events events = new Player.Events(
+                    new FlagSet.Builder().add(Player.EVENT_MEDIA_METADATA_CHANGED).build());
+            for (Player.Listener listener : sessionListeners) {
+                listener.onMediaMetadataChanged(mediaMetadata);
+                listener.onEvents(this, events);
+            }
+        }
+
+        void notifyAvailableCommandsChanged() {
+            Commands commands = getAvailableCommands();
+            Player.Events events = new Player.Events(
+                    new FlagSet.Builder().add(Player.EVENT_AVAILABLE_COMMANDS_CHANGED).build());
+            for (Player.Listener listener : sessionListeners) {
+                listener.onAvailableCommandsChanged(commands);
+                listener.onEvents(this, events);
+            }
+        }
+    }
+
     /**
      * Routes the now-playing module's {@code IPlayerAdapter} calls to our ExoPlayer.
-     * {@code getPlayer} hands over the raw ExoPlayer (RNV plays a single item, so no
-     * {@code PlaylistForwardingPlayer} / next-previous wiring is needed). Navigation
-     * methods are no-ops.
+     * {@code getPlayer} hands over the metadata player when the adapter returns a
+     * {@link Player}, the raw ExoPlayer otherwise (then metadata updates only reach the
+     * adapter listeners). Navigation other than "next" is a no-op.
      */
     private final class AdapterInvocationHandler implements InvocationHandler {
         @Override
         public Object invoke(Object proxy, Method method, Object[] args) {
             switch (method.getName()) {
                 case "getPlayer":
-                    return player;
+                    return method.getReturnType().isInstance(sessionPlayer) ? sessionPlayer : player;
                 case "addListener":
                     if (args != null && args.length > 0) {
                         addListener(args[0]);
@@ -160,9 +313,13 @@ final class NowPlayingBridge {
                     return args != null && args.length > 0 && proxy == args[0];
                 case "toString":
                     return "RNVNowPlayingAdapter";
+                case "onNextRequested":
+                    // The player is used on its own thread
+                    new Handler(player.getApplicationLooper()).post(queueNavigator::seekToNextQueueItem);
+                    return defaultReturn(method);
                 default:
-                    // setNavigationCallbacks / updateNavigationState / onNextRequested /
-                    // onPreviousRequested — single video, no playlist: no-op.
+                    // setNavigationCallbacks / updateNavigationState / onPreviousRequested —
+                    // played queue items leave the playlist: no-op.
                     return defaultReturn(method);
             }
         }
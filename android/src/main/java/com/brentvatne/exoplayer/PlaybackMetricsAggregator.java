@@ -0,0 +1,101 @@
+package com.brentvatne.exoplayer;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.brentvatne.common.api.MetricStats;
+
+/**
+ * Aggregates the QoE samples between two onPlaybackMetrics events.
+ *
+ * Bandwidth meter samples arrive several times per second under load: each one is added to
+ * the stats and a single event is sent per interval, carrying min / max / average / last of
+ * every metric. Stats are reset after each interval, sent or not.
+ * All methods are called on the main thread.
+ */
+final class PlaybackMetricsAggregator {
+
+    interface Listener {
+        /** end of an interval, the stats are reset right after */
+        void onPlaybackMetricsInterval(PlaybackMetricsAggregator aggregator);
+    }
+
+    final MetricStats throughput = new MetricStats();
+    final MetricStats bitrate = new MetricStats();
+    final MetricStats framesPerSecond = new MetricStats();
+    // Frames dropped since the previous sample
+    final MetricStats droppedFrames = new MetricStats();
+
+    private final Listener listener;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable tick = this::onTick;
+
+    private int intervalMs;
+    private boolean started = false;
+    private int lastDroppedFrames = 0;
+
+    PlaybackMetricsAggregator(Listener listener, int intervalMs) {
+        this.listener = listener;
+        this.intervalMs = intervalMs;
+    }
+
+    int getIntervalMs() {
+        return intervalMs;
+    }
+
+    void setIntervalMs(int intervalMs) {
+        if (this.intervalMs == intervalMs) {
+            return;
+        }
+        this.intervalMs = intervalMs;
+        if (started) {
+            start();
+        }
+    }
+
+    void start() {
+        started = true;
+        handler.removeCallbacks(tick);
+        reset();
+        lastDroppedFrames = 0;
+        if (intervalMs > 0) {
+            handler.postDelayed(tick, intervalMs);
+        }
+    }
+
+    void stop() {
+        started = false;
+        handler.removeCallbacks(tick);
+        reset();
+    }
+
+    /**
+     * @param throughput measured bandwidth (bps), negative when unknown
+     * @param bitrate rendition bitrate (bps), negative when unknown
+     * @param totalDroppedFrames session cumulative dropped frames
+     */
+    void addSample(double throughput, double bitrate, double framesPerSecond, int totalDroppedFrames) {
+        if (throughput >= 0) {
+            this.throughput.add(throughput);
+        }
+        if (bitrate >= 0) {
+            this.bitrate.add(bitrate);
+        }
+        this.framesPerSecond.add(framesPerSecond);
+        this.droppedFrames.add(Math.max(0, totalDroppedFrames - lastDroppedFrames));
+        lastDroppedFrames = totalDroppedFrames;
+    }
+
+    private void reset() {
+        throughput.reset();
+        bitrate.reset();
+        framesPerSecond.reset();
+        droppedFrames.reset();
+    }
+
+    private void onTick() {
+        handler.postDelayed(tick, intervalMs);
+        listener.onPlaybackMetricsInterval(this);
+        reset();
+    }
+}
@@ -0,0 +1,63 @@
+package com.brentvatne.exoplayer;
+
+import android.os.SystemClock;
+
+import androidx.media3.common.C;
+
+/**
+ * Immutable copy of the playback state, published by the view on each player change and
+ * progress tick so it can be read from any thread without touching the player.
+ *
+ * The position moves between two updates: {@link #getPositionMs()} extrapolates it from the
+ * speed while playing. Times are in ms, {@link C#TIME_UNSET} when unknown.
+ */
+public final class PlaybackSnapshot {
+
+    public static final String STATE_IDLE = "idle";
+    public static final String STATE_BUFFERING = "buffering";
+    public static final String STATE_READY = "ready";
+    public static final String STATE_ENDED = "ended";
+
+    /** no player */
+    public static final PlaybackSnapshot EMPTY = new PlaybackSnapshot(
+            C.TIME_UNSET, C.TIME_UNSET, C.TIME_UNSET, STATE_IDLE, false, 1f, -1d, C.TIME_UNSET, 0);
+
+    public final long positionMs;
+    public final long bufferedPositionMs;
+    public final long durationMs;
+    public final String playbackState;
+    public final boolean playing;
+    public final float speed;
+    // Media bitrate of the rendered video rendition, -1 when unknown
+    public final double bitrate;
+    // Distance to the live edge, C.TIME_UNSET when not live
+    public final long liveOffsetMs;
+    // SystemClock.uptimeMillis() of the update
+    public final long updatedAtMs;
+
+    PlaybackSnapshot(long positionMs, long bufferedPositionMs, long durationMs, String playbackState,
+                     boolean playing, float speed, double bitrate, long liveOffsetMs, long updatedAtMs) {
+        this.positionMs = positionMs;
+        this.bufferedPositionMs = bufferedPositionMs;
+        this.durationMs = durationMs;
+        this.playbackState = playbackState;
+        this.playing = playing;
+        this.speed = speed;
+        this.bitrate = bitrate;
+        this.liveOffsetMs = liveOffsetMs;
+        this.updatedAtMs = updatedAtMs;
+    }
+
+    public boolean isEmpty() {
+        return this == EMPTY;
+    }
+
+    /** position now, extrapolated from the snapshot while playing */
+    public long getPositionMs() {
+        if (!playing || positionMs == C.TIME_UNSET) {
+            return positionMs;
+        }
+        long position = positionMs + (long) ((SystemClock.uptimeMillis() - updatedAtMs) * speed);
+        return durationMs == C.TIME_UNSET ? position : Math.min(position, durationMs);
+    }
+}
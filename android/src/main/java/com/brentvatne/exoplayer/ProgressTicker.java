@@ -0,0 +1,169 @@
+package com.brentvatne.exoplayer;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+/**
+ * Schedules the onProgress ticks on the display frames.
+ *
+ * Display frames stop in background with the screen off and while the view is detached or
+ * hidden: ticks are posted on the main handler then, so background playback keeps its
+ * progress events.
+ * Ticks only run while they can tell something new: the host is resumed (or plays in
+ * background / Picture-in-Picture), the player is ready and playing.
+ * A paused player doesn't move, a seek sends its own progress event.
+ * While nobody looks at the progress closely (native controls hidden, Picture-in-Picture,
+ * background) the relaxed interval is used instead.
+ * All methods are called on the main thread.
+ */
+final class ProgressTicker {
+
+    interface Listener {
+        /** @return false when the tick had nothing new to send */
+        boolean onProgressTick();
+    }
+
+    private final Listener listener;
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> onTick();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable tickRunnable = this::onTick;
+
+    private long intervalMs;
+    private long relaxedIntervalMs;
+    private boolean relaxed = false;
+    private boolean frameClockAvailable = true;
+    private boolean hostActive = true;
+    private boolean ready = false;
+    private boolean playing = false;
+
+    private boolean scheduled = false;
+    // Start of the current stop, -1 while ticking or never started
+    private long stoppedAtMs = -1;
+    private long suppressedTicks = 0;
+
+    ProgressTicker(Listener listener, long intervalMs, long relaxedIntervalMs) {
+        this.listener = listener;
+        this.intervalMs = intervalMs;
+        this.relaxedIntervalMs = relaxedIntervalMs;
+    }
+
+    void setIntervalMs(long intervalMs) {
+        this.intervalMs = intervalMs;
+        reschedule();
+    }
+
+    /** 0 to keep the normal interval */
+    void setRelaxedIntervalMs(long relaxedIntervalMs) {
+        this.relaxedIntervalMs = relaxedIntervalMs;
+        reschedule();
+    }
+
+    void setRelaxed(boolean relaxed) {
+        if (this.relaxed != relaxed) {
+            this.relaxed = relaxed;
+            reschedule();
+        }
+    }
+
+    /** whether display frames are coming, ticks use the main handler otherwise */
+    void setFrameClockAvailable(boolean available) {
+        if (frameClockAvailable == available) {
+            return;
+        }
+        boolean wasScheduled = scheduled;
+        cancel();
+        frameClockAvailable = available;
+        if (wasScheduled) {
+            schedule();
+        }
+    }
+
+    void setHostActive(boolean hostActive) {
+        this.hostActive = hostActive;
+        update();
+    }
+
+    void setReady(boolean ready) {
+        this.ready = ready;
+        update();
+    }
+
+    void setPlaying(boolean playing) {
+        this.playing = playing;
+        update();
+    }
+
+    /**
+     * Progress events not sent compared to one every interval: ticks with nothing new, ticks
+     * saved by the relaxed interval and ticks skipped while stopped.
+     */
+    long getSuppressedTicks() {
+        if (stoppedAtMs >= 0 && intervalMs > 0) {
+            return suppressedTicks + (SystemClock.uptimeMillis() - stoppedAtMs) / intervalMs;
+        }
+        return suppressedTicks;
+    }
+
+    private boolean isActive() {
+        return hostActive && ready && playing;
+    }
+
+    private long getCurrentIntervalMs() {
+        return relaxed && relaxedIntervalMs > intervalMs ? relaxedIntervalMs : intervalMs;
+    }
+
+    private void update() {
+        if (isActive()) {
+            if (!scheduled) {
+                if (stoppedAtMs >= 0 && intervalMs > 0) {
+                    suppressedTicks += (SystemClock.uptimeMillis() - stoppedAtMs) / intervalMs;
+                }
+                stoppedAtMs = -1;
+                // Tell the position right away when starting again
+                listener.onProgressTick();
+                schedule();
+            }
+        } else if (scheduled) {
+            cancel();
+            stoppedAtMs = SystemClock.uptimeMillis();
+        }
+    }
+
+    private void reschedule() {
+        if (scheduled) {
+            cancel();
+            schedule();
+        }
+    }
+
+    private void schedule() {
+        scheduled = true;
+        if (frameClockAvailable) {
+            Choreographer.getInstance().postFrameCallbackDelayed(frameCallback, getCurrentIntervalMs());
+        } else {
+            handler.postDelayed(tickRunnable, getCurrentIntervalMs());
+        }
+    }
+
+    private void cancel() {
+        if (scheduled) {
+            scheduled = false;
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+            handler.removeCallbacks(tickRunnable);
+        }
+    }
+
+    private void onTick() {
+        scheduled = false;
+        long currentIntervalMs = getCurrentIntervalMs();
+        if (intervalMs > 0 && currentIntervalMs > intervalMs) {
+            suppressedTicks += currentIntervalMs / intervalMs - 1;
+        }
+        if (!listener.onProgressTick()) {
+            suppressedTicks++;
+        }
+        schedule();
+    }
+}
@@ -0,0 +1,59 @@
+package com.brentvatne.exoplayer;
+
+/**
+ * Position in the queue prop: the item playing and the next one to add to the playlist.
+ *
+ * Only the playing item and the preloaded one are in the playlist, the other items are added
+ * one by one when the previous one is about to end.
+ */
+final class QueueCursor {
+
+    // Queue item playing, -1 for source
+    private int currentIndex = -1;
+    // Next queue item to add to the playlist
+    private int nextIndex = 0;
+
+    int getCurrentIndex() {
+        return currentIndex;
+    }
+
+    int getNextIndex() {
+        return nextIndex;
+    }
+
+    /** back to source, for a new source or queue */
+    void reset() {
+        currentIndex = -1;
+        nextIndex = 0;
+    }
+
+    /** true when a queue item of this size is still to be added to the playlist */
+    boolean hasNext(int itemCount) {
+        return nextIndex < itemCount;
+    }
+
+    /** index of the item added to the playlist */
+    int takeNext() {
+        return nextIndex++;
+    }
+
+    /**
+     * The playlist moved on to this item.
+     *
+     * @return false when the item was already the playing one or is not in the queue
+     */
+    boolean onItemStarted(int index, int itemCount) {
+        if (index == currentIndex || index < 0 || index >= itemCount) {
+            return false;
+        }
+        currentIndex = index;
+        // Items skipped by a seek are not added again
+        nextIndex = Math.max(nextIndex, index + 1);
+        return true;
+    }
+
+    /** the playlist is lost with the player, the playing item is the new source */
+    void onPlayerReleased() {
+        nextIndex = currentIndex + 1;
+    }
+}
@@ -0,0 +1,85 @@
+package com.brentvatne.exoplayer;
+
+import androidx.annotation.Nullable;
+import androidx.media3.common.MediaItem;
+import androidx.media3.exoplayer.DefaultLivePlaybackSpeedControl;
+import androidx.media3.exoplayer.LivePlaybackSpeedControl;
+
+import com.brentvatne.common.api.BufferConfig;
+
+/**
+ * LivePlaybackSpeedControl that lets bufferConfig.live be changed on a running player.
+ *
+ * The player pushes the live configuration of the current media item (manifest values merged
+ * with the one we set on the MediaItem) on the playback thread. Values set from JS are layered
+ * on top of it, and re-applied to the delegate whenever they change, so no media item reload
+ * is needed.
+ */
+final class ReactExoplayerLivePlaybackSpeedControl implements LivePlaybackSpeedControl {
+
+    private final LivePlaybackSpeedControl delegate = new DefaultLivePlaybackSpeedControl.Builder().build();
+
+    @Nullable
+    private MediaItem.LiveConfiguration mediaItemConfiguration;
+    private BufferConfig.Live overrides;
+
+    ReactExoplayerLivePlaybackSpeedControl(BufferConfig.Live overrides) {
+        this.overrides = overrides;
+    }
+
+    /**
+     * Update the live configuration coming from props. Called on the main thread.
+     */
+    synchronized void updateLiveConfiguration(BufferConfig.Live live) {
+        overrides = live;
+        if (mediaItemConfiguration != null) {
+            delegate.setLiveConfiguration(merge(mediaItemConfiguration));
+        }
+    }
+
+    private MediaItem.LiveConfiguration merge(MediaItem.LiveConfiguration configuration) {
+        MediaItem.LiveConfiguration.Builder builder = configuration.buildUpon();
+        if (overrides.getTargetOffsetMs() >= 0) {
+            builder.setTargetOffsetMs(overrides.getTargetOffsetMs());
+        }
+        if (overrides.getMinOffsetMs() >= 0) {
+            builder.setMinOffsetMs(overrides.getMinOffsetMs());
+        }
+        if (overrides.getMaxOffsetMs() >= 0) {
+            builder.setMaxOffsetMs(overrides.getMaxOffsetMs());
+        }
+        if (overrides.getMinPlaybackSpeed() >= 0) {
+            builder.setMinPlaybackSpeed(overrides.getMinPlaybackSpeed());
+        }
+        if (overrides.getMaxPlaybackSpeed() >= 0) {
+            builder.setMaxPlaybackSpeed(overrides.getMaxPlaybackSpeed());
+        }
+        return builder.build();
+    }
+
+    @Override
+    public synchronized void setLiveConfiguration(MediaItem.LiveConfiguration liveConfiguration) {
+        mediaItemConfiguration = liveConfiguration;
+        delegate.setLiveConfiguration(merge(liveConfiguration));
+    }
+
+    @Override
+    public synchronized void setTargetLiveOffsetOverrideUs(long liveOffsetUs) {
+        delegate.setTargetLiveOffsetOverrideUs(liveOffsetUs);
+    }
+
+    @Override
+    public synchronized void notifyRebuffer() {
+        delegate.notifyRebuffer();
+    }
+
+    @Override
+    public synchronized float getAdjustedPlaybackSpeed(long liveOffsetUs, long bufferedDurationUs) {
+        return delegate.getAdjustedPlaybackSpeed(liveOffsetUs, bufferedDurationUs);
+    }
+
+    @Override
+    public synchronized long getTargetLiveOffsetUs() {
+        return delegate.getTargetLiveOffsetUs();
+    }
+}
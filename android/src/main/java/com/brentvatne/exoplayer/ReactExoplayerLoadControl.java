@@ -0,0 +1,212 @@
+package com.brentvatne.exoplayer;
+
+import android.app.ActivityManager;
+import android.content.Context;
+
+import androidx.media3.common.C;
+import androidx.media3.common.util.Util;
+import androidx.media3.exoplayer.DefaultLoadControl;
+import androidx.media3.exoplayer.Renderer;
+import androidx.media3.exoplayer.source.TrackGroupArray;
+import androidx.media3.exoplayer.trackselection.ExoTrackSelection;
+import androidx.media3.exoplayer.upstream.DefaultAllocator;
+
+import com.brentvatne.common.api.BufferConfig;
+import com.brentvatne.common.api.BufferingStrategy;
+import com.brentvatne.common.toolbox.DebugLog;
+
+/**
+ * LoadControl whose buffer thresholds can be changed while the player is running.
+ *
+ * DefaultLoadControl keeps its thresholds in final fields, so the loading and start
+ * decisions are re-implemented here on top of volatile copies. They are written from the
+ * main thread by {@link #updateBufferConfig(BufferConfig)} and read on the playback thread.
+ */
+final class ReactExoplayerLoadControl extends DefaultLoadControl {
+
+    private static final String TAG = "ReactExoplayerLoadControl";
+
+    // Same floor as DefaultLoadControl, prevents playback from getting stuck with a tiny minBuffer
+    private static final long MIN_BUFFER_FLOOR_US = 500_000;
+
+    private final Runtime runtime;
+    private final int memoryClassMb;
+
+    private volatile long minBufferUs;
+    private volatile long maxBufferUs;
+    private volatile long bufferForPlaybackUs;
+    private volatile long bufferForPlaybackAfterRebufferUs;
+    private volatile long backBufferDurationUs;
+    private volatile int availableHeapInBytes;
+    private volatile double minBufferMemoryReservePercent;
+    private volatile BufferingStrategy.BufferingStrategyEnum bufferingStrategy;
+
+    // Only accessed on the playback thread
+    private int targetBufferBytes = C.LENGTH_UNSET;
+    private boolean isLoading;
+
+    ReactExoplayerLoadControl(Context context, DefaultAllocator allocator, BufferConfig config,
+                              BufferingStrategy.BufferingStrategyEnum bufferingStrategy) {
+        super(allocator,
+                resolveMs(config.getMinBufferMs(), DefaultLoadControl.DEFAULT_MIN_BUFFER_MS),
+                resolveMs(config.getMaxBufferMs(), DefaultLoadControl.DEFAULT_MAX_BUFFER_MS),
+                resolveMs(config.getBufferForPlaybackMs(), DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_MS),
+                resolveMs(config.getBufferForPlaybackAfterRebufferMs(), DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_AFTER_REBUFFER_MS),
+                C.LENGTH_UNSET,
+                true,
+                resolveMs(config.getBackBufferDurationMs(), DefaultLoadControl.DEFAULT_BACK_BUFFER_DURATION_MS),
+                DefaultLoadControl.DEFAULT_RETAIN_BACK_BUFFER_FROM_KEYFRAME);
+        this.runtime = Runtime.getRuntime();
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        this.memoryClassMb = activityManager.getMemoryClass();
+        this.bufferingStrategy = bufferingStrategy;
+        applyBufferConfig(config);
+    }
+
+    /**
+     * Apply a new buffer configuration in place.
+     *
+     * @return false if the thresholds are not consistent (the same checks DefaultLoadControl
+     *     asserts on), in which case nothing is changed.
+     */
+    boolean updateBufferConfig(BufferConfig config) {
+        if (!isValid(config)) {
+            DebugLog.w(TAG, "Rejecting inconsistent buffer thresholds");
+            return false;
+        }
+        applyBufferConfig(config);
+        return true;
+    }
+
+    void setBufferingStrategy(BufferingStrategy.BufferingStrategyEnum bufferingStrategy) {
+        this.bufferingStrategy = bufferingStrategy;
+    }
+
+    static boolean isValid(BufferConfig config) {
+        int minBufferMs = resolveMs(config.getMinBufferMs(), DefaultLoadControl.DEFAULT_MIN_BUFFER_MS);
+        int maxBufferMs = resolveMs(config.getMaxBufferMs(), DefaultLoadControl.DEFAULT_MAX_BUFFER_MS);
+        int bufferForPlaybackMs = resolveMs(config.getBufferForPlaybackMs(), DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_MS);
+        int bufferForPlaybackAfterRebufferMs = resolveMs(config.getBufferForPlaybackAfterRebufferMs(),
+                DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_AFTER_REBUFFER_MS);
+        int backBufferDurationMs = resolveMs(config.getBackBufferDurationMs(), DefaultLoadControl.DEFAULT_BACK_BUFFER_DURATION_MS);
+        return bufferForPlaybackMs >= 0
+                && bufferForPlaybackAfterRebufferMs >= 0
+                && minBufferMs >= bufferForPlaybackMs
+                && minBufferMs >= bufferForPlaybackAfterRebufferMs
+                && maxBufferMs >= minBufferMs
+                && backBufferDurationMs >= 0;
+    }
+
+    private void applyBufferConfig(BufferConfig config) {
+        minBufferUs = Util.msToUs(resolveMs(config.getMinBufferMs(), DefaultLoadControl.DEFAULT_MIN_BUFFER_MS));
+        maxBufferUs = Util.msToUs(resolveMs(config.getMaxBufferMs(), DefaultLoadControl.DEFAULT_MAX_BUFFER_MS));
+        bufferForPlaybackUs = Util.msToUs(resolveMs(config.getBufferForPlaybackMs(),
+                DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_MS));
+        bufferForPlaybackAfterRebufferUs = Util.msToUs(resolveMs(config.getBufferForPlaybackAfterRebufferMs(),
+                DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_AFTER_REBUFFER_MS));
+        backBufferDurationUs = Util.msToUs(resolveMs(config.getBackBufferDurationMs(),
+                DefaultLoadControl.DEFAULT_BACK_BUFFER_DURATION_MS));
+        double maxHeap = config.getMaxHeapAllocationPercent() != BufferConfig.Companion.getBufferConfigPropUnsetDouble()
+                ? config.getMaxHeapAllocationPercent()
+                : ReactExoplayerView.DEFAULT_MAX_HEAP_ALLOCATION_PERCENT;
+        availableHeapInBytes = (int) Math.floor(memoryClassMb * maxHeap * 1024 * 1024);
+        minBufferMemoryReservePercent = config.getMinBufferMemoryReservePercent() != BufferConfig.Companion.getBufferConfigPropUnsetDouble()
+                ? config.getMinBufferMemoryReservePercent()
+                : ReactExoplayerView.DEFAULT_MIN_BUFFER_MEMORY_RESERVE;
+    }
+
+    private static int resolveMs(int value, int defaultValue) {
+        return value != BufferConfig.Companion.getBufferConfigPropUnsetInt() ? value : defaultValue;
+    }
+
+    @Override
+    public void onPrepared() {
+        super.onPrepared();
+        reset();
+    }
+
+    @Override
+    public void onTracksSelected(Renderer[] renderers, TrackGroupArray trackGroups, ExoTrackSelection[] trackSelections) {
+        super.onTracksSelected(renderers, trackGroups, trackSelections);
+        targetBufferBytes = calculateTargetBufferBytes(renderers, trackSelections);
+    }
+
+    @Override
+    public void onStopped() {
+        super.onStopped();
+        reset();
+    }
+
+    @Override
+    public void onReleased() {
+        super.onReleased();
+        reset();
+    }
+
+    private void reset() {
+        targetBufferBytes = C.LENGTH_UNSET;
+        isLoading = false;
+    }
+
+    @Override
+    public long getBackBufferDurationUs() {
+        return backBufferDurationUs;
+    }
+
+    @Override
+    public boolean shouldContinueLoading(long playbackPositionUs, long bufferedDurationUs, float playbackSpeed) {
+        BufferingStrategy.BufferingStrategyEnum strategy = bufferingStrategy;
+        if (strategy == BufferingStrategy.BufferingStrategyEnum.DisableBuffering) {
+            return false;
+        } else if (strategy == BufferingStrategy.BufferingStrategyEnum.DependingOnMemory) {
+            // The goal of this algorithm is to pause video loading (increasing the buffer)
+            // when available memory on device become low.
+            int loadedBytes = getAllocator().getTotalBytesAllocated();
+            int heapLimit = availableHeapInBytes;
+            boolean isHeapReached = heapLimit > 0 && loadedBytes >= heapLimit;
+            if (isHeapReached) {
+                return false;
+            }
+            long usedMemory = runtime.totalMemory() - runtime.freeMemory();
+            long freeMemory = runtime.maxMemory() - usedMemory;
+            long reserveMemory = (long) (minBufferMemoryReservePercent * runtime.maxMemory());
+            long bufferedMs = bufferedDurationUs / (long) 1000;
+            if (reserveMemory > freeMemory && bufferedMs > 2000) {
+                // We don't have enough memory in reserve so we stop buffering to allow other components to use it instead
+                return false;
+            }
+            if (runtime.freeMemory() == 0) {
+                DebugLog.w(TAG, "Free memory reached 0, forcing garbage collection");
+                runtime.gc();
+                return false;
+            }
+        }
+        // "default" case or normal case for "DependingOnMemory", same hysteresis as DefaultLoadControl
+        // with time thresholds prioritized over the size threshold.
+        long maxBufferUs = this.maxBufferUs;
+        long minBufferUs = this.minBufferUs;
+        if (playbackSpeed > 1) {
+            long mediaDurationMinBufferUs = Util.getMediaDurationForPlayoutDuration(minBufferUs, playbackSpeed);
+            minBufferUs = Math.min(mediaDurationMinBufferUs, maxBufferUs);
+        }
+        minBufferUs = Math.max(minBufferUs, MIN_BUFFER_FLOOR_US);
+        boolean targetBufferSizeReached = targetBufferBytes != C.LENGTH_UNSET
+                && getAllocator().getTotalBytesAllocated() >= targetBufferBytes;
+        if (bufferedDurationUs < minBufferUs) {
+            isLoading = true;
+        } else if (bufferedDurationUs >= maxBufferUs || targetBufferSizeReached) {
+            isLoading = false;
+        }
+        return isLoading;
+    }
+
+    @Override
+    public boolean shouldStartPlayback(long bufferedDurationUs, float playbackSpeed, boolean rebuffering, long targetLiveOffsetUs) {
+        long playoutBufferedDurationUs = Util.getPlayoutDurationForMediaDuration(bufferedDurationUs, playbackSpeed);
+        long minBufferDurationUs = rebuffering ? bufferForPlaybackAfterRebufferUs : bufferForPlaybackUs;
+        if (targetLiveOffsetUs != C.TIME_UNSET) {
+            minBufferDurationUs = Math.min(targetLiveOffsetUs / 2, minBufferDurationUs);
+        }
+        return minBufferDurationUs <= 0 || playoutBufferedDurationUs >= minBufferDurationUs;
+    }
+}
@@ -1,27 +1,37 @@
 package com.brentvatne.exoplayer
 
 import android.content.Context
+import androidx.media3.common.C
 import androidx.media3.database.StandaloneDatabaseProvider
 import androidx.media3.datasource.DataSource
 import androidx.media3.datasource.HttpDataSource
+import androidx.media3.datasource.cache.Cache
 import androidx.media3.datasource.cache.CacheDataSource
-import androidx.media3.datasource.cache.LeastRecentlyUsedCacheEvictor
+import androidx.media3.datasource.cache.CacheEvictor
+import androidx.media3.datasource.cache.CacheSpan
 import androidx.media3.datasource.cache.SimpleCache
 import java.io.File
+import java.util.TreeSet
 
 object RNVSimpleCache {
     // TODO: when to release? how to check if cache is released?
     private var simpleCache: SimpleCache? = null
+    private var evictor: ResizableLruCacheEvictor? = null
 
     fun setSimpleCache(context: Context, cacheSize: Int) {
-        if (simpleCache != null || cacheSize <= 0) return
+        if (cacheSize <= 0) return
+        if (simpleCache != null) {
+            // The cache is shared by all players, the last value set wins
+            evictor?.maxBytes = cacheSize.toLong() * 1024 * 1024
+            return
+        }
+        val newEvictor = ResizableLruCacheEvictor(cacheSize.toLong() * 1024 * 1024)
         simpleCache = SimpleCache(
             File(context.cacheDir, "RNVCache"),
-            LeastRecentlyUsedCacheEvictor(
-                cacheSize.toLong() * 1024 * 1024
-            ),
+            newEvictor,
             StandaloneDatabaseProvider(context)
         )
+        evictor = newEvictor
     }
 
     fun getCacheFactory(factory: HttpDataSource.Factory): DataSource.Factory {
@@ -30,4 +40,53 @@ object RNVSimpleCache {
             .setCache(simpleCache!!)
             .setUpstreamDataSourceFactory(factory)
     }
-}
\ No newline at end of file
+
+    /**
+     * Same policy as LeastRecentlyUsedCacheEvictor, but the size limit can be changed at runtime.
+     * A smaller limit is enforced on the next cache write, all callbacks run under the cache lock.
+     */
+    private class ResizableLruCacheEvictor(@Volatile var maxBytes: Long) : CacheEvictor {
+        private val leastRecentlyUsed = TreeSet<CacheSpan> { lhs, rhs ->
+            if (lhs.lastTouchTimestamp == rhs.lastTouchTimestamp) {
+                lhs.compareTo(rhs)
+            } else if (lhs.lastTouchTimestamp < rhs.lastTouchTimestamp) {
+                -1
+            } else {
+                1
+            }
+        }
+        private var currentSize = 0L
+
+        override fun requiresCacheSpanTouches(): Boolean = true
+
+        override fun onCacheInitialized() {}
+
+        override fun onStartFile(cache: Cache, key: String, position: Long, length: Long) {
+            if (length != C.LENGTH_UNSET.toLong()) {
+                evictCache(cache, length)
+            }
+        }
+
+        override fun onSpanAdded(cache: Cache, span: CacheSpan) {
+            leastRecentlyUsed.add(span)
+            currentSize += span.length
+            evictCache(cache, 0)
+        }
+
+        override fun onSpanRemoved(cache: Cache, span: CacheSpan) {
+            leastRecentlyUsed.remove(span)
+            currentSize -= span.length
+        }
+
+        override fun onSpanTouched(cache: Cache, oldSpan: CacheSpan, newSpan: CacheSpan) {
+            onSpanRemoved(cache, oldSpan)
+            onSpanAdded(cache, newSpan)
+        }
+
+        private fun evictCache(cache: Cache, requiredSpace: Long) {
+            while (currentSize + requiredSpace > maxBytes && !leastRecentlyUsed.isEmpty()) {
+                cache.removeSpan(leastRecentlyUsed.first())
+            }
+        }
+    }
+}
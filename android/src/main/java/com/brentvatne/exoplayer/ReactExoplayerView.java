@@ -11,7 +11,6 @@ import static com.brentvatne.exoplayer.DataSourceUtil.buildAssetDataSourceFactor
 
 import android.annotation.SuppressLint;
 import android.app.Activity;
-import android.app.ActivityManager;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
@@ -23,8 +22,11 @@ import android.os.Build;
 import android.os.Handler;
 import android.os.IBinder;
 import android.os.Looper;
-import android.os.Message;
+import android.os.SystemClock;
 import android.text.TextUtils;
+import android.util.LongSparseArray;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
 import android.view.View;
 import android.view.Window;
 import android.view.accessibility.CaptioningManager;
@@ -36,6 +38,7 @@ import android.widget.TextView;
 import androidx.activity.ComponentActivity;
 import androidx.activity.OnBackPressedCallback;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.WorkerThread;
 import androidx.lifecycle.Lifecycle;
 import androidx.core.view.WindowCompat;
@@ -56,14 +59,15 @@ import androidx.media3.common.Timeline;
 import androidx.media3.common.TrackGroup;
 import androidx.media3.common.TrackSelectionOverride;
 import androidx.media3.common.Tracks;
+import androidx.media3.common.text.Cue;
 import androidx.media3.common.text.CueGroup;
 import androidx.media3.common.util.Util;
 import androidx.media3.datasource.DataSource;
 import androidx.media3.datasource.DataSpec;
 import androidx.media3.datasource.HttpDataSource;
-import androidx.media3.exoplayer.DefaultLoadControl;
 import androidx.media3.exoplayer.DefaultRenderersFactory;
 import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.exoplayer.SeekParameters;
 import androidx.media3.exoplayer.analytics.AnalyticsListener;
 import androidx.media3.exoplayer.dash.DashMediaSource;
 import androidx.media3.exoplayer.dash.DashUtil;
@@ -80,24 +84,19 @@ import androidx.media3.exoplayer.drm.DrmSessionManagerProvider;
 import androidx.media3.exoplayer.drm.FrameworkMediaDrm;
 import androidx.media3.exoplayer.drm.HttpMediaDrmCallback;
 import androidx.media3.exoplayer.drm.UnsupportedDrmException;
+import androidx.media3.exoplayer.hls.HlsManifest;
 import androidx.media3.exoplayer.hls.HlsMediaSource;
 import androidx.media3.exoplayer.ima.ImaAdsLoader;
-import androidx.media3.exoplayer.mediacodec.MediaCodecInfo;
-import androidx.media3.exoplayer.mediacodec.MediaCodecUtil;
 import androidx.media3.exoplayer.rtsp.RtspMediaSource;
 import androidx.media3.exoplayer.smoothstreaming.DefaultSsChunkSource;
 import androidx.media3.exoplayer.smoothstreaming.SsMediaSource;
 import androidx.media3.exoplayer.source.ClippingMediaSource;
 import androidx.media3.exoplayer.source.DefaultMediaSourceFactory;
 import androidx.media3.exoplayer.source.MediaSource;
-import androidx.media3.exoplayer.source.MergingMediaSource;
 import androidx.media3.exoplayer.source.ProgressiveMediaSource;
-import androidx.media3.exoplayer.source.SingleSampleMediaSource;
 import androidx.media3.exoplayer.source.TrackGroupArray;
 import androidx.media3.exoplayer.source.ads.AdsMediaSource;
-import androidx.media3.exoplayer.trackselection.AdaptiveTrackSelection;
 import androidx.media3.exoplayer.trackselection.DefaultTrackSelector;
-import androidx.media3.exoplayer.trackselection.ExoTrackSelection;
 import androidx.media3.exoplayer.trackselection.MappingTrackSelector;
 import androidx.media3.exoplayer.trackselection.TrackSelection;
 import androidx.media3.exoplayer.trackselection.TrackSelectionArray;
@@ -113,17 +112,29 @@ import androidx.media3.ui.LegacyPlayerControlView;
 
 import com.brentvatne.common.api.BufferConfig;
 import com.brentvatne.common.api.BufferingStrategy;
+import com.brentvatne.common.api.CodecPreference;
 import com.brentvatne.common.api.ControlsConfig;
+import com.brentvatne.common.api.PlaybackMetricsConfig;
+import com.brentvatne.common.api.PlayerCommandBatch;
+import com.brentvatne.common.api.QueueConfig;
 import com.brentvatne.common.api.ResizeMode;
 import com.brentvatne.common.api.SideLoadedTextTrack;
 import com.brentvatne.common.api.SideLoadedTextTrackList;
 import com.brentvatne.common.api.Source;
 import com.brentvatne.common.api.SubtitleStyle;
+import com.brentvatne.common.api.ThumbnailsConfig;
 import com.brentvatne.common.api.TimedMetadata;
 import com.brentvatne.common.api.Track;
 import com.brentvatne.common.api.VideoTrack;
 import com.brentvatne.common.react.VideoEventEmitter;
 import com.brentvatne.common.toolbox.DebugLog;
+import com.brentvatne.exoplayer.abr.AbrDecision;
+import com.brentvatne.exoplayer.abr.AbrTrackSelectionFactory;
+import com.brentvatne.exoplayer.subtitles.SideLoadedSubtitleController;
+import com.brentvatne.exoplayer.thumbnails.DashImageThumbnailSource;
+import com.brentvatne.exoplayer.thumbnails.HlsIFrameThumbnailSource;
+import com.brentvatne.exoplayer.thumbnails.ThumbnailEngine;
+import com.brentvatne.exoplayer.thumbnails.VttThumbnailSource;
 import com.brentvatne.react.BuildConfig;
 import com.brentvatne.react.R;
 import com.brentvatne.receiver.AudioBecomingNoisyReceiver;
@@ -140,12 +151,15 @@ import com.google.ads.interactivemedia.v3.api.ImaSdkFactory;
 import com.google.ads.interactivemedia.v3.api.ImaSdkSettings;
 import com.google.common.collect.ImmutableList;
 
+import java.io.File;
 import java.net.CookieHandler;
 import java.net.CookieManager;
 import java.net.CookiePolicy;
 import java.lang.Math;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.UUID;
@@ -187,7 +201,8 @@ public class ReactExoplayerView extends FrameLayout implements
     private static final String TAG = "ReactExoplayerView";
 
     private static final CookieManager DEFAULT_COOKIE_MANAGER;
-    private static final int SHOW_PROGRESS = 1;
+    // onProgress interval while the progress isn't watched closely, see ProgressTicker
+    private static final long DEFAULT_RELAXED_PROGRESS_UPDATE_INTERVAL_MS = 1000;
 
     static {
         DEFAULT_COOKIE_MANAGER = new CookieManager();
@@ -206,8 +221,13 @@ public class ReactExoplayerView extends FrameLayout implements
     private ImaAdsLoader adsLoader;
 
     private DataSource.Factory mediaDataSourceFactory;
+    // Headers of the source, updatable while playing
+    private final RequestHeaderProvider requestHeaderProvider = new RequestHeaderProvider();
     private ExoPlayer player;
     private DefaultTrackSelector trackSelector;
+    private AbrTrackSelectionFactory abrTrackSelectionFactory;
+    private ReactExoplayerLoadControl loadControl;
+    private ReactExoplayerLivePlaybackSpeedControl livePlaybackSpeedControl;
     private boolean playerNeedsSource;
     private MediaMetadata customMetadata;
 
@@ -224,6 +244,15 @@ public class ReactExoplayerView extends FrameLayout implements
     private long totalBytesTransferred = 0;
     private int droppedFrames = 0;
     private AnalyticsListener playbackMetricsAnalyticsListener = null;
+    private PlaybackMetricsConfig playbackMetricsConfig = new PlaybackMetricsConfig();
+    private final PlaybackMetricsAggregator playbackMetricsAggregator =
+            new PlaybackMetricsAggregator(this::onPlaybackMetricsInterval, PlaybackMetricsConfig.DEFAULT_INTERVAL_MS);
+    // Bitrate of the video renditions keyed by (width << 32 | height), rebuilt in onTracksChanged
+    // so the per-sample telemetry doesn't walk the track groups.
+    private final LongSparseArray<Integer> renditionBitrates = new LongSparseArray<>();
+    private TrackGroupArray renditionBitrateGroups = null;
+    // Renderer index per track type, renderers don't change during the player life
+    private final SparseIntArray rendererIndexes = new SparseIntArray();
 
     private int resumeWindow;
     private long resumePosition;
@@ -243,6 +272,13 @@ public class ReactExoplayerView extends FrameLayout implements
     private boolean hasDrmFailed = false;
     private boolean isUsingContentResolution = false;
     private boolean selectTrackWhenReady = false;
+    // Scrubbing mode (setScrubbing): seeks go to the closest sync frame, seeks sent while one
+    // is in flight are coalesced to the latest target
+    private boolean scrubbing = false;
+    private boolean seekInFlight = false;
+    private long pendingSeekPositionMs = C.TIME_UNSET;
+    private long lastScrubbingTargetMs = C.TIME_UNSET;
+    private long coalescedSeeks = 0;
     private Handler mainHandler;
     private Runnable mainRunnable;
     private boolean useCache = false;
@@ -267,6 +303,7 @@ public class ReactExoplayerView extends FrameLayout implements
     private boolean preventsDisplaySleepDuringVideoPlayback = true;
     private float mProgressUpdateInterval = 250.0f;
     private boolean playInBackground = false;
+    private boolean audioOnlyInBackground = false;
     private boolean enterPictureInPictureOnLeave = false;
     private boolean mReportBandwidth = false;
     private UUID drmUUID = null;
@@ -289,6 +326,25 @@ public class ReactExoplayerView extends FrameLayout implements
     private PictureInPictureManager pictureInPictureManager;
     private boolean lastReportedPipMode = false;
 
+    // Video size cap following the displayed size (inline, fullscreen, PiP)
+    private final ViewportController viewportController = new ViewportController(this::onViewportCapChanged);
+    private int lastReportedCappedBitrate = -1;
+    private int lastReportedUncappedBitrate = -1;
+
+    // Resolution / frame rate cap learned from dropped frames
+    private final DecoderPerformanceController decoderPerformanceController;
+
+    // Video codec ranking, done again when the video track groups change
+    private CodecPreference codecPreference = new CodecPreference();
+    private CodecPreferencePolicy.Result codecPreferenceResult = CodecPreferencePolicy.NONE;
+
+    // Last track lists sent to JS, to skip onTracksChanged calls that change nothing
+    private final TrackListCache<Track> audioTrackListCache = new TrackListCache<>();
+    private final TrackListCache<Track> textTrackListCache = new TrackListCache<>();
+    private final TrackListCache<VideoTrack> videoTrackListCache = new TrackListCache<>();
+    // Track index per track type, used by setSelectedTrack
+    private final SparseArray<TrackCatalogue> trackCatalogues = new SparseArray<>();
+
     // store last progress event values to avoid sending unnecessary messages
     private long lastPos = -1;
     private long lastBufferDuration = -1;
@@ -296,6 +352,9 @@ public class ReactExoplayerView extends FrameLayout implements
 
     private boolean viewHasDropped = false;
 
+    // Video renderer disabled by audioOnlyInBackground while the host is paused
+    private boolean isVideoDisabledForBackground = false;
+
     // Dani Offline
     private boolean playOffline = false;
 
@@ -309,17 +368,90 @@ public class ReactExoplayerView extends FrameLayout implements
     private DefaultDrmSessionManager mDrmSessionManager;
     private MediaItem mMediaItem;
 
-    private void updateProgress() {
+    private volatile PlaybackSnapshot playbackSnapshot = PlaybackSnapshot.EMPTY;
+
+    @Nullable
+    private ThumbnailsConfig thumbnailsConfig;
+    // Read by getThumbnail from other threads
+    @Nullable
+    private volatile ThumbnailEngine thumbnailEngine;
+    // What the current thumbnails were loaded from: WebVTT uri or manifest
+    @Nullable
+    private Object thumbnailSourceKey;
+
+    private final SideLoadedSubtitleController sideLoadedSubtitles;
+
+    @Nullable
+    private QueueConfig queueConfig;
+    private final QueueCursor queueCursor = new QueueCursor();
+    // DRM session manager of the drm prop, shared by source and the queue items without drm
+    @Nullable
+    private DrmSessionManager queueDrmSessionManager;
+    // drm of the queue item that became source, null for the drm prop
+    @Nullable
+    private QueueConfig.Drm sourceDrm;
+
+    /** to call on each player change, publishes the state for readers on other threads */
+    private void updatePlaybackSnapshot() {
+        if (player == null) {
+            playbackSnapshot = PlaybackSnapshot.EMPTY;
+            return;
+        }
+        String state;
+        switch (player.getPlaybackState()) {
+            case Player.STATE_BUFFERING:
+                state = PlaybackSnapshot.STATE_BUFFERING;
+                break;
+            case Player.STATE_READY:
+                state = PlaybackSnapshot.STATE_READY;
+                break;
+            case Player.STATE_ENDED:
+                state = PlaybackSnapshot.STATE_ENDED;
+                break;
+            default:
+                state = PlaybackSnapshot.STATE_IDLE;
+                break;
+        }
+        long liveOffset = player.isCurrentMediaItemLive() ? player.getCurrentLiveOffset() : C.TIME_UNSET;
+        playbackSnapshot = new PlaybackSnapshot(
+                player.getCurrentPosition(), player.getBufferedPosition(), player.getDuration(), state,
+                player.isPlaying(), player.getPlaybackParameters().speed,
+                getSelectedVideoBitrate(player.getVideoFormat()), liveOffset, SystemClock.uptimeMillis());
+    }
+
+    /**
+     * Last published playback state, can be called from any thread.
+     */
+    public PlaybackSnapshot getPlaybackSnapshot() {
+        return playbackSnapshot;
+    }
+
+    /**
+     * Playback state read from the player right now, to call on the main thread.
+     */
+    public PlaybackSnapshot readPlaybackSnapshot() {
+        updatePlaybackSnapshot();
+        return playbackSnapshot;
+    }
+
+    /**
+     * @return true when a progress event was sent
+     */
+    private boolean updateProgress() {
         if (player != null) {
+            updatePlaybackSnapshot();
+            maybeAppendQueueItem();
             if (playerControlView != null && isPlayingAd() && controls) {
                 playerControlView.hide();
             }
-            long bufferedDuration = player.getBufferedPercentage() * player.getDuration() / 100;
             long duration = player.getDuration();
+            long bufferedPosition = player.getBufferedPosition();
             long pos = player.getCurrentPosition();
             if (pos > duration) {
                 pos = duration;
             }
+            // Same value as the former percentage * duration, without the rounding to 1%
+            long bufferedDuration = duration == C.TIME_UNSET ? 0 : Math.min(bufferedPosition, duration);
 
             if (lastPos != pos
                     || lastBufferDuration != bufferedDuration
@@ -327,21 +459,18 @@ public class ReactExoplayerView extends FrameLayout implements
                 lastPos = pos;
                 lastBufferDuration = bufferedDuration;
                 lastDuration = duration;
-                eventEmitter.progressChanged(pos, bufferedDuration, player.getDuration(), getPositionInFirstPeriodMsForCurrentWindow(pos));
+                if (thumbnailEngine != null) {
+                    thumbnailEngine.prefetch(pos);
+                }
+                eventEmitter.progressChanged(pos, bufferedDuration, duration, getPositionInFirstPeriodMsForCurrentWindow(pos));
+                return true;
             }
         }
+        return false;
     }
 
-    private final Handler progressHandler = new Handler(Looper.getMainLooper()) {
-        @Override
-        public void handleMessage(Message msg) {
-            if (msg.what == SHOW_PROGRESS) {
-                updateProgress();
-                msg = obtainMessage(SHOW_PROGRESS);
-                sendMessageDelayed(msg, Math.round(mProgressUpdateInterval));
-            }
-        }
-    };
+    private final ProgressTicker progressTicker =
+            new ProgressTicker(this::updateProgress, Math.round(mProgressUpdateInterval), DEFAULT_RELAXED_PROGRESS_UPDATE_INTERVAL_MS);
 
     public double getPositionInFirstPeriodMsForCurrentWindow(long currentPosition) {
         Timeline.Window window = new Timeline.Window();
@@ -357,8 +486,11 @@ public class ReactExoplayerView extends FrameLayout implements
         this.eventEmitter = new VideoEventEmitter(context);
         this.config = config;
         this.bandwidthMeter = config.getBandwidthMeter();
+        this.decoderPerformanceController = new DecoderPerformanceController(context, this::onDecoderCapChanged);
 
         createViews();
+        sideLoadedSubtitles = new SideLoadedSubtitleController(new File(context.getCacheDir(), "subtitles"),
+                this::onSideLoadedCues);
 
         audioManager = (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
         themedReactContext.addLifecycleEventListener(this);
@@ -394,6 +526,12 @@ public class ReactExoplayerView extends FrameLayout implements
         addView(exoPlayerView, 0, layoutParams);
 
         exoPlayerView.setFocusable(this.focusable);
+        // exoPlayerView is moved into the fullscreen dialog and resized in PiP, follow it everywhere
+        exoPlayerView.addOnLayoutChangeListener((v, left, top, right, bottom, oldLeft, oldTop, oldRight, oldBottom) -> {
+            if (right - left != oldRight - oldLeft || bottom - top != oldBottom - oldTop) {
+                viewportController.onSizeChanged(right - left, bottom - top);
+            }
+        });
 
         mainHandler = new Handler();
     }
@@ -416,6 +554,8 @@ public class ReactExoplayerView extends FrameLayout implements
                 + " isPaused=" + isPaused
                 + " nowPlaying=" + (nowPlayingBridge != null ? "registered" : "null"));
 
+        restoreVideoAfterBackground();
+        progressTicker.setHostActive(true);
         if (!playInBackground || !isInBackground) {
             if (isAdCurrentlyActive && adsLoader != null && player != null && !isPaused) {
                 if (player.getPlaybackState() == Player.STATE_IDLE) {
@@ -426,6 +566,7 @@ public class ReactExoplayerView extends FrameLayout implements
                     releasePlayer();
                     initializePlayer();
                     isInBackground = false;
+                    updateFrameClock();
                     return;
                 }
                 // Player en STATE_READY/BUFFERING: el ImaAdsLoader perdió el contexto de su
@@ -437,6 +578,8 @@ public class ReactExoplayerView extends FrameLayout implements
             setPlayWhenReady(!isPaused);
         }
         isInBackground = false;
+        updateProgressTickerRelaxed();
+        updateFrameClock();
     }
 
     @Override
@@ -447,27 +590,72 @@ public class ReactExoplayerView extends FrameLayout implements
             return;
         }
         isInBackground = true;
+        updateProgressTickerRelaxed();
+        updateFrameClock();
         if (playInBackground) {
             // Si playInBackground está activo, mantener el audio (incluso durante ads)
             DebugLog.d(TAG, "onHostPause: playInBackground enabled, keeping audio" + (isPlayingAd() ? " (ad playing)" : ""));
+            if (audioOnlyInBackground && !isPlayingAd()) {
+                // Ads keep their video: IMA tracks the rendering of the ad surface
+                disableVideoForBackground();
+            }
             return;
         }
         // Pausar el player - el IMA SDK detectará que el player está pausado
         if (isPlayingAd()) {
             DebugLog.d(TAG, "onHostPause: Pausing during ad playback");
         }
+        progressTicker.setHostActive(false);
         setPlayWhenReady(false);
     }
 
+    /**
+     * Stop loading and decoding video while nobody sees it. The renderer is disabled through the
+     * track selector, so tracks are re-selected without re-preparing the player.
+     */
+    private void disableVideoForBackground() {
+        int rendererIndex = getTrackRendererIndex(C.TRACK_TYPE_VIDEO);
+        if (trackSelector == null || rendererIndex == C.INDEX_UNSET || isVideoDisabledForBackground
+                || trackSelector.getParameters().getRendererDisabled(rendererIndex)) {
+            // Nothing to do, or video disabled on purpose (selectedVideoTrack disabled)
+            return;
+        }
+        DebugLog.d(TAG, "onHostPause: audio only, disabling video renderer");
+        trackSelector.setParameters(trackSelector.buildUponParameters()
+                .setRendererDisabled(rendererIndex, true));
+        isVideoDisabledForBackground = true;
+    }
+
+    private void restoreVideoAfterBackground() {
+        if (!isVideoDisabledForBackground) {
+            return;
+        }
+        isVideoDisabledForBackground = false;
+        int rendererIndex = getTrackRendererIndex(C.TRACK_TYPE_VIDEO);
+        if (trackSelector == null || rendererIndex == C.INDEX_UNSET) {
+            return;
+        }
+        DebugLog.d(TAG, "onHostResume: restoring video renderer");
+        trackSelector.setParameters(trackSelector.buildUponParameters()
+                .setRendererDisabled(rendererIndex, false));
+    }
+
     @Override
     public void onHostDestroy() {
         DebugLog.d(TAG, "ReactExoplayerView onHostDestroy");
         cleanUpResources();
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        updateFrameClock();
+    }
+
     @Override
     protected void onDetachedFromWindow() {
         DebugLog.d(TAG, "ReactExoplayerView onDetachedFromWindow");
+        updateFrameClock();
         if (!playInBackground || !isInBackground) {
             unregisterNowPlaying();
         }
@@ -481,8 +669,15 @@ public class ReactExoplayerView extends FrameLayout implements
         // doesn't jump into PiP after this player is gone, and drop the activity listeners.
         pictureInPictureManager.updatePictureInPictureParams(false, null, null);
         pictureInPictureManager.unregisterActivityListeners();
+        viewportController.release();
         themedReactContext.removeLifecycleEventListener(this);
         releasePlayer();
+        if (thumbnailEngine != null) {
+            thumbnailEngine.release();
+            thumbnailEngine = null;
+        }
+        sideLoadedSubtitles.release();
+        exoPlayerView.release();
         viewHasDropped = true;
     }
 
@@ -492,6 +687,8 @@ public class ReactExoplayerView extends FrameLayout implements
         if (bytes > 0) {
             totalBytesTransferred += bytes;
         }
+        // The buffered position grows while paused too, without progress tick
+        updatePlaybackSnapshot();
         if (mReportBandwidth) {
             if (player == null) {
                 eventEmitter.bandwidthReport(bitrate, 0, 0, "-1");
@@ -503,26 +700,261 @@ public class ReactExoplayerView extends FrameLayout implements
                 eventEmitter.bandwidthReport(bitrate, height, width, trackId);
             }
         }
-        // PLAYER-195: emit QoE telemetry on every bandwidth sample (NOT gated by mReportBandwidth,
-        // so QoE does not depend on the reportBandwidth prop). Cadence = BandwidthMeter sample tick
-        // (sub-second under load); the JS consumer decimates to ~1/s if needed. throughput is the
-        // instantaneous per-sample value (bytes*8000/elapsedMs); -1 when elapsedMs is unknown.
-        if (player != null) {
-            Format videoFormat = player.getVideoFormat();
-            int width = videoFormat != null ? videoFormat.width : 0;
-            int height = videoFormat != null ? videoFormat.height : 0;
-            double fps = (videoFormat != null && videoFormat.frameRate != Format.NO_VALUE)
-                    ? videoFormat.frameRate : 0d;
-            // PLAYER-200: onBandwidthSample's `bitrate` arg is the BandwidthMeter estimate
-            // (network throughput), NOT the media bitrate. Resolve the current rendition's
-            // media bitrate from the manifest variant track groups (HLS/DASH BANDWIDTH);
-            // getVideoFormat().bitrate is NO_VALUE for adaptive streams. `throughput` carries
-            // the measured bandwidth.
-            double mediaBitrate = getSelectedVideoBitrate(videoFormat);
+        // PLAYER-195: QoE telemetry (NOT gated by mReportBandwidth, so QoE does not depend on
+        // the reportBandwidth prop). throughput is the instantaneous per-sample value
+        // (bytes*8000/elapsedMs); -1 when elapsedMs is unknown. Samples are aggregated and sent
+        // once per playbackMetricsConfig.intervalMs, or right away when the interval is 0.
+        if (player != null && eventEmitter.hasPlaybackMetricsListener()) {
             double throughput = elapsedMs > 0 ? ((double) bytes * 8000d / elapsedMs) : -1d;
+            if (playbackMetricsConfig.getIntervalMs() > 0) {
+                addPlaybackMetricsSample(throughput);
+            } else if (shouldReportPlaybackMetrics()) {
+                emitPlaybackMetrics(throughput, null);
+            }
+        }
+    }
+
+    private void addPlaybackMetricsSample(double throughput) {
+        Format videoFormat = player.getVideoFormat();
+        double fps = (videoFormat != null && videoFormat.frameRate != Format.NO_VALUE)
+                ? videoFormat.frameRate : 0d;
+        playbackMetricsAggregator.addSample(throughput, getSelectedVideoBitrate(videoFormat), fps, droppedFrames);
+    }
+
+    /**
+     * Nothing is sent while paused or in background unless the config asks for it, with or
+     * without an interval.
+     */
+    private boolean shouldReportPlaybackMetrics() {
+        return player != null && eventEmitter.hasPlaybackMetricsListener()
+                && (player.isPlaying() || playbackMetricsConfig.getReportWhilePaused())
+                && (!isInBackground || playbackMetricsConfig.getReportInBackground());
+    }
+
+    /**
+     * End of a playbackMetricsConfig interval. The stats only hold the samples received during
+     * the interval, the current rendition is in the top level fields.
+     */
+    private void onPlaybackMetricsInterval(PlaybackMetricsAggregator aggregator) {
+        if (!shouldReportPlaybackMetrics()) {
+            return;
+        }
+        emitPlaybackMetrics(aggregator.throughput.getCount() > 0 ? aggregator.throughput.getLast() : -1d, aggregator);
+    }
+
+    private void emitPlaybackMetrics(double throughput, @Nullable PlaybackMetricsAggregator aggregator) {
+        Format videoFormat = player.getVideoFormat();
+        int width = videoFormat != null ? videoFormat.width : 0;
+        int height = videoFormat != null ? videoFormat.height : 0;
+        double fps = (videoFormat != null && videoFormat.frameRate != Format.NO_VALUE)
+                ? videoFormat.frameRate : 0d;
+        // PLAYER-200: onBandwidthSample's `bitrate` arg is the BandwidthMeter estimate
+        // (network throughput), NOT the media bitrate. Resolve the current rendition's
+        // media bitrate from the manifest variant track groups (HLS/DASH BANDWIDTH);
+        // getVideoFormat().bitrate is NO_VALUE for adaptive streams. `throughput` carries
+        // the measured bandwidth.
+        double mediaBitrate = getSelectedVideoBitrate(videoFormat);
+        String codec = videoFormat != null ? CodecPreferencePolicy.getVideoMimeType(videoFormat) : null;
+        if (aggregator == null) {
             eventEmitter.playbackMetrics(
-                    mediaBitrate, throughput, fps, droppedFrames, totalBytesTransferred, width, height);
+                    mediaBitrate, throughput, fps, droppedFrames, totalBytesTransferred, width, height,
+                    codec, codecPreferenceResult.reason, 0, null, null, null, null);
+        } else {
+            eventEmitter.playbackMetrics(
+                    mediaBitrate, throughput, fps, droppedFrames, totalBytesTransferred, width, height,
+                    codec, codecPreferenceResult.reason, aggregator.getIntervalMs(),
+                    aggregator.throughput, aggregator.bitrate, aggregator.framesPerSecond, aggregator.droppedFrames);
+        }
+    }
+
+    /**
+     * Prop "thumbnails": seek preview thumbnails, null to disable them.
+     */
+    public void setThumbnailsConfig(@Nullable ThumbnailsConfig config) {
+        if (Objects.equals(thumbnailsConfig, config)) {
+            return;
+        }
+        thumbnailsConfig = config;
+        if (thumbnailEngine != null) {
+            thumbnailEngine.release();
+            thumbnailEngine = null;
+        }
+        thumbnailSourceKey = null;
+        if (config != null) {
+            File directory = new File(getContext().getCacheDir(), "thumbnails/" + System.identityHashCode(this));
+            thumbnailEngine = new ThumbnailEngine(directory, config.getMaxWidth(),
+                    config.getCacheSizeMb() * 1024 * 1024, config.getPrefetchCount());
+            updateThumbnailSource();
+        }
+    }
+
+    /**
+     * Loads the thumbnails of the current stream: the WebVTT index of the config, else the
+     * I-frame playlist (HLS) or the image adaptation set (DASH) of the manifest.
+     */
+    private void updateThumbnailSource() {
+        ThumbnailEngine engine = thumbnailEngine;
+        if (engine == null || player == null || thumbnailsConfig == null) {
+            return;
+        }
+        DataSource.Factory dataSourceFactory = buildDataSourceFactory(false);
+        int maxWidth = thumbnailsConfig.getMaxWidth();
+        String url = thumbnailsConfig.getUrl();
+        if (url != null) {
+            Uri uri = Uri.parse(url);
+            if (!uri.equals(thumbnailSourceKey)) {
+                thumbnailSourceKey = uri;
+                engine.load(() -> VttThumbnailSource.load(dataSourceFactory, uri));
+            }
+            return;
+        }
+        Object manifest = player.getCurrentManifest();
+        if (manifest instanceof HlsManifest) {
+            // Live playlists are refreshed, the multivariant playlist stays the same
+            HlsManifest hlsManifest = (HlsManifest) manifest;
+            if (hlsManifest.multivariantPlaylist != thumbnailSourceKey) {
+                thumbnailSourceKey = hlsManifest.multivariantPlaylist;
+                File directory = new File(getContext().getCacheDir(), "thumbnails");
+                engine.load(() -> HlsIFrameThumbnailSource.load(dataSourceFactory,
+                        hlsManifest.multivariantPlaylist, maxWidth, directory));
+            }
+        } else if (manifest instanceof DashManifest) {
+            // Live manifests are refreshed, compared by periods and representations
+            DashManifest dashManifest = (DashManifest) manifest;
+            String key = DashImageThumbnailSource.getSourceKey(dashManifest);
+            if (!key.equals(thumbnailSourceKey)) {
+                thumbnailSourceKey = key;
+                engine.load(() -> DashImageThumbnailSource.create(dataSourceFactory, dashManifest, maxWidth));
+            }
+        }
+    }
+
+    /**
+     * Prop "queue": sources played after source, with gapless transitions. Items of the
+     * previous queue not played yet are removed from the playlist.
+     */
+    public void setQueueConfig(@Nullable QueueConfig config) {
+        if (Objects.equals(queueConfig, config)) {
+            return;
+        }
+        queueConfig = config;
+        queueCursor.reset();
+        if (player != null) {
+            int nextIndex = player.getCurrentMediaItemIndex() + 1;
+            if (nextIndex < player.getMediaItemCount()) {
+                player.removeMediaItems(nextIndex, player.getMediaItemCount());
+            }
+        }
+        maybeAppendQueueItem();
+        if (nowPlayingBridge != null) {
+            nowPlayingBridge.notifyQueueChanged();
+        }
+    }
+
+    /**
+     * Adds the next queue item to the playlist when the current item has less than the preload
+     * horizon left to play. Exoplayer prepares it (manifest) as soon as it is added, then gets
+     * its DRM keys and first segments once the current item is fully buffered, so the
+     * transition has no gap. Not for live streams, ads or offline playback.
+     */
+    private void maybeAppendQueueItem() {
+        if (!canAppendQueueItem() || player.getCurrentMediaItemIndex() + 1 < player.getMediaItemCount()) {
+            return;
+        }
+        long durationMs = player.getDuration();
+        if (durationMs == C.TIME_UNSET || durationMs - player.getCurrentPosition() > queueConfig.getPreloadHorizonMs()) {
+            return;
         }
+        appendQueueItem();
+    }
+
+    /** true when the player can play the next queue item after the current one */
+    private boolean canAppendQueueItem() {
+        QueueConfig config = queueConfig;
+        return config != null && player != null && !playerNeedsSource && !playOffline
+                && queueCursor.hasNext(config.getItems().size())
+                && !player.isPlayingAd() && !player.isCurrentMediaItemLive();
+    }
+
+    /**
+     * Adds the next queue item to the playlist, with its own DRM session manager when it has a
+     * drm, starting at its startPosition.
+     */
+    private void appendQueueItem() {
+        int index = queueCursor.takeNext();
+        Source item = queueConfig.getItems().get(index);
+        try {
+            QueueConfig.Drm drm = queueConfig.getDrm().get(index);
+            DrmSessionManager drmSessionManager = drm != null ? buildDrmSessionManager(drm) : getQueueDrmSessionManager();
+            if (drmSessionManager == null && (drm != null || drmUUID != null)) {
+                // The error was sent by buildDrmSessionManager
+                return;
+            }
+            MediaSource mediaSource = buildMediaSource(item, drmSessionManager, index);
+            if (item.getStartPositionMs() > 0) {
+                mediaSource = new StartPositionMediaSource(mediaSource, item.getStartPositionMs());
+            }
+            player.addMediaSource(mediaSource);
+        } catch (IllegalStateException | UnsupportedDrmException e) {
+            DebugLog.w(TAG, "cannot add queue item " + index + ": " + e.getMessage());
+        }
+    }
+
+    /** DRM session manager of the drm prop, null without drm */
+    @Nullable
+    private DrmSessionManager getQueueDrmSessionManager() throws UnsupportedDrmException {
+        if (queueDrmSessionManager == null && drmUUID != null) {
+            // Source played with the drm of a queue item
+            queueDrmSessionManager = buildDrmSessionManager(drmUUID, drmLicenseUrl, drmLicenseHeader);
+        }
+        return queueDrmSessionManager;
+    }
+
+    @Nullable
+    private DrmSessionManager buildDrmSessionManager(QueueConfig.Drm drm) throws UnsupportedDrmException {
+        UUID uuid = Util.getDrmUuid(drm.getType());
+        if (uuid == null) {
+            throw new UnsupportedDrmException(UnsupportedDrmException.REASON_UNSUPPORTED_SCHEME);
+        }
+        return buildDrmSessionManager(uuid, drm.getLicenseServer(), drm.getHeaders().toArray(new String[0]));
+    }
+
+    /** now playing "next": true when a later queue item exists, in the playlist or not yet */
+    private boolean hasNextQueueItem() {
+        return player != null && (player.hasNextMediaItem() || canAppendQueueItem());
+    }
+
+    /** now playing "next": plays the next queue item, added to the playlist first if needed */
+    private void seekToNextQueueItem() {
+        if (player == null) {
+            return;
+        }
+        if (!player.hasNextMediaItem() && canAppendQueueItem()) {
+            appendQueueItem();
+        }
+        if (player.hasNextMediaItem()) {
+            player.seekToNextMediaItem();
+        }
+    }
+
+    /**
+     * Thumbnail at this position, can be called from any thread. Null without thumbnails.
+     */
+    public void getThumbnail(long positionMs, ThumbnailEngine.Callback callback) {
+        ThumbnailEngine engine = thumbnailEngine;
+        if (engine == null) {
+            callback.onThumbnail(null);
+        } else {
+            engine.getThumbnail(positionMs, callback);
+        }
+    }
+
+    /**
+     * Prop "playbackMetricsConfig": cadence of onPlaybackMetrics.
+     */
+    public void setPlaybackMetricsConfig(PlaybackMetricsConfig config) {
+        playbackMetricsConfig = config;
+        playbackMetricsAggregator.setIntervalMs(config.getIntervalMs());
     }
 
     /**
@@ -534,22 +966,11 @@ public class ReactExoplayerView extends FrameLayout implements
      * Returns -1 when unknown so the JS consumer keeps the last known value.
      */
     private double getSelectedVideoBitrate(Format videoFormat) {
-        if (trackSelector != null && videoFormat != null
+        if (videoFormat != null
                 && videoFormat.width != Format.NO_VALUE && videoFormat.height != Format.NO_VALUE) {
-            MappingTrackSelector.MappedTrackInfo info = trackSelector.getCurrentMappedTrackInfo();
-            int index = getTrackRendererIndex(C.TRACK_TYPE_VIDEO);
-            if (info != null && index != C.INDEX_UNSET) {
-                TrackGroupArray groups = info.getTrackGroups(index);
-                for (int i = 0; i < groups.length; i++) {
-                    TrackGroup group = groups.get(i);
-                    for (int t = 0; t < group.length; t++) {
-                        Format f = group.getFormat(t);
-                        if (f.width == videoFormat.width && f.height == videoFormat.height
-                                && f.bitrate != Format.NO_VALUE) {
-                            return f.bitrate;
-                        }
-                    }
-                }
+            Integer bitrate = renditionBitrates.get(getRenditionKey(videoFormat.width, videoFormat.height));
+            if (bitrate != null) {
+                return bitrate;
             }
         }
         // Fallback to the sample format's own bitrate when present.
@@ -557,6 +978,35 @@ public class ReactExoplayerView extends FrameLayout implements
                 ? videoFormat.bitrate : -1d;
     }
 
+    private static long getRenditionKey(int width, int height) {
+        return ((long) width << 32) | (height & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Refresh the rendition bitrate table when the video track groups changed,
+     * the first rendition of a given resolution wins.
+     */
+    private void updateRenditionBitrates(TrackGroupArray groups) {
+        if (groups.equals(renditionBitrateGroups)) {
+            return;
+        }
+        renditionBitrateGroups = groups;
+        renditionBitrates.clear();
+        for (int i = 0; i < groups.length; i++) {
+            TrackGroup group = groups.get(i);
+            for (int t = 0; t < group.length; t++) {
+                Format f = group.getFormat(t);
+                if (f.width == Format.NO_VALUE || f.height == Format.NO_VALUE || f.bitrate == Format.NO_VALUE) {
+                    continue;
+                }
+                long key = getRenditionKey(f.width, f.height);
+                if (renditionBitrates.indexOfKey(key) < 0) {
+                    renditionBitrates.put(key, f.bitrate);
+                }
+            }
+        }
+    }
+
     // Internal methods
 
     /**
@@ -578,6 +1028,7 @@ public class ReactExoplayerView extends FrameLayout implements
     private void initializePlayerControl() {
         if (playerControlView == null) {
             playerControlView = new LegacyPlayerControlView(getContext());
+            playerControlView.addVisibilityListener(visibility -> updateProgressTickerRelaxed());
         }
 
         if (fullScreenPlayerView == null) {
@@ -838,71 +1289,6 @@ public class ReactExoplayerView extends FrameLayout implements
      *
      */
 
-    private class RNVLoadControl extends DefaultLoadControl {
-        private final int availableHeapInBytes;
-        private final Runtime runtime;
-        public RNVLoadControl(DefaultAllocator allocator, BufferConfig config) {
-            super(allocator,
-                    config.getMinBufferMs() != BufferConfig.Companion.getBufferConfigPropUnsetInt()
-                            ? config.getMinBufferMs()
-                            : DefaultLoadControl.DEFAULT_MIN_BUFFER_MS,
-                    config.getMaxBufferMs() != BufferConfig.Companion.getBufferConfigPropUnsetInt()
-                            ? config.getMaxBufferMs()
-                            : DefaultLoadControl.DEFAULT_MAX_BUFFER_MS,
-                    config.getBufferForPlaybackMs() != BufferConfig.Companion.getBufferConfigPropUnsetInt()
-                            ? config.getBufferForPlaybackMs()
-                            : DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_MS ,
-                    config.getBufferForPlaybackAfterRebufferMs() != BufferConfig.Companion.getBufferConfigPropUnsetInt()
-                            ? config.getBufferForPlaybackAfterRebufferMs()
-                            : DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_AFTER_REBUFFER_MS,
-                    -1,
-                    true,
-                    config.getBackBufferDurationMs() != BufferConfig.Companion.getBufferConfigPropUnsetInt()
-                            ? config.getBackBufferDurationMs()
-                            : DefaultLoadControl.DEFAULT_BACK_BUFFER_DURATION_MS,
-                    DefaultLoadControl.DEFAULT_RETAIN_BACK_BUFFER_FROM_KEYFRAME);
-            runtime = Runtime.getRuntime();
-            ActivityManager activityManager = (ActivityManager) themedReactContext.getSystemService(ThemedReactContext.ACTIVITY_SERVICE);
-            double maxHeap = config.getMaxHeapAllocationPercent() != BufferConfig.Companion.getBufferConfigPropUnsetDouble()
-                    ? bufferConfig.getMaxHeapAllocationPercent()
-                    : DEFAULT_MAX_HEAP_ALLOCATION_PERCENT;
-            availableHeapInBytes = (int) Math.floor(activityManager.getMemoryClass() * maxHeap * 1024 * 1024);
-        }
-
-        @Override
-        public boolean shouldContinueLoading(long playbackPositionUs, long bufferedDurationUs, float playbackSpeed) {
-            if (bufferingStrategy == BufferingStrategy.BufferingStrategyEnum.DisableBuffering) {
-                return false;
-            } else if (bufferingStrategy == BufferingStrategy.BufferingStrategyEnum.DependingOnMemory) {
-                // The goal of this algorithm is to pause video loading (increasing the buffer)
-                // when available memory on device become low.
-                int loadedBytes = getAllocator().getTotalBytesAllocated();
-                boolean isHeapReached = availableHeapInBytes > 0 && loadedBytes >= availableHeapInBytes;
-                if (isHeapReached) {
-                    return false;
-                }
-                long usedMemory = runtime.totalMemory() - runtime.freeMemory();
-                long freeMemory = runtime.maxMemory() - usedMemory;
-                double minBufferMemoryReservePercent = bufferConfig.getMinBufferMemoryReservePercent() != BufferConfig.Companion.getBufferConfigPropUnsetDouble()
-                        ? bufferConfig.getMinBufferMemoryReservePercent()
-                        : ReactExoplayerView.DEFAULT_MIN_BUFFER_MEMORY_RESERVE;
-                long reserveMemory = (long) minBufferMemoryReservePercent * runtime.maxMemory();
-                long bufferedMs = bufferedDurationUs / (long) 1000;
-                if (reserveMemory > freeMemory && bufferedMs > 2000) {
-                    // We don't have enough memory in reserve so we stop buffering to allow other components to use it instead
-                    return false;
-                }
-                if (runtime.freeMemory() == 0) {
-                    DebugLog.w(TAG, "Free memory reached 0, forcing garbage collection");
-                    runtime.gc();
-                    return false;
-                }
-            }
-            // "default" case or normal case for "DependingOnMemory"
-            return super.shouldContinueLoading(playbackPositionUs, bufferedDurationUs, playbackSpeed);
-        }
-    }
-
     private void initializePlayer() {
         ReactExoplayerView self = this;
         Activity activity = themedReactContext.getCurrentActivity();
@@ -974,26 +1360,48 @@ public class ReactExoplayerView extends FrameLayout implements
         mainHandler.postDelayed(mainRunnable, 1);
     }
 
+    /**
+     * Can be called from any thread, reads the playback snapshot and not the player.
+     */
     public void getCurrentPosition(Promise promise) {
-        if (player != null) {
-            double currentPosition = player.getCurrentPosition() / 1000;
+        PlaybackSnapshot snapshot = playbackSnapshot;
+        if (!snapshot.isEmpty()) {
+            double currentPosition = snapshot.getPositionMs() / 1000;
             promise.resolve(currentPosition);
         } else {
             promise.reject("PLAYER_NOT_AVAILABLE", "Player is not initialized.");
         }
     }
 
+    /**
+     * ABR decision log, called on the playback thread when the video rendition changes.
+     */
+    private void onAbrDecision(AbrDecision decision) {
+        DebugLog.d(TAG, "ABR " + decision.algorithm + " (" + decision.reason + "): "
+                + decision.previousBitrate + " -> " + decision.bitrate
+                + " estimate " + decision.bitrateEstimate + " buffer " + decision.bufferedDurationMs + "ms");
+        mainHandler.post(() -> eventEmitter.abrDecision(decision.algorithm, decision.reason,
+                decision.previousBitrate, decision.bitrate, decision.width, decision.height,
+                decision.bitrateEstimate, decision.bufferedDurationMs, decision.switchCount));
+    }
+
     private void initializePlayerCore(ReactExoplayerView self) {
-        ExoTrackSelection.Factory videoTrackSelectionFactory = new AdaptiveTrackSelection.Factory();
-        self.trackSelector = new DefaultTrackSelector(getContext(), videoTrackSelectionFactory);
-        self.trackSelector.setParameters(trackSelector.buildUponParameters()
-                .setMaxVideoBitrate(maxBitRate == 0 ? Integer.MAX_VALUE : maxBitRate));
+        abrTrackSelectionFactory = new AbrTrackSelectionFactory(this::onAbrDecision);
+        abrTrackSelectionFactory.setAbrConfig(source.getAbrConfig());
+        self.trackSelector = new DefaultTrackSelector(getContext(), abrTrackSelectionFactory);
+        self.trackSelector.setParameters(setViewportParameters(trackSelector.buildUponParameters())
+                .setMaxVideoBitrate(maxBitRate == 0 ? Integer.MAX_VALUE : maxBitRate)
+                .setMaxVideoSize(Integer.MAX_VALUE, decoderPerformanceController.getMaxHeight())
+                .setMaxVideoFrameRate(decoderPerformanceController.getMaxFrameRate()));
 
         DefaultAllocator allocator = new DefaultAllocator(true, C.DEFAULT_BUFFER_SEGMENT_SIZE);
-        RNVLoadControl loadControl = new RNVLoadControl(
+        loadControl = new ReactExoplayerLoadControl(
+                getContext(),
                 allocator,
-                bufferConfig
+                bufferConfig,
+                bufferingStrategy
         );
+        livePlaybackSpeedControl = new ReactExoplayerLivePlaybackSpeedControl(bufferConfig.getLive());
         DefaultRenderersFactory renderersFactory =
                 new DefaultRenderersFactory(getContext())
                         .setExtensionRendererMode(DefaultRenderersFactory.EXTENSION_RENDERER_MODE_OFF)
@@ -1020,7 +1428,9 @@ public class ReactExoplayerView extends FrameLayout implements
                 .build();
         DefaultMediaSourceFactory mediaSourceFactory = new DefaultMediaSourceFactory(mediaDataSourceFactory);
         if (useCache) {
-            mediaSourceFactory.setDataSourceFactory(RNVSimpleCache.INSTANCE.getCacheFactory(buildHttpDataSourceFactory(true)));
+            mediaSourceFactory.setDataSourceFactory(
+                    requestHeaderProvider.wrap(RNVSimpleCache.INSTANCE.getCacheFactory(
+                            buildHttpDataSourceFactory(true, getWrappedRequestHeaders()))));
         }
 
         if (adsLoader != null) {
@@ -1033,6 +1443,7 @@ public class ReactExoplayerView extends FrameLayout implements
                     .setTrackSelector(self.trackSelector)
                     .setBandwidthMeter(bandwidthMeter)
                     .setLoadControl(loadControl)
+                    .setLivePlaybackSpeedControl(livePlaybackSpeedControl)
                     .setMediaSourceFactory(mediaSourceFactory)
                     .build();
         } else {
@@ -1040,6 +1451,7 @@ public class ReactExoplayerView extends FrameLayout implements
                     .setTrackSelector(self.trackSelector)
                     .setBandwidthMeter(bandwidthMeter)
                     .setLoadControl(loadControl)
+                    .setLivePlaybackSpeedControl(livePlaybackSpeedControl)
                     //.setMediaSourceFactory(mediaSourceFactory)
                     .build();
         }
@@ -1047,6 +1459,9 @@ public class ReactExoplayerView extends FrameLayout implements
 
         refreshDebugState();
         player.addListener(self);
+        if (scrubbing) {
+            player.setSeekParameters(SeekParameters.CLOSEST_SYNC);
+        }
         // PLAYER-195: reset QoE accumulators and subscribe a dropped-frames listener for the
         // lifetime of this player instance (independent of the debug EventLogger).
         totalBytesTransferred = 0;
@@ -1058,8 +1473,11 @@ public class ReactExoplayerView extends FrameLayout implements
             }
         };
         player.addAnalyticsListener(playbackMetricsAnalyticsListener);
+        playbackMetricsAggregator.start();
+        decoderPerformanceController.start(player);
         player.setVolume(muted ? 0.f : audioVolume * 1);
         exoPlayerView.setPlayer(player);
+        sideLoadedSubtitles.setPlayer(player);
         if (adsLoader != null) {
             adsLoader.setPlayer(player);
         }
@@ -1105,7 +1523,7 @@ public class ReactExoplayerView extends FrameLayout implements
     private DrmSessionManager initializePlayerDrm(ReactExoplayerView self) {
         DrmSessionManager drmSessionManager = null;
 
-        if (self.drmUUID != null) {
+        if (self.drmUUID != null || sourceDrm != null) {
             try {
 
                 /*
@@ -1162,8 +1580,9 @@ public class ReactExoplayerView extends FrameLayout implements
                  * End
                  */
 
-                drmSessionManager = self.buildDrmSessionManager(self.drmUUID, self.drmLicenseUrl,
-                        self.drmLicenseHeader);
+                // Source may be a queue item with its own drm
+                drmSessionManager = sourceDrm != null ? buildDrmSessionManager(sourceDrm)
+                        : self.buildDrmSessionManager(self.drmUUID, self.drmLicenseUrl, self.drmLicenseHeader);
 
             } catch (UnsupportedDrmException e) {
                 int errorStringId = Util.SDK_INT < 18 ? R.string.error_drm_not_supported
@@ -1204,7 +1623,7 @@ public class ReactExoplayerView extends FrameLayout implements
          */
 
 
-        if (drmSessionManager == null && drmUUID != null) {
+        if (drmSessionManager == null && (drmUUID != null || sourceDrm != null)) {
             if (playOffline) {
                 // Offline playback: DRM initialization is deferred until offline keys are restored.
                 // onOfflineLicenseAcquired() will call initializePlayerSource(mDrmSessionManager)
@@ -1218,8 +1637,9 @@ public class ReactExoplayerView extends FrameLayout implements
             return;
         }
 
-        ArrayList<MediaSource> mediaSourceList = buildTextSources();
-        MediaSource videoSource = buildMediaSource(source.getUri(), source.getExtension(), drmSessionManager, source.getCropStartMs(), source.getCropEndMs());
+        // The drm prop one, unless source is a queue item with its own drm
+        queueDrmSessionManager = sourceDrm == null ? drmSessionManager : null;
+        MediaSource videoSource = buildMediaSource(source, drmSessionManager, null);
         if (videoSource == null) {
             if (playOffline) {
                 DebugLog.e(TAG, "buildMediaSource returned null for offline playback - download request not found in tracker for URI: " + source.getUri());
@@ -1242,24 +1662,8 @@ public class ReactExoplayerView extends FrameLayout implements
                 adsLoader = null;
             }
         }
-        MediaSource mediaSource;
-        if (mediaSourceList.isEmpty()) {
-            if (mediaSourceWithAds != null) {
-                mediaSource = mediaSourceWithAds;
-            } else {
-                mediaSource = videoSource;
-            }
-        } else {
-            if (mediaSourceWithAds != null) {
-                mediaSourceList.add(0, mediaSourceWithAds);
-            } else {
-                mediaSourceList.add(0, videoSource);
-            }
-            MediaSource[] textSourceArray = mediaSourceList.toArray(
-                    new MediaSource[mediaSourceList.size()]
-            );
-            mediaSource = new MergingMediaSource(textSourceArray);
-        }
+        // Side-loaded text tracks are not part of the source, see sideLoadedSubtitles
+        MediaSource mediaSource = mediaSourceWithAds != null ? mediaSourceWithAds : videoSource;
 
         // wait for player to be set
         while (player == null) {
@@ -1304,7 +1708,19 @@ public class ReactExoplayerView extends FrameLayout implements
             return;
         }
 
-        nowPlayingBridge = new NowPlayingBridge(player);
+        nowPlayingBridge = new NowPlayingBridge(player, new NowPlayingBridge.QueueNavigator() {
+            @Override
+            public boolean hasNextQueueItem() {
+                return ReactExoplayerView.this.hasNextQueueItem();
+            }
+
+            @Override
+            public void seekToNextQueueItem() {
+                ReactExoplayerView.this.seekToNextQueueItem();
+            }
+        });
+        // The media item may have been built with older metadata
+        nowPlayingBridge.setMetadata(customMetadata);
         nowPlayingBridge.register(themedReactContext);
     }
 
@@ -1392,29 +1808,31 @@ public class ReactExoplayerView extends FrameLayout implements
      *
      */
 
-    private MediaSource buildMediaSource(Uri uri, String overrideExtension, DrmSessionManager drmSessionManager, long cropStartMs, long cropEndMs) {
+    /**
+     * @param tag media item tag, the index of the item in the queue (null for source)
+     */
+    private MediaSource buildMediaSource(Source item, DrmSessionManager drmSessionManager, @Nullable Object tag) {
+        Uri uri = item.getUri();
         if (uri == null) {
             throw new IllegalStateException("Invalid video uri");
         }
-        int type;
-        if ("rtsp".equals(overrideExtension)) {
-            type = CONTENT_TYPE_RTSP;
-        } else {
-            type = Util.inferContentType(!TextUtils.isEmpty(overrideExtension) ? "." + overrideExtension
-                    : uri.getLastPathSegment());
-        }
+        int type = inferContentType(uri, item.getExtension());
+        long cropStartMs = item.getCropStartMs();
+        long cropEndMs = item.getCropEndMs();
         config.setDisableDisconnectError(this.disableDisconnectError);
 
         MediaItem.Builder mediaItemBuilder = new MediaItem.Builder()
-                .setUri(uri);
+                .setUri(uri)
+                .setTag(tag);
 
         // refresh custom Metadata
-        MediaMetadata customMetadata = ConfigurationUtils.buildCustomMetadata(source.getMetadata());
+        MediaMetadata customMetadata = ConfigurationUtils.buildCustomMetadata(item.getMetadata());
         if (customMetadata != null) {
             mediaItemBuilder.setMediaMetadata(customMetadata);
         }
 
-        if (adTagUrl != null) {
+        // Ads are only played with source
+        if (adTagUrl != null && item == source) {
             mediaItemBuilder.setAdsConfiguration(
                     new MediaItem.AdsConfiguration.Builder(adTagUrl).build()
             );
@@ -1498,7 +1916,9 @@ public class ReactExoplayerView extends FrameLayout implements
                         );
                     } else {
                         mediaSourceFactory = new ProgressiveMediaSource.Factory(
-                                RNVSimpleCache.INSTANCE.getCacheFactory(buildHttpDataSourceFactory(true))
+                                requestHeaderProvider.wrap(
+                                        RNVSimpleCache.INSTANCE.getCacheFactory(
+                                                buildHttpDataSourceFactory(true, getWrappedRequestHeaders())))
                         );
 
                     }
@@ -1538,32 +1958,25 @@ public class ReactExoplayerView extends FrameLayout implements
         return mediaSource;
     }
 
-    private ArrayList<MediaSource> buildTextSources() {
-        ArrayList<MediaSource> textSources = new ArrayList<>();
-        if (textTracks == null) {
-            return textSources;
-        }
-
-        for (SideLoadedTextTrack track : textTracks.getTracks()) {
-            MediaSource textSource = buildTextSource(track.getTitle(),
-                    track.getUri(),
-                    track.getType(),
-                    track.getLanguage());
-            textSources.add(textSource);
+    private static int inferContentType(Uri uri, String overrideExtension) {
+        if ("rtsp".equals(overrideExtension)) {
+            return CONTENT_TYPE_RTSP;
         }
-        return textSources;
+        return Util.inferContentType(!TextUtils.isEmpty(overrideExtension) ? "." + overrideExtension
+                : uri.getLastPathSegment());
     }
 
-    private MediaSource buildTextSource(String title, Uri uri, String mimeType, String language) {
-        MediaItem.SubtitleConfiguration subtitleConfiguration = new MediaItem.SubtitleConfiguration.Builder(uri)
-                .setMimeType(mimeType)
-                .setLanguage(language)
-                .setSelectionFlags(C.SELECTION_FLAG_DEFAULT)
-                .setRoleFlags(C.ROLE_FLAG_SUBTITLE)
-                .setLabel(title)
-                .build();
-        return new SingleSampleMediaSource.Factory(mediaDataSourceFactory)
-                .createMediaSource(subtitleConfiguration, C.TIME_UNSET);
+    /**
+     * The cache is only plugged into progressive network sources (see buildMediaSource),
+     * so toggling it only matters for those.
+     */
+    private boolean isCacheableSource() {
+        Uri uri = source.getUri();
+        return uri != null
+                && !playOffline
+                && inferContentType(uri, source.getExtension()) == CONTENT_TYPE_OTHER
+                && !"asset".equals(uri.getScheme())
+                && !"file".equals(uri.getScheme());
     }
 
     private void releasePlayer() {
@@ -1582,19 +1995,47 @@ public class ReactExoplayerView extends FrameLayout implements
                 player.removeAnalyticsListener(playbackMetricsAnalyticsListener);
                 playbackMetricsAnalyticsListener = null;
             }
+            playbackMetricsAggregator.stop();
+            decoderPerformanceController.stop();
+            isVideoDisabledForBackground = false;
             player.release();
             player.removeListener(this);
             trackSelector = null;
+            sideLoadedSubtitles.setPlayer(null);
+            queueDrmSessionManager = null;
+            // The next queue item is added again to the new player
+            queueCursor.onPlayerReleased();
+            lastReportedCappedBitrate = -1;
+            seekInFlight = false;
+            pendingSeekPositionMs = C.TIME_UNSET;
+            lastScrubbingTargetMs = C.TIME_UNSET;
+            if (thumbnailEngine != null) {
+                thumbnailEngine.clear();
+            }
+            thumbnailSourceKey = null;
+            lastReportedUncappedBitrate = -1;
+            audioTrackListCache.reset();
+            textTrackListCache.reset();
+            videoTrackListCache.reset();
+            codecPreferenceResult = CodecPreferencePolicy.NONE;
+            trackCatalogues.clear();
+            renditionBitrates.clear();
+            renditionBitrateGroups = null;
+            rendererIndexes.clear();
+            abrTrackSelectionFactory = null;
+            loadControl = null;
+            livePlaybackSpeedControl = null;
 
             player = null;
         }
+        playbackSnapshot = PlaybackSnapshot.EMPTY;
 
         if (adsLoader != null) {
             adsLoader.release();
         }
         adsLoader = null;
         isAdCurrentlyActive = false;
-        progressHandler.removeMessages(SHOW_PROGRESS);
+        progressTicker.setReady(false);
         audioBecomingNoisyReceiver.removeListener();
         bandwidthMeter.removeEventListener(this);
 
@@ -1729,8 +2170,18 @@ public class ReactExoplayerView extends FrameLayout implements
      * @return A new DataSource factory.
      */
     private DataSource.Factory buildDataSourceFactory(boolean useBandwidthMeter) {
-        return DataSourceUtil.getDefaultDataSourceFactory(this.themedReactContext,
-                useBandwidthMeter ? bandwidthMeter : null, source.getHeaders());
+        return requestHeaderProvider.wrap(DataSourceUtil.getDefaultDataSourceFactory(this.themedReactContext,
+                useBandwidthMeter ? bandwidthMeter : null, getWrappedRequestHeaders()));
+    }
+
+    /**
+     * Headers of the factories wrapped by requestHeaderProvider: only the User-Agent, the
+     * source headers are added by the provider so that updateRequestHeaders can remove them.
+     */
+    private Map<String, String> getWrappedRequestHeaders() {
+        String userAgent = source.getHeaders().get("User-Agent");
+        return Collections.singletonMap("User-Agent",
+                userAgent != null ? userAgent : DataSourceUtil.getUserAgent(this.themedReactContext));
     }
 
     /**
@@ -1741,7 +2192,11 @@ public class ReactExoplayerView extends FrameLayout implements
      * @return A new HttpDataSource factory.
      */
     private HttpDataSource.Factory buildHttpDataSourceFactory(boolean useBandwidthMeter) {
-        return DataSourceUtil.getDefaultHttpDataSourceFactory(this.themedReactContext, useBandwidthMeter ? bandwidthMeter : null, source.getHeaders());
+        return buildHttpDataSourceFactory(useBandwidthMeter, source.getHeaders());
+    }
+
+    private HttpDataSource.Factory buildHttpDataSourceFactory(boolean useBandwidthMeter, Map<String, String> headers) {
+        return DataSourceUtil.getDefaultHttpDataSourceFactory(this.themedReactContext, useBandwidthMeter ? bandwidthMeter : null, headers);
     }
 
     /*
@@ -1788,6 +2243,14 @@ public class ReactExoplayerView extends FrameLayout implements
 
     @Override
     public void onEvents(@NonNull Player player, Player.Events events) {
+        updatePlaybackSnapshot();
+        if (nowPlayingBridge != null && events.containsAny(Player.EVENT_TIMELINE_CHANGED,
+                Player.EVENT_MEDIA_ITEM_TRANSITION, Player.EVENT_AVAILABLE_COMMANDS_CHANGED)) {
+            nowPlayingBridge.notifyQueueChanged();
+        }
+        if (events.contains(Player.EVENT_PLAYBACK_STATE_CHANGED) && player.getPlaybackState() != Player.STATE_BUFFERING) {
+            onScrubbingSeekDone();
+        }
         if (events.contains(Player.EVENT_PLAYBACK_STATE_CHANGED) || events.contains(Player.EVENT_PLAY_WHEN_READY_CHANGED)) {
             int playbackState = player.getPlaybackState();
             boolean playWhenReady = player.getPlayWhenReady();
@@ -1841,16 +2304,40 @@ public class ReactExoplayerView extends FrameLayout implements
     }
 
     private void startProgressHandler() {
-        progressHandler.sendEmptyMessage(SHOW_PROGRESS);
+        progressTicker.setReady(true);
     }
 
     /**
-     *  The progress message handler will duplicate recursions of the onProgressMessage handler
-     *  on change of player state from any state to STATE_READY with playWhenReady is true (when
-     *  the video is not paused). This clears all existing messages.
+     *  Stop the progress ticks until the player is ready again.
      */
     private void clearProgressMessageHandler() {
-        progressHandler.removeMessages(SHOW_PROGRESS);
+        progressTicker.setReady(false);
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateFrameClock();
+    }
+
+    /**
+     * Display frames stop in background with the screen off and while the view is detached or
+     * hidden: frame driven work falls back to the main handler then.
+     */
+    private void updateFrameClock() {
+        boolean available = !isInBackground && isAttachedToWindow() && getWindowVisibility() == View.VISIBLE;
+        eventEmitter.setFrameClockAvailable(available);
+        progressTicker.setFrameClockAvailable(available);
+    }
+
+    /**
+     * The progress is watched less closely in Picture-in-Picture, in background, or when the
+     * native controls are enabled but hidden.
+     */
+    private void updateProgressTickerRelaxed() {
+        boolean controlsHidden = controls && playerControlView != null
+                && playerControlView.getVisibility() != View.VISIBLE;
+        progressTicker.setRelaxed(isInBackground || pictureInPictureManager.isInPictureInPictureMode() || controlsHidden);
     }
 
     private void videoLoaded() {
@@ -1865,6 +2352,10 @@ public class ReactExoplayerView extends FrameLayout implements
             if (textTrackType != null) {
                 setSelectedTextTrack(textTrackType, textTrackValue);
             }
+            if (this.contentStartTime == -1L && !eventEmitter.hasLoadListener()) {
+                // Nobody listens to onLoad, don't build the track lists
+                return;
+            }
             Format videoFormat = player.getVideoFormat();
             boolean isRotatedContent = videoFormat != null && (videoFormat.rotationDegrees == 90 || videoFormat.rotationDegrees == 270);
             int width = videoFormat != null ? (isRotatedContent ? videoFormat.height : videoFormat.width) : 0;
@@ -2068,6 +2559,18 @@ public class ReactExoplayerView extends FrameLayout implements
             Track textTrack = exoplayerTrackToGenericTrack(format, i, selection, group);
             textTracks.add(textTrack);
         }
+        // Side-loaded tracks follow the stream ones
+        List<SideLoadedTextTrack> sideLoadedTracks = sideLoadedSubtitles.getTracks();
+        for (int i = 0; i < sideLoadedTracks.size(); i++) {
+            SideLoadedTextTrack sideLoadedTrack = sideLoadedTracks.get(i);
+            Track textTrack = new Track();
+            textTrack.setIndex(groups.length + i);
+            textTrack.setMimeType(sideLoadedTrack.getType());
+            textTrack.setLanguage(sideLoadedTrack.getLanguage());
+            textTrack.setTitle(sideLoadedTrack.getTitle());
+            textTrack.setSelected(i == sideLoadedSubtitles.getSelectedIndex());
+            textTracks.add(textTrack);
+        }
         return textTracks;
     }
 
@@ -2082,9 +2585,13 @@ public class ReactExoplayerView extends FrameLayout implements
 
     @Override
     public void onPositionDiscontinuity(@NonNull Player.PositionInfo oldPosition, @NonNull Player.PositionInfo newPosition, @Player.DiscontinuityReason int reason) {
+        updatePlaybackSnapshot();
+        sideLoadedSubtitles.onPositionDiscontinuity();
         if (reason == Player.DISCONTINUITY_REASON_SEEK) {
             eventEmitter.seek(player.getCurrentPosition(), newPosition.positionMs % 1000); // time are in seconds /°\
-            if (isUsingContentResolution) {
+            // The progress ticks are stopped while paused, tell the new position
+            updateProgress();
+            if (isUsingContentResolution && !scrubbing) {
                 // We need to update the selected track to make sure that it still matches user selection if track list has changed in this period
                 setSelectedTrack(C.TRACK_TYPE_VIDEO, videoTrackType, videoTrackValue);
             }
@@ -2096,7 +2603,7 @@ public class ReactExoplayerView extends FrameLayout implements
             // which they seeked.
             updateResumePosition();
         }
-        if (isUsingContentResolution) {
+        if (isUsingContentResolution && !scrubbing) {
             // Discontinuity events might have a different track list so we update the selected track
             setSelectedTrack(C.TRACK_TYPE_VIDEO, videoTrackType, videoTrackValue);
             selectTrackWhenReady = true;
@@ -2112,14 +2619,109 @@ public class ReactExoplayerView extends FrameLayout implements
 
     @Override
     public void onTimelineChanged(@NonNull Timeline timeline, int reason) {
-        // Do nothing.
+        // The manifest comes with the timeline
+        updateThumbnailSource();
+    }
+
+    @Override
+    public void onMediaItemTransition(@Nullable MediaItem mediaItem, int reason) {
+        if (player == null || queueConfig == null || mediaItem == null || mediaItem.localConfiguration == null
+                || !(mediaItem.localConfiguration.tag instanceof Integer)) {
+            return;
+        }
+        int index = (Integer) mediaItem.localConfiguration.tag;
+        if (!queueCursor.onItemStarted(index, queueConfig.getItems().size())) {
+            return;
+        }
+        Source item = queueConfig.getItems().get(index);
+        sourceDrm = queueConfig.getDrm().get(index);
+        // Side-loaded text tracks were the ones of the previous item
+        textTracks = null;
+        sideLoadedSubtitles.setTracks(Collections.emptyList());
+        sideLoadedSubtitles.select(C.INDEX_UNSET);
+        // The item becomes the source: a re-initialization plays it, and setting it as src
+        // afterwards keeps playing
+        source = item;
+        customMetadata = ConfigurationUtils.buildCustomMetadata(item.getMetadata());
+        if (nowPlayingBridge != null) {
+            nowPlayingBridge.setMetadata(customMetadata);
+        }
+        if (abrTrackSelectionFactory != null) {
+            abrTrackSelectionFactory.setAbrConfig(item.getAbrConfig());
+        }
+        // Done with the previous items
+        int currentIndex = player.getCurrentMediaItemIndex();
+        if (currentIndex > 0) {
+            player.removeMediaItems(0, currentIndex);
+        }
+        updateThumbnailSource();
+        eventEmitter.queueItemChange(index, item.getId(), String.valueOf(item.getUri()),
+                reason == Player.MEDIA_ITEM_TRANSITION_REASON_AUTO ? "auto" : "seek");
+        // onLoad of the new item, right away when the transition was gapless
+        eventEmitter.loadStart();
+        loadVideoStarted = true;
+        if (player.getPlaybackState() == Player.STATE_READY) {
+            videoLoaded();
+        }
     }
 
     @Override
     public void onTracksChanged(@NonNull Tracks tracks) {
-        eventEmitter.textTracks(getTextTrackInfo());
-        eventEmitter.audioTracks(getAudioTrackInfo());
-        eventEmitter.videoTracks(getVideoTrackInfo());
+        if (eventEmitter.hasTextTracksListener()) {
+            TrackGroupArray textGroups = getRendererTrackGroups(C.TRACK_TYPE_TEXT);
+            // getTextTrackInfo reads the selection at index C.TRACK_TYPE_VIDEO, keep the same key
+            if (textTrackListCache.update(textGroups, getSelectedGroupsMask(textGroups, C.TRACK_TYPE_VIDEO),
+                    this::getTextTrackInfo)) {
+                eventEmitter.textTracks(textTrackListCache.getTracks());
+            }
+        }
+        if (eventEmitter.hasAudioTracksListener()) {
+            TrackGroupArray audioGroups = getRendererTrackGroups(C.TRACK_TYPE_AUDIO);
+            if (audioTrackListCache.update(audioGroups, getSelectedGroupsMask(audioGroups, C.TRACK_TYPE_AUDIO),
+                    this::getAudioTrackInfo)) {
+                eventEmitter.audioTracks(audioTrackListCache.getTracks());
+            }
+        }
+        TrackGroupArray videoGroups = getRendererTrackGroups(C.TRACK_TYPE_VIDEO);
+        updateRenditionBitrates(videoGroups);
+        // Video tracks don't carry a selected flag. The cache also tells when the groups change
+        // for the codec ranking, so it is kept up to date with an empty list without listener.
+        if (videoTrackListCache.update(videoGroups, 0,
+                eventEmitter.hasVideoTracksListener() ? this::getVideoTrackInfo : ArrayList::new)) {
+            updateCodecPreference(videoGroups);
+            eventEmitter.videoTracks(videoTrackListCache.getTracks(),
+                    codecPreferenceResult.codec, codecPreferenceResult.reason);
+        }
+        reportViewportCap(ViewportController.TRIGGER_LAYOUT);
+    }
+
+    private TrackGroupArray getRendererTrackGroups(int trackType) {
+        if (trackSelector == null) {
+            return TrackGroupArray.EMPTY;
+        }
+        MappingTrackSelector.MappedTrackInfo info = trackSelector.getCurrentMappedTrackInfo();
+        int index = getTrackRendererIndex(trackType);
+        if (info == null || index == C.INDEX_UNSET) {
+            return TrackGroupArray.EMPTY;
+        }
+        return info.getTrackGroups(index);
+    }
+
+    /**
+     * Bit i is set when group i is reported as selected, same rule as exoplayerTrackToGenericTrack.
+     */
+    private long getSelectedGroupsMask(TrackGroupArray groups, int selectionIndex) {
+        if (player == null) {
+            return 0;
+        }
+        TrackSelection selection = player.getCurrentTrackSelections().get(selectionIndex);
+        long mask = 0;
+        for (int i = 0; i < groups.length && i < Long.SIZE; i++) {
+            if (isTrackSelected(selection, groups.get(i), 0)) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
     }
 
     @Override
@@ -2127,6 +2729,11 @@ public class ReactExoplayerView extends FrameLayout implements
         eventEmitter.playbackRateChange(params.speed);
     }
 
+    @Override
+    public void onRenderedFirstFrame() {
+        onScrubbingSeekDone();
+    }
+
     @Override
     public void onVolumeChanged(float volume) {
         eventEmitter.volumeChange(volume);
@@ -2135,6 +2742,7 @@ public class ReactExoplayerView extends FrameLayout implements
     @Override
     public void onIsPlayingChanged(boolean isPlaying) {
         eventEmitter.playbackStateChanged(isPlaying);
+        progressTicker.setPlaying(isPlaying);
         if (enterPictureInPictureOnLeave) {
             // Only auto-enter PiP while actually playing (parity with iOS)
             updatePictureInPictureAutoEnter();
@@ -2179,19 +2787,30 @@ public class ReactExoplayerView extends FrameLayout implements
     }
 
     public int getTrackRendererIndex(int trackType) {
-        if (player != null) {
-            int rendererCount = player.getRendererCount();
-            for (int rendererIndex = 0; rendererIndex < rendererCount; rendererIndex++) {
-                if (player.getRendererType(rendererIndex) == trackType) {
-                    return rendererIndex;
-                }
+        if (player == null) {
+            return C.INDEX_UNSET;
+        }
+        int cachedIndex = rendererIndexes.get(trackType, Integer.MIN_VALUE);
+        if (cachedIndex != Integer.MIN_VALUE) {
+            return cachedIndex;
+        }
+        int index = C.INDEX_UNSET;
+        int rendererCount = player.getRendererCount();
+        for (int rendererIndex = 0; rendererIndex < rendererCount; rendererIndex++) {
+            if (player.getRendererType(rendererIndex) == trackType) {
+                index = rendererIndex;
+                break;
             }
         }
-        return C.INDEX_UNSET;
+        rendererIndexes.put(trackType, index);
+        return index;
     }
 
     @Override
     public void onMetadata(@NonNull Metadata metadata) {
+        if (!eventEmitter.hasTimedMetadataListener()) {
+            return;
+        }
         ArrayList<TimedMetadata> metadataArray = new ArrayList<>();
         for (int i = 0; i < metadata.length(); i++) {
             Metadata.Entry entry = metadata.get(i);
@@ -2219,7 +2838,7 @@ public class ReactExoplayerView extends FrameLayout implements
     }
 
     public void onCues(CueGroup cueGroup) {
-        if (!cueGroup.cues.isEmpty() && cueGroup.cues.get(0).text != null) {
+        if (eventEmitter.hasTextTrackDataListener() && !cueGroup.cues.isEmpty() && cueGroup.cues.get(0).text != null) {
             String subtitleText = cueGroup.cues.get(0).text.toString();
             eventEmitter.textTrackDataChanged(subtitleText);
         }
@@ -2231,27 +2850,38 @@ public class ReactExoplayerView extends FrameLayout implements
         if (source.getUri() != null) {
             clearResumePosition();
             boolean isSourceEqual = source.isEquals(this.source);
+            boolean areHeadersEqual = isSourceEqual && source.getHeaders().equals(this.source.getHeaders());
             hasDrmFailed = false;
             this.source = source;
-            this.mediaDataSourceFactory =
+            if (abrTrackSelectionFactory != null) {
+                // picked up by the next track selection, i.e. when the new source is prepared
+                abrTrackSelectionFactory.setAbrConfig(source.getAbrConfig());
+            }
+            // Headers changes alone don't make a new source, running data sources pick them up.
+            // The headers of updateRequestHeaders are kept while the source and its own
+            // headers don't change, a new render of the same source doesn't drop them.
+            if (!areHeadersEqual) {
+                requestHeaderProvider.setHeaders(source.getHeaders());
+            }
+            this.mediaDataSourceFactory = requestHeaderProvider.wrap(
                     DataSourceUtil.getDefaultDataSourceFactory(this.themedReactContext, bandwidthMeter,
-                            source.getHeaders());
+                            getWrappedRequestHeaders()));
+            sideLoadedSubtitles.setDataSourceFactory(mediaDataSourceFactory);
 
             // refresh custom Metadata
             MediaMetadata newCustomMetadata = ConfigurationUtils.buildCustomMetadata(source.getMetadata());
 
-            // Apply custom metadata is possible
-            if (player != null && !Util.areEqual(newCustomMetadata, customMetadata)) {
-                customMetadata = newCustomMetadata;
-                MediaItem currentMediaItem = player.getCurrentMediaItem();
-                if (currentMediaItem != null) {
-                    MediaItem newMediaItem = currentMediaItem.buildUpon().setMediaMetadata(customMetadata).build();
-                    // This will cause video blink/reload but won't louse progress
-                    player.setMediaItem(newMediaItem, false);
-                }
+            // The playing media item is kept, only the now playing info is updated. A new
+            // source gets the metadata in its media item, and the override too: the bridge
+            // outlives the source change when the player is reused.
+            customMetadata = newCustomMetadata;
+            if (nowPlayingBridge != null) {
+                nowPlayingBridge.setMetadata(customMetadata);
             }
             if (!isSourceEqual) {
-                //reloadSource();
+                // The queue follows the new source
+                queueCursor.reset();
+                sourceDrm = null;
                 playerNeedsSource = true;
                 initializePlayer();
             }
@@ -2269,12 +2899,29 @@ public class ReactExoplayerView extends FrameLayout implements
             }
             this.source = new Source();
             this.mediaDataSourceFactory = null;
+            sideLoadedSubtitles.setDataSourceFactory(null);
             clearResumePosition();
         }
     }
 
     public void setProgressUpdateInterval(final float progressUpdateInterval) {
         mProgressUpdateInterval = progressUpdateInterval;
+        progressTicker.setIntervalMs(Math.round(progressUpdateInterval));
+    }
+
+    /**
+     * Prop "relaxedProgressUpdateInterval": onProgress interval (ms) used in background,
+     * Picture-in-Picture or while the native controls are hidden, 0 to keep progressUpdateInterval.
+     */
+    public void setRelaxedProgressUpdateInterval(final float relaxedProgressUpdateInterval) {
+        progressTicker.setRelaxedIntervalMs(Math.round(relaxedProgressUpdateInterval));
+    }
+
+    /**
+     * Progress events not sent compared to one every progressUpdateInterval.
+     */
+    public void getSuppressedProgressTicks(Promise promise) {
+        promise.resolve((double) progressTicker.getSuppressedTicks());
     }
 
     public void setReportBandwidth(boolean reportBandwidth) {
@@ -2289,14 +2936,15 @@ public class ReactExoplayerView extends FrameLayout implements
         adLanguage = language;
     }
 
+    /**
+     * Side-loaded tracks are rendered by sideLoadedSubtitles, changing them doesn't touch the
+     * source: the selection is applied again and the track list sent.
+     */
     public void setTextTracks(SideLoadedTextTrackList textTracks) {
         this.textTracks = textTracks;
-        reloadSource(); // FIXME Shall be moved inside source
-    }
-
-    private void reloadSource() {
-        playerNeedsSource = true;
-        initializePlayer();
+        sideLoadedSubtitles.setTracks(textTracks != null ? textTracks.getTracks() : Collections.emptyList());
+        setSelectedTextTrack(textTrackType, textTrackValue);
+        sendTextTracks();
     }
 
     public void setResizeModeModifier(@ResizeMode.Mode int resizeMode) {
@@ -2342,7 +2990,8 @@ public class ReactExoplayerView extends FrameLayout implements
             return;
         }
 
-        TrackGroupArray groups = info.getTrackGroups(rendererIndex);
+        TrackCatalogue catalogue = getTrackCatalogue(trackType, info.getTrackGroups(rendererIndex));
+        TrackGroupArray groups = catalogue.getGroups();
         int groupIndex = C.INDEX_UNSET;
         List<Integer> tracks = new ArrayList<>();
         tracks.add(0);
@@ -2352,24 +3001,16 @@ public class ReactExoplayerView extends FrameLayout implements
         }
 
         if ("disabled".equals(type)) {
+            if (trackType == C.TRACK_TYPE_VIDEO) {
+                // Disabled on purpose now, not to be restored when back in foreground
+                isVideoDisabledForBackground = false;
+            }
             disableTrack(rendererIndex);
             return;
         } else if ("language".equals(type)) {
-            for (int i = 0; i < groups.length; ++i) {
-                Format format = groups.get(i).getFormat(0);
-                if (format.language != null && format.language.equals(value)) {
-                    groupIndex = i;
-                    break;
-                }
-            }
+            groupIndex = catalogue.findGroupByLanguage(value);
         } else if ("title".equals(type)) {
-            for (int i = 0; i < groups.length; ++i) {
-                Format format = groups.get(i).getFormat(0);
-                if (format.id != null && format.id.equals(value)) {
-                    groupIndex = i;
-                    break;
-                }
-            }
+            groupIndex = catalogue.findGroupById(value);
         } else if ("index".equals(type)) {
             int iValue = Integer.parseInt(value);
 
@@ -2383,92 +3024,39 @@ public class ReactExoplayerView extends FrameLayout implements
             }
         } else if ("resolution".equals(type)) {
             int height = Integer.parseInt(value);
-            for (int i = 0; i < groups.length; ++i) { // Search for the exact height
-                TrackGroup group = groups.get(i);
-                Format closestFormat = null;
-                int closestTrackIndex = -1;
-                boolean usingExactMatch = false;
-                for (int j = 0; j < group.length; j++) {
-                    Format format = group.getFormat(j);
-                    if (format.height == height) {
-                        groupIndex = i;
-                        tracks.set(0, j);
-                        closestFormat = null;
-                        closestTrackIndex = -1;
-                        usingExactMatch = true;
-                        break;
-                    } else if (isUsingContentResolution) {
-                        // When using content resolution rather than ads, we need to try and find the closest match if there is no exact match
-                        if (closestFormat != null) {
-                            if ((format.bitrate > closestFormat.bitrate || format.height > closestFormat.height) && format.height < height) {
-                                // Higher quality match
-                                closestFormat = format;
-                                closestTrackIndex = j;
-                            }
-                        } else if(format.height < height) {
-                            closestFormat = format;
-                            closestTrackIndex = j;
-                        }
-                    }
-                }
-                // This is a fallback if the new period contains only higher resolutions than the user has selected
-                if (closestFormat == null && isUsingContentResolution && !usingExactMatch) {
-                    // No close match found - so we pick the lowest quality
-                    int minHeight = Integer.MAX_VALUE;
-                    for (int j = 0; j < group.length; j++) {
-                        Format format = group.getFormat(j);
-                        if (format.height < minHeight) {
-                            minHeight = format.height;
-                            groupIndex = i;
-                            tracks.set(0, j);
-                        }
-                    }
-                }
-                // Selecting the closest match found
-                if (closestFormat != null && closestTrackIndex != -1) {
-                    // We found the closest match instead of an exact one
-                    groupIndex = i;
-                    tracks.set(0, closestTrackIndex);
-                }
+            TrackCatalogue.TrackRef track = catalogue.findExactHeight(height);
+            if (track == null && isUsingContentResolution) {
+                // When using content resolution rather than ads, we need to try and find the closest match if there is no exact match
+                // (the lowest quality if the new period contains only higher resolutions than the user has selected)
+                track = catalogue.findClosestHeight(height);
+            }
+            if (track != null) {
+                groupIndex = track.groupIndex;
+                tracks.set(0, track.trackIndex);
             }
         } else if (trackType == C.TRACK_TYPE_TEXT && Util.SDK_INT > 18) { // Text default
             // Use system settings if possible
             CaptioningManager captioningManager
                     = (CaptioningManager)themedReactContext.getSystemService(Context.CAPTIONING_SERVICE);
             if (captioningManager != null && captioningManager.isEnabled()) {
-                groupIndex = getGroupIndexForDefaultLocale(groups);
+                groupIndex = getGroupIndexForDefaultLocale(catalogue);
             }
         } else if (rendererIndex == C.TRACK_TYPE_AUDIO) { // Audio default
-            groupIndex = getGroupIndexForDefaultLocale(groups);
+            groupIndex = getGroupIndexForDefaultLocale(catalogue);
         }
 
         if (groupIndex == C.INDEX_UNSET && trackType == C.TRACK_TYPE_VIDEO && groups.length != 0) { // Video auto
-            // Add all tracks as valid options for ABR to choose from
-            TrackGroup group = groups.get(0);
-            ArrayList<Integer> allTracks = new ArrayList<>(group.length);
+            // Add all supported tracks as valid options for ABR to choose from
             groupIndex = 0;
-            for (int j = 0; j < group.length; j++) {
-                allTracks.add(j);
-            }
-
-            // Valiate list of all tracks and add only supported formats
-            int supportedFormatLength = 0;
-            for (int g = 0; g < allTracks.size(); g++) {
-                Format format = group.getFormat(g);
-                if (isFormatSupported(format)) {
-                    supportedFormatLength++;
-                }
-            }
-            if (allTracks.size() == 1) {
-                // With only one tracks we can't remove any tracks so attempt to play it anyway
-                tracks = allTracks;
-            } else {
-                tracks =  new ArrayList<>(supportedFormatLength + 1);
-                for (int k = 0; k < allTracks.size(); k++) {
-                    Format format = group.getFormat(k);
-                    if (isFormatSupported(format)) {
-                        tracks.add(allTracks.get(k));
-                    }
+            tracks = catalogue.getSupportedTracksOfFirstGroup();
+            String codec = codecPreferenceResult.codec;
+            int codecGroupIndex = codec == null ? C.INDEX_UNSET : catalogue.findGroupByVideoMimeType(codec);
+            if (codecGroupIndex != C.INDEX_UNSET) {
+                // Only the renditions of the preferred codec
+                List<Integer> codecTracks = catalogue.getSupportedTracks(codecGroupIndex, codec);
+                if (!codecTracks.isEmpty()) {
+                    groupIndex = codecGroupIndex;
+                    tracks = codecTracks;
                 }
             }
         }
@@ -2479,13 +3067,16 @@ public class ReactExoplayerView extends FrameLayout implements
         }
 
         TrackSelectionOverride selectionOverride = new TrackSelectionOverride(groups.get(groupIndex), tracks);
+        // The override is kept while the video is off in background, restoreVideoAfterBackground
+        // enables the renderer again
+        boolean keepRendererDisabled = trackType == C.TRACK_TYPE_VIDEO && isVideoDisabledForBackground;
 
         DefaultTrackSelector.Parameters selectionParameters = trackSelector.getParameters()
                 .buildUpon()
                 .setExceedAudioConstraintsIfNecessary(true)
                 .setExceedRendererCapabilitiesIfNecessary(true)
                 .setExceedVideoConstraintsIfNecessary(true)
-                .setRendererDisabled(rendererIndex, false)
+                .setRendererDisabled(rendererIndex, keepRendererDisabled)
                 .clearOverridesOfType(selectionOverride.getType())
                 .addOverride(selectionOverride)
                 .build();
@@ -2500,34 +3091,28 @@ public class ReactExoplayerView extends FrameLayout implements
         if (mimeType == null) {
             return true;
         }
-        boolean isSupported;
-        try {
-            MediaCodecInfo codecInfo = MediaCodecUtil.getDecoderInfo(mimeType, false, false);
-            isSupported = codecInfo.isVideoSizeAndRateSupportedV21(width, height, frameRate);
-        } catch (Exception e) {
-            // Failed to get decoder info - assume it is supported
-            isSupported = true;
-        }
-        return isSupported;
+        // No decoder at all for the mime type is left to exoplayer (decoder fallback),
+        // only renditions known to exceed the decoders are filtered out
+        return CodecCapabilityCache.getInstance().getSupport(mimeType, width, height, frameRate)
+                != CodecCapabilityCache.Support.UNSUPPORTED;
     }
 
-    private int getGroupIndexForDefaultLocale(TrackGroupArray groups) {
-        if (groups.length == 0){
-            return C.INDEX_UNSET;
-        }
+    private int getGroupIndexForDefaultLocale(TrackCatalogue catalogue) {
+        Locale locale = Locale.getDefault();
+        // 2 letter code, 3 letter code
+        return catalogue.findGroupForLocale(locale.getLanguage(), locale.getISO3Language());
+    }
 
-        int groupIndex = 0; // default if no match
-        String locale2 = Locale.getDefault().getLanguage(); // 2 letter code
-        String locale3 = Locale.getDefault().getISO3Language(); // 3 letter code
-        for (int i = 0; i < groups.length; ++i) {
-            Format format = groups.get(i).getFormat(0);
-            String language = format.language;
-            if (language != null && (language.equals(locale2) || language.equals(locale3))) {
-                groupIndex = i;
-                break;
-            }
+    /**
+     * Track index of the renderer, rebuilt only when its track groups change.
+     */
+    private TrackCatalogue getTrackCatalogue(int trackType, TrackGroupArray groups) {
+        TrackCatalogue catalogue = trackCatalogues.get(trackType);
+        if (catalogue == null || !catalogue.isFor(groups)) {
+            catalogue = new TrackCatalogue(groups, this::isFormatSupported);
+            trackCatalogues.put(trackType, catalogue);
         }
-        return groupIndex;
+        return catalogue;
     }
 
     public void setSelectedVideoTrack(String type, String value) {
@@ -2545,7 +3130,98 @@ public class ReactExoplayerView extends FrameLayout implements
     public void setSelectedTextTrack(String type, String value) {
         textTrackType = type;
         textTrackValue = value;
-        setSelectedTrack(C.TRACK_TYPE_TEXT, textTrackType, textTrackValue);
+        int sideLoadedIndex = findSideLoadedTextTrack(type, value);
+        if (sideLoadedIndex != C.INDEX_UNSET) {
+            // Shown by sideLoadedSubtitles, not by the text renderer
+            setSelectedTrack(C.TRACK_TYPE_TEXT, "disabled", null);
+        } else {
+            setSelectedTrack(C.TRACK_TYPE_TEXT, textTrackType, textTrackValue);
+        }
+        if (sideLoadedSubtitles.select(sideLoadedIndex)) {
+            sendTextTracks();
+        }
+    }
+
+    /**
+     * Side-loaded track of a text track selection, C.INDEX_UNSET if none. Side-loaded tracks
+     * come after the stream ones in the track list and a matching stream track wins, as when
+     * they were merged into the source.
+     */
+    private int findSideLoadedTextTrack(String type, String value) {
+        List<SideLoadedTextTrack> tracks = sideLoadedSubtitles.getTracks();
+        if (tracks.isEmpty() || "disabled".equals(type)) {
+            return C.INDEX_UNSET;
+        }
+        TrackGroupArray groups = getRendererTrackGroups(C.TRACK_TYPE_TEXT);
+        TrackCatalogue catalogue = getTrackCatalogue(C.TRACK_TYPE_TEXT, groups);
+        if ("language".equals(type)) {
+            if (catalogue.findGroupByLanguage(value) == C.INDEX_UNSET) {
+                for (int i = 0; i < tracks.size(); i++) {
+                    if (Objects.equals(value, tracks.get(i).getLanguage())) {
+                        return i;
+                    }
+                }
+            }
+        } else if ("title".equals(type)) {
+            if (catalogue.findGroupById(value) == C.INDEX_UNSET) {
+                for (int i = 0; i < tracks.size(); i++) {
+                    if (Objects.equals(value, tracks.get(i).getTitle())) {
+                        return i;
+                    }
+                }
+            }
+        } else if ("index".equals(type)) {
+            try {
+                int index = Integer.parseInt(value) - groups.length;
+                if (index >= 0 && index < tracks.size()) {
+                    return index;
+                }
+            } catch (NumberFormatException e) {
+                return C.INDEX_UNSET;
+            }
+        } else if (!"resolution".equals(type)) { // Text default
+            // Use system settings if possible
+            CaptioningManager captioningManager
+                    = (CaptioningManager) themedReactContext.getSystemService(Context.CAPTIONING_SERVICE);
+            if (captioningManager == null || !captioningManager.isEnabled()) {
+                return C.INDEX_UNSET;
+            }
+            Locale locale = Locale.getDefault();
+            if (catalogue.findGroupByLanguage(locale.getLanguage()) != C.INDEX_UNSET
+                    || catalogue.findGroupByLanguage(locale.getISO3Language()) != C.INDEX_UNSET) {
+                return C.INDEX_UNSET;
+            }
+            for (int i = 0; i < tracks.size(); i++) {
+                String language = tracks.get(i).getLanguage();
+                if (locale.getLanguage().equals(language) || locale.getISO3Language().equals(language)) {
+                    return i;
+                }
+            }
+            // First track when nothing matches
+            return groups.length == 0 ? 0 : C.INDEX_UNSET;
+        }
+        return C.INDEX_UNSET;
+    }
+
+    private void onSideLoadedCues(@Nullable List<Cue> cues) {
+        exoPlayerView.setSideLoadedCues(cues);
+        if (cues != null && !cues.isEmpty() && cues.get(0).text != null
+                && eventEmitter.hasTextTrackDataListener()) {
+            eventEmitter.textTrackDataChanged(cues.get(0).text.toString());
+        }
+    }
+
+    /** sends the text tracks again, side-loaded tracks are not part of the track groups */
+    private void sendTextTracks() {
+        textTrackListCache.reset();
+        if (player == null || !eventEmitter.hasTextTracksListener()) {
+            return;
+        }
+        TrackGroupArray textGroups = getRendererTrackGroups(C.TRACK_TYPE_TEXT);
+        // getTextTrackInfo reads the selection at index C.TRACK_TYPE_VIDEO, keep the same key
+        textTrackListCache.update(textGroups, getSelectedGroupsMask(textGroups, C.TRACK_TYPE_VIDEO),
+                this::getTextTrackInfo);
+        eventEmitter.textTracks(textTrackListCache.getTracks());
     }
 
     public void setPausedModifier(boolean paused) {
@@ -2599,8 +3275,122 @@ public class ReactExoplayerView extends FrameLayout implements
     }
 
     public void seekTo(long positionMs) {
-        if (player != null) {
-            player.seekTo(positionMs);
+        if (player == null) {
+            return;
+        }
+        if (scrubbing) {
+            lastScrubbingTargetMs = positionMs;
+            if (thumbnailEngine != null) {
+                thumbnailEngine.prefetch(positionMs);
+            }
+            if (seekInFlight) {
+                if (pendingSeekPositionMs != C.TIME_UNSET) {
+                    coalescedSeeks++;
+                }
+                pendingSeekPositionMs = positionMs;
+                return;
+            }
+            // No state change to wait for while idle
+            seekInFlight = player.getPlaybackState() != Player.STATE_IDLE;
+        }
+        player.seekTo(positionMs);
+    }
+
+    /**
+     * End of the seek in flight: a frame was rendered or the player left buffering. Sends the
+     * latest coalesced target, if any.
+     */
+    private void onScrubbingSeekDone() {
+        if (!seekInFlight) {
+            return;
+        }
+        seekInFlight = false;
+        if (pendingSeekPositionMs != C.TIME_UNSET) {
+            long positionMs = pendingSeekPositionMs;
+            pendingSeekPositionMs = C.TIME_UNSET;
+            seekTo(positionMs);
+        }
+    }
+
+    /**
+     * Updates the request headers of the running source, from the next request on: nothing is
+     * prepared again. Headers are merged over the current ones (a null value removes one) or
+     * replace them all, until the next source or a change of the source headers.
+     */
+    public void updateRequestHeaders(Map<String, String> headers, boolean replace) {
+        requestHeaderProvider.updateHeaders(headers, replace);
+    }
+
+    /**
+     * While scrubbing seeks are approximate (closest sync frame) and coalesced, and the video
+     * track selection isn't evaluated again on each seek. The end of the scrubbing does a
+     * single exact seek to the last target.
+     */
+    public void setScrubbing(boolean scrubbing) {
+        if (this.scrubbing == scrubbing) {
+            return;
+        }
+        this.scrubbing = scrubbing;
+        if (player == null) {
+            return;
+        }
+        if (scrubbing) {
+            player.setSeekParameters(SeekParameters.CLOSEST_SYNC);
+            return;
+        }
+        player.setSeekParameters(SeekParameters.DEFAULT);
+        if (pendingSeekPositionMs != C.TIME_UNSET) {
+            // Replaced by the exact seek
+            coalescedSeeks++;
+        }
+        long targetMs = lastScrubbingTargetMs;
+        seekInFlight = false;
+        pendingSeekPositionMs = C.TIME_UNSET;
+        lastScrubbingTargetMs = C.TIME_UNSET;
+        if (targetMs != C.TIME_UNSET) {
+            player.seekTo(targetMs);
+        }
+    }
+
+    public void getCoalescedSeeks(Promise promise) {
+        promise.resolve((double) coalescedSeeks);
+    }
+
+    /**
+     * Applies the coalesced commands of a VideoManager.executeBatch call in one pass: track
+     * selections first so the seek buffers the new tracks, then rate and volume, the seek, and
+     * the paused state last so playback only resumes at the new position.
+     */
+    public void executeBatch(PlayerCommandBatch batch) {
+        if (batch.getAudioTrack() != null) {
+            setSelectedAudioTrack(batch.getAudioTrack().getType(), batch.getAudioTrack().getValue());
+        }
+        if (batch.getTextTrack() != null) {
+            setSelectedTextTrack(batch.getTextTrack().getType(), batch.getTextTrack().getValue());
+        }
+        if (batch.getVideoTrack() != null) {
+            setSelectedVideoTrack(batch.getVideoTrack().getType(), batch.getVideoTrack().getValue());
+        }
+        if (batch.getRate() != null) {
+            setRateModifier(batch.getRate());
+        }
+        if (batch.getVolume() != null) {
+            setVolumeModifier(batch.getVolume());
+        }
+        if (batch.getMuted() != null) {
+            setMutedModifier(batch.getMuted());
+        }
+        if (Boolean.TRUE.equals(batch.getPaused())) {
+            setPausedModifier(true);
+        }
+        if (batch.getSeekPositionMs() != null) {
+            seekTo(batch.getSeekPositionMs());
+        }
+        if (Boolean.FALSE.equals(batch.getPaused())) {
+            setPausedModifier(false);
+        }
+        if (batch.getCoalescedCount() > 0) {
+            DebugLog.d(TAG, "executeBatch: " + batch.getCommandCount() + " commands, " + batch.getCoalescedCount() + " coalesced");
         }
     }
 
@@ -2618,11 +3408,136 @@ public class ReactExoplayerView extends FrameLayout implements
         }
     }
 
+    private DefaultTrackSelector.Parameters.Builder setViewportParameters(DefaultTrackSelector.Parameters.Builder builder) {
+        if (!viewportController.isEnabled()) {
+            // Track selector default
+            return builder.setViewportSizeToPhysicalDisplaySize(getContext(), true);
+        }
+        return builder.setViewportSize(viewportController.getWidth(), viewportController.getHeight(), false);
+    }
+
+    private void onViewportCapChanged(int width, int height, String trigger) {
+        DebugLog.d(TAG, "viewport cap (" + trigger + "): " + width + "x" + height);
+        if (trackSelector != null) {
+            trackSelector.setParameters(setViewportParameters(trackSelector.buildUponParameters()));
+        }
+        reportViewportCap(trigger);
+    }
+
+    /**
+     * Report the highest bitrate reachable with and without the viewport cap, only when it changed.
+     */
+    private void reportViewportCap(String trigger) {
+        if (trackSelector == null) {
+            return;
+        }
+        MappingTrackSelector.MappedTrackInfo info = trackSelector.getCurrentMappedTrackInfo();
+        int index = getTrackRendererIndex(C.TRACK_TYPE_VIDEO);
+        if (info == null || index == C.INDEX_UNSET) {
+            return;
+        }
+        TrackGroupArray groups = info.getTrackGroups(index);
+        int maxVideoBitrate = maxBitRate == 0 ? Integer.MAX_VALUE : maxBitRate;
+        int uncappedBitrate = ViewportController.getMaxBitrateForViewport(groups,
+                Integer.MAX_VALUE, Integer.MAX_VALUE, maxVideoBitrate);
+        int cappedBitrate = viewportController.isEnabled()
+                ? ViewportController.getMaxBitrateForViewport(groups,
+                        viewportController.getWidth(), viewportController.getHeight(), maxVideoBitrate)
+                : uncappedBitrate;
+        if (uncappedBitrate == 0
+                || (cappedBitrate == lastReportedCappedBitrate && uncappedBitrate == lastReportedUncappedBitrate)) {
+            return;
+        }
+        lastReportedCappedBitrate = cappedBitrate;
+        lastReportedUncappedBitrate = uncappedBitrate;
+        int width = viewportController.getWidth();
+        int height = viewportController.getHeight();
+        eventEmitter.viewportCapChanged(
+                width == Integer.MAX_VALUE ? 0 : width,
+                height == Integer.MAX_VALUE ? 0 : height,
+                trigger, cappedBitrate, uncappedBitrate);
+    }
+
+    private void onDecoderCapChanged(int maxHeight, int maxFrameRate) {
+        if (trackSelector != null) {
+            trackSelector.setParameters(trackSelector.buildUponParameters()
+                    .setMaxVideoSize(Integer.MAX_VALUE, maxHeight)
+                    .setMaxVideoFrameRate(maxFrameRate));
+        }
+    }
+
+    /**
+     * Rank the codecs of the video groups and hand the order to the track selector.
+     * An automatic video selection is applied again, its override lists the renditions of the
+     * chosen codec only.
+     */
+    private void updateCodecPreference(TrackGroupArray videoGroups) {
+        CodecPreferencePolicy.Result previous = codecPreferenceResult;
+        codecPreferenceResult = CodecPreferencePolicy.rank(videoGroups, codecPreference);
+        if (trackSelector == null || (Arrays.equals(previous.mimeTypes, codecPreferenceResult.mimeTypes)
+                && Objects.equals(previous.codec, codecPreferenceResult.codec))) {
+            return;
+        }
+        DebugLog.d(TAG, "video codec " + codecPreferenceResult.codec + " (" + codecPreferenceResult.reason + ")");
+        trackSelector.setParameters(trackSelector.buildUponParameters()
+                .setPreferredVideoMimeTypes(codecPreferenceResult.mimeTypes));
+        if (!loadVideoStarted && (isUsingContentResolution || videoTrackType != null)) {
+            setSelectedTrack(C.TRACK_TYPE_VIDEO, videoTrackType, videoTrackValue);
+        }
+    }
+
+    /**
+     * Prop "subscribedEvents": mask of the events with a JS handler, see VideoEventEmitter.
+     * The track lists are sent again to handlers added since the last track change.
+     */
+    public void setSubscribedEvents(long subscribedEvents) {
+        eventEmitter.setSubscribedEvents(subscribedEvents);
+        audioTrackListCache.reset();
+        textTrackListCache.reset();
+        videoTrackListCache.reset();
+        if (player != null) {
+            onTracksChanged(player.getCurrentTracks());
+        }
+    }
+
+    /**
+     * Prop "codecPreference": how the video codec is picked when the content is offered in
+     * several codecs.
+     */
+    public void setCodecPreference(CodecPreference codecPreference) {
+        if (this.codecPreference.equals(codecPreference)) {
+            return;
+        }
+        this.codecPreference = codecPreference;
+        if (player != null) {
+            updateCodecPreference(getRendererTrackGroups(C.TRACK_TYPE_VIDEO));
+        }
+    }
+
+    /**
+     * Prop "capVideoToDecoderPerformance": lower the resolution / frame rate when the device
+     * drops frames, true by default.
+     */
+    public void setCapVideoToDecoderPerformance(boolean capVideoToDecoderPerformance) {
+        decoderPerformanceController.setEnabled(capVideoToDecoderPerformance);
+    }
+
+    /**
+     * Prop "capVideoToViewport": limit the video rendition to the displayed size, true by default.
+     */
+    public void setCapVideoToViewport(boolean capVideoToViewport) {
+        viewportController.setEnabled(capVideoToViewport);
+        if (capVideoToViewport && exoPlayerView.getWidth() > 0) {
+            viewportController.onSizeChanged(exoPlayerView.getWidth(), exoPlayerView.getHeight());
+        }
+    }
+
     public void setMaxBitRateModifier(int newMaxBitRate) {
         maxBitRate = newMaxBitRate;
         if (player != null) {
             trackSelector.setParameters(trackSelector.buildUponParameters()
                     .setMaxVideoBitrate(maxBitRate == 0 ? Integer.MAX_VALUE : maxBitRate));
+            reportViewportCap(ViewportController.TRIGGER_LAYOUT);
         }
     }
 
@@ -2636,6 +3551,17 @@ public class ReactExoplayerView extends FrameLayout implements
         this.playInBackground = playInBackground;
     }
 
+    /**
+     * Prop "audioOnlyInBackground": with playInBackground, disable the video renderer while
+     * the app is in background.
+     */
+    public void setAudioOnlyInBackground(boolean audioOnlyInBackground) {
+        this.audioOnlyInBackground = audioOnlyInBackground;
+        if (!audioOnlyInBackground) {
+            restoreVideoAfterBackground();
+        }
+    }
+
     public void setDisableFocus(boolean disableFocus) {
         this.disableFocus = disableFocus;
     }
@@ -2661,6 +3587,9 @@ public class ReactExoplayerView extends FrameLayout implements
 
     public void setBufferingStrategy(BufferingStrategy.BufferingStrategyEnum _bufferingStrategy) {
         bufferingStrategy = _bufferingStrategy;
+        if (loadControl != null) {
+            loadControl.setBufferingStrategy(_bufferingStrategy);
+        }
     }
 
     public boolean getPreventsDisplaySleepDuringVideoPlayback() {
@@ -2692,6 +3621,7 @@ public class ReactExoplayerView extends FrameLayout implements
             return; // Avoid generating events when nothing is changing
         }
         isFullscreen = fullscreen;
+        viewportController.setTrigger(ViewportController.TRIGGER_FULLSCREEN);
 
         Activity activity = themedReactContext.getCurrentActivity();
         if (activity == null) {
@@ -2786,6 +3716,10 @@ public class ReactExoplayerView extends FrameLayout implements
         DebugLog.d(TAG, "onPictureInPictureModeChanged: " + isInPictureInPictureMode);
         lastReportedPipMode = isInPictureInPictureMode;
         eventEmitter.pictureInPictureStatusChanged(isInPictureInPictureMode);
+        updateProgressTickerRelaxed();
+        // The PiP window is tiny, drop the quality now instead of waiting for the downsize delay
+        viewportController.setTrigger(ViewportController.TRIGGER_PICTURE_IN_PICTURE);
+        viewportController.onSizeChanged(exoPlayerView.getWidth(), exoPlayerView.getHeight());
         if (!isInPictureInPictureMode) {
             Activity activity = themedReactContext.getCurrentActivity();
             if (activity instanceof ComponentActivity
@@ -2813,6 +3747,17 @@ public class ReactExoplayerView extends FrameLayout implements
     }
 
     public void setBufferConfig(BufferConfig config) {
+        if (!ReactExoplayerLoadControl.isValid(config)) {
+            // DefaultLoadControl asserts on these, a new player would fail to build: the
+            // previous config and the running player are kept
+            DebugLog.w(TAG, "Ignoring inconsistent buffer thresholds, the previous buffer config is kept");
+            if (player != null) {
+                eventEmitter.bufferConfigApplied(false, "invalidThresholds");
+            }
+            return;
+        }
+        BufferConfig previousConfig = bufferConfig;
+        boolean previousUseCache = useCache;
         bufferConfig = config;
         if (bufferConfig.getCacheSize() > 0) {
             RNVSimpleCache.INSTANCE.setSimpleCache(
@@ -2823,8 +3768,30 @@ public class ReactExoplayerView extends FrameLayout implements
         } else {
             useCache = false;
         }
-        releasePlayer();
-        initializePlayer();
+        if (player == null || config.equals(previousConfig)) {
+            // Nothing running yet (the next initializePlayer picks the config up) or nothing changed
+            return;
+        }
+
+        // Thresholds, live configuration and cache size are applied on the running player.
+        // Only a cache toggle on a progressive source (its data source chain is baked into the
+        // media source) needs a new player.
+        String rebuildReason = null;
+        if (useCache != previousUseCache && isCacheableSource()) {
+            rebuildReason = "cacheToggled";
+        }
+
+        if (rebuildReason == null) {
+            loadControl.updateBufferConfig(config);
+            livePlaybackSpeedControl.updateLiveConfiguration(config.getLive());
+            DebugLog.d(TAG, "Buffer config hot applied");
+            eventEmitter.bufferConfigApplied(false, null);
+        } else {
+            DebugLog.d(TAG, "Buffer config needs a player rebuild: " + rebuildReason);
+            releasePlayer();
+            initializePlayer();
+            eventEmitter.bufferConfigApplied(true, rebuildReason);
+        }
     }
 
     public void setDrmType(UUID drmType) {
@@ -2886,6 +3853,7 @@ public class ReactExoplayerView extends FrameLayout implements
                 removeViewAt(indexOfPC);
             }
         }
+        updateProgressTickerRelaxed();
     }
 
     public void setSubtitleStyle(SubtitleStyle style) {
@@ -2909,7 +3877,9 @@ public class ReactExoplayerView extends FrameLayout implements
         // Cuando isPlayingAd() es true, player.getCurrentPosition() y getDuration() devuelven
         // la posición/duración relativa al ad actual (no al contenido) en milisegundos.
         // Esto permite a la pipeline JS de analytics emitir onAdProgress con datos reales.
-        if (adEvent.getType() == AdEvent.AdEventType.AD_PROGRESS && player != null && player.isPlayingAd()) {
+        if (!eventEmitter.hasReceiveAdEventListener()) {
+            // Nobody listens to onReceiveAdEvent, don't copy the ad data
+        } else if (adEvent.getType() == AdEvent.AdEventType.AD_PROGRESS && player != null && player.isPlayingAd()) {
             Map<String, String> adProgressData = new HashMap<>();
             if (adEvent.getAdData() != null) {
                 adProgressData.putAll(adEvent.getAdData());
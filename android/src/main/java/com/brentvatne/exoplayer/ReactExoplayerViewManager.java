@@ -12,11 +12,15 @@ import androidx.media3.common.util.Util;
 
 import com.brentvatne.common.api.BufferConfig;
 import com.brentvatne.common.api.BufferingStrategy;
+import com.brentvatne.common.api.CodecPreference;
 import com.brentvatne.common.api.ControlsConfig;
+import com.brentvatne.common.api.PlaybackMetricsConfig;
+import com.brentvatne.common.api.QueueConfig;
 import com.brentvatne.common.api.ResizeMode;
 import com.brentvatne.common.api.SideLoadedTextTrackList;
 import com.brentvatne.common.api.Source;
 import com.brentvatne.common.api.SubtitleStyle;
+import com.brentvatne.common.api.ThumbnailsConfig;
 import com.brentvatne.common.react.VideoEventEmitter;
 import com.brentvatne.common.toolbox.DebugLog;
 import com.brentvatne.common.toolbox.ReactBridgeUtils;
@@ -25,6 +29,8 @@ import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.ReadableMapKeySetIterator;
 import com.facebook.react.bridge.ReadableType;
 import com.facebook.react.common.MapBuilder;
+import com.facebook.react.uimanager.ReactStylesDiffMap;
+import com.facebook.react.uimanager.StateWrapper;
 import com.facebook.react.uimanager.ThemedReactContext;
 import com.facebook.react.uimanager.ViewGroupManager;
 import com.facebook.react.uimanager.annotations.ReactProp;
@@ -62,11 +68,13 @@ public class ReactExoplayerViewManager extends ViewGroupManager<ReactExoplayerVi
     private static final String PROP_BUFFER_CONFIG = "bufferConfig";
     private static final String PROP_PREVENTS_DISPLAY_SLEEP_DURING_VIDEO_PLAYBACK = "preventsDisplaySleepDuringVideoPlayback";
     private static final String PROP_PROGRESS_UPDATE_INTERVAL = "progressUpdateInterval";
+    private static final String PROP_RELAXED_PROGRESS_UPDATE_INTERVAL = "relaxedProgressUpdateInterval";
     private static final String PROP_REPORT_BANDWIDTH = "reportBandwidth";
     private static final String PROP_RATE = "rate";
     private static final String PROP_MIN_LOAD_RETRY_COUNT = "minLoadRetryCount";
     private static final String PROP_MAXIMUM_BIT_RATE = "maxBitRate";
     private static final String PROP_PLAY_IN_BACKGROUND = "playInBackground";
+    private static final String PROP_AUDIO_ONLY_IN_BACKGROUND = "audioOnlyInBackground";
     private static final String PROP_CONTENT_START_TIME = "contentStartTime";
     private static final String PROP_DISABLE_FOCUS = "disableFocus";
     private static final String PROP_BUFFERING_STRATEGY = "bufferingStrategy";
@@ -76,6 +84,13 @@ public class ReactExoplayerViewManager extends ViewGroupManager<ReactExoplayerVi
     private static final String PROP_PICTURE_IN_PICTURE = "pictureInPicture";
     private static final String PROP_ENTER_PICTURE_IN_PICTURE_ON_LEAVE = "enterPictureInPictureOnLeave";
     private static final String PROP_USE_TEXTURE_VIEW = "useTextureView";
+    private static final String PROP_CAP_VIDEO_TO_VIEWPORT = "capVideoToViewport";
+    private static final String PROP_CAP_VIDEO_TO_DECODER_PERFORMANCE = "capVideoToDecoderPerformance";
+    private static final String PROP_CODEC_PREFERENCE = "codecPreference";
+    private static final String PROP_PLAYBACK_METRICS_CONFIG = "playbackMetricsConfig";
+    private static final String PROP_SUBSCRIBED_EVENTS = "subscribedEvents";
+    private static final String PROP_THUMBNAILS = "thumbnails";
+    private static final String PROP_QUEUE = "queue";
     private static final String PROP_SECURE_VIEW = "useSecureView";
     private static final String PROP_SELECTED_VIDEO_TRACK = "selectedVideoTrack";
     private static final String PROP_SELECTED_VIDEO_TRACK_TYPE = "type";
@@ -108,8 +123,18 @@ public class ReactExoplayerViewManager extends ViewGroupManager<ReactExoplayerVi
         return new ReactExoplayerView(themedReactContext, config);
     }
 
+    @NonNull
+    @Override
+    protected ReactExoplayerView createViewInstance(int reactTag, @NonNull ThemedReactContext reactContext,
+                                                    @Nullable ReactStylesDiffMap initialProps, @Nullable StateWrapper stateWrapper) {
+        ReactExoplayerView view = super.createViewInstance(reactTag, reactContext, initialProps, stateWrapper);
+        ReactExoplayerViewRegistry.register(reactTag, view);
+        return view;
+    }
+
     @Override
     public void onDropViewInstance(ReactExoplayerView view) {
+        ReactExoplayerViewRegistry.unregister(view.getId(), view);
         view.cleanUpResources();
     }
 
@@ -277,6 +302,11 @@ public class ReactExoplayerViewManager extends ViewGroupManager<ReactExoplayerVi
         videoView.setProgressUpdateInterval(progressUpdateInterval);
     }
 
+    @ReactProp(name = PROP_RELAXED_PROGRESS_UPDATE_INTERVAL, defaultFloat = 1000.0f)
+    public void setRelaxedProgressUpdateInterval(final ReactExoplayerView videoView, final float relaxedProgressUpdateInterval) {
+        videoView.setRelaxedProgressUpdateInterval(relaxedProgressUpdateInterval);
+    }
+
     @ReactProp(name = PROP_REPORT_BANDWIDTH, defaultBoolean = false)
     public void setReportBandwidth(final ReactExoplayerView videoView, final boolean reportBandwidth) {
         videoView.setReportBandwidth(reportBandwidth);
@@ -302,6 +332,11 @@ public class ReactExoplayerViewManager extends ViewGroupManager<ReactExoplayerVi
         videoView.setPlayInBackground(playInBackground);
     }
 
+    @ReactProp(name = PROP_AUDIO_ONLY_IN_BACKGROUND, defaultBoolean = false)
+    public void setAudioOnlyInBackground(final ReactExoplayerView videoView, final boolean audioOnlyInBackground) {
+        videoView.setAudioOnlyInBackground(audioOnlyInBackground);
+    }
+
     @ReactProp(name = PROP_DISABLE_FOCUS, defaultBoolean = false)
     public void setDisableFocus(final ReactExoplayerView videoView, final boolean disableFocus) {
         videoView.setDisableFocus(disableFocus);
@@ -343,6 +378,48 @@ public class ReactExoplayerViewManager extends ViewGroupManager<ReactExoplayerVi
         videoView.setEnterPictureInPictureOnLeave(enterOnLeave);
     }
 
+    @ReactProp(name = PROP_CAP_VIDEO_TO_VIEWPORT, defaultBoolean = true)
+    public void setCapVideoToViewport(final ReactExoplayerView videoView, final boolean capVideoToViewport) {
+        videoView.setCapVideoToViewport(capVideoToViewport);
+    }
+
+    @ReactProp(name = PROP_CAP_VIDEO_TO_DECODER_PERFORMANCE, defaultBoolean = true)
+    public void setCapVideoToDecoderPerformance(final ReactExoplayerView videoView, final boolean capVideoToDecoderPerformance) {
+        videoView.setCapVideoToDecoderPerformance(capVideoToDecoderPerformance);
+    }
+
+    @ReactProp(name = PROP_CODEC_PREFERENCE)
+    public void setCodecPreference(final ReactExoplayerView videoView, @Nullable ReadableMap codecPreference) {
+        videoView.setCodecPreference(CodecPreference.parse(codecPreference));
+    }
+
+    @ReactProp(name = PROP_PLAYBACK_METRICS_CONFIG)
+    public void setPlaybackMetricsConfig(final ReactExoplayerView videoView, @Nullable ReadableMap playbackMetricsConfig) {
+        videoView.setPlaybackMetricsConfig(PlaybackMetricsConfig.parse(playbackMetricsConfig));
+    }
+
+    @ReactProp(name = PROP_THUMBNAILS)
+    public void setThumbnails(final ReactExoplayerView videoView, @Nullable ReadableMap thumbnails) {
+        videoView.setThumbnailsConfig(ThumbnailsConfig.parse(thumbnails));
+    }
+
+    @ReactProp(name = PROP_QUEUE)
+    public void setQueue(final ReactExoplayerView videoView, @Nullable ReadableMap queue) {
+        Context context = videoView.getContext().getApplicationContext();
+        QueueConfig config = QueueConfig.parse(queue, context);
+        if (config != null && config.hasDrm()) {
+            // Same as the drm prop
+            videoView.setUseTextureView(false);
+        }
+        videoView.setQueueConfig(config);
+    }
+
+    @ReactProp(name = PROP_SUBSCRIBED_EVENTS, defaultDouble = -1)
+    public void setSubscribedEvents(final ReactExoplayerView videoView, final double subscribedEvents) {
+        // Sent as a double by JS, the mask uses less than 53 bits
+        videoView.setSubscribedEvents((long) subscribedEvents);
+    }
+
     @ReactProp(name = PROP_USE_TEXTURE_VIEW, defaultBoolean = true)
     public void setUseTextureView(final ReactExoplayerView videoView, final boolean useTextureView) {
         videoView.setUseTextureView(useTextureView);
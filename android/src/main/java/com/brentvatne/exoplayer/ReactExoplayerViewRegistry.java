@@ -0,0 +1,52 @@
+package com.brentvatne.exoplayer;
+
+import androidx.annotation.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live player views by reactTag, so module commands find their view without resolving it
+ * through the UIManager on the UI thread.
+ *
+ * Filled by {@link ReactExoplayerViewManager} when a view is created and dropped. Views are
+ * held weakly: a view the manager never dropped (reload, crashed surface) can still be
+ * collected. Safe to use from any thread.
+ */
+public final class ReactExoplayerViewRegistry {
+
+    private static final Map<Integer, WeakReference<ReactExoplayerView>> views = new ConcurrentHashMap<>();
+
+    private ReactExoplayerViewRegistry() {
+    }
+
+    static void register(int reactTag, ReactExoplayerView view) {
+        views.put(reactTag, new WeakReference<>(view));
+    }
+
+    /** only removes the entry when it is still this view, tags can be reused */
+    static void unregister(int reactTag, ReactExoplayerView view) {
+        WeakReference<ReactExoplayerView> ref = views.get(reactTag);
+        if (ref != null) {
+            ReactExoplayerView registered = ref.get();
+            if (registered == null || registered == view) {
+                views.remove(reactTag, ref);
+            }
+        }
+    }
+
+    /** the view of this tag, null when not created yet, dropped or collected */
+    @Nullable
+    public static ReactExoplayerView get(int reactTag) {
+        WeakReference<ReactExoplayerView> ref = views.get(reactTag);
+        if (ref == null) {
+            return null;
+        }
+        ReactExoplayerView view = ref.get();
+        if (view == null) {
+            views.remove(reactTag, ref);
+        }
+        return view;
+    }
+}
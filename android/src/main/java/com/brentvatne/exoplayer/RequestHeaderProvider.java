@@ -0,0 +1,64 @@
+package com.brentvatne.exoplayer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.DataSpec;
+import androidx.media3.datasource.ResolvingDataSource;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Request headers of one player, added to each request when it is opened.
+ *
+ * Data sources built by the factories of {@link #wrap} read the headers on every open, so
+ * updated headers (a refreshed CDN token for instance) are used from the next segment or
+ * manifest request on, without building the source again. They take precedence over the
+ * headers the http data source was built with, which should only hold the User-Agent: a
+ * header of the wrapped factory cannot be removed.
+ * Headers can be updated from any thread.
+ */
+public final class RequestHeaderProvider implements ResolvingDataSource.Resolver {
+
+    private volatile Map<String, String> headers = Collections.emptyMap();
+
+    public synchronized void setHeaders(@Nullable Map<String, String> headers) {
+        this.headers = headers == null || headers.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new HashMap<>(headers));
+    }
+
+    /**
+     * Applies an update to the headers: a null value removes the header, the others are set.
+     * With replace, the headers of the update are the only ones left.
+     */
+    public synchronized void updateHeaders(Map<String, String> update, boolean replace) {
+        Map<String, String> updated = replace ? new HashMap<>() : new HashMap<>(headers);
+        for (Map.Entry<String, String> header : update.entrySet()) {
+            if (header.getValue() == null) {
+                updated.remove(header.getKey());
+            } else {
+                updated.put(header.getKey(), header.getValue());
+            }
+        }
+        setHeaders(updated);
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /** factory whose data sources use the current headers */
+    public DataSource.Factory wrap(DataSource.Factory factory) {
+        return new ResolvingDataSource.Factory(factory, this);
+    }
+
+    @NonNull
+    @Override
+    public DataSpec resolveDataSpec(@NonNull DataSpec dataSpec) {
+        Map<String, String> currentHeaders = headers;
+        return currentHeaders.isEmpty() ? dataSpec : dataSpec.withAdditionalHeaders(currentHeaders);
+    }
+}
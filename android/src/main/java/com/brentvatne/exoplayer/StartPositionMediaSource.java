@@ -0,0 +1,37 @@
+package com.brentvatne.exoplayer;
+
+import androidx.media3.common.C;
+import androidx.media3.common.Timeline;
+import androidx.media3.exoplayer.source.ForwardingTimeline;
+import androidx.media3.exoplayer.source.MediaSource;
+import androidx.media3.exoplayer.source.WrappingMediaSource;
+
+/**
+ * Playlist item starting at a position: the position is the default one of its window, so
+ * the player starts there when it moves on to the item, at the end of the previous one or on
+ * seekToNextMediaItem, and the item is buffered from there.
+ */
+final class StartPositionMediaSource extends WrappingMediaSource {
+
+    private final long startPositionUs;
+
+    StartPositionMediaSource(MediaSource mediaSource, long startPositionMs) {
+        super(mediaSource);
+        this.startPositionUs = startPositionMs * 1000;
+    }
+
+    @Override
+    protected void onChildSourceInfoRefreshed(Timeline newTimeline) {
+        refreshSourceInfo(new ForwardingTimeline(newTimeline) {
+            @Override
+            public Window getWindow(int windowIndex, Window window, long defaultPositionProjectionUs) {
+                super.getWindow(windowIndex, window, defaultPositionProjectionUs);
+                // Past the end, the item plays from its own default position
+                if (window.durationUs == C.TIME_UNSET || startPositionUs < window.durationUs) {
+                    window.defaultPositionUs = startPositionUs;
+                }
+                return window;
+            }
+        });
+    }
+}
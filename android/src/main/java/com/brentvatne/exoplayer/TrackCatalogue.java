@@ -0,0 +1,193 @@
+package com.brentvatne.exoplayer;
+
+import androidx.annotation.Nullable;
+import androidx.media3.common.C;
+import androidx.media3.common.Format;
+import androidx.media3.common.TrackGroup;
+import androidx.media3.exoplayer.source.TrackGroupArray;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Index of the track groups of one renderer, used by track selection.
+ *
+ * It is built once per TrackGroupArray (see {@link #isFor(TrackGroupArray)}): selections done
+ * again on each period discontinuity with the same tracks don't walk groups and formats again.
+ * Language and id lookups are hash lookups, resolution lookups go through a TreeMap on the
+ * height.
+ */
+final class TrackCatalogue {
+
+    interface FormatFilter {
+        boolean isSupported(Format format);
+    }
+
+    /**
+     * A track of the catalogue: group index and track index in the group.
+     */
+    static final class TrackRef {
+        final int groupIndex;
+        final int trackIndex;
+
+        TrackRef(int groupIndex, int trackIndex) {
+            this.groupIndex = groupIndex;
+            this.trackIndex = trackIndex;
+        }
+    }
+
+    /**
+     * Tracks of one height: the first one found, and the one with the highest bitrate.
+     */
+    private static final class HeightEntry {
+        final TrackRef first;
+        TrackRef best;
+        int bestBitrate;
+
+        HeightEntry(TrackRef first, int bitrate) {
+            this.first = first;
+            this.best = first;
+            this.bestBitrate = bitrate;
+        }
+    }
+
+    private final TrackGroupArray groups;
+    private final FormatFilter formatFilter;
+    private final Map<String, Integer> groupByLanguage = new HashMap<>();
+    private final Map<String, Integer> groupById = new HashMap<>();
+    private final TreeMap<Integer, HeightEntry> tracksByHeight = new TreeMap<>();
+    @Nullable
+    private List<Integer> supportedTracksOfFirstGroup;
+
+    TrackCatalogue(TrackGroupArray groups, FormatFilter formatFilter) {
+        this.groups = groups;
+        this.formatFilter = formatFilter;
+        for (int i = 0; i < groups.length; i++) {
+            TrackGroup group = groups.get(i);
+            Format firstFormat = group.getFormat(0);
+            if (firstFormat.language != null && !groupByLanguage.containsKey(firstFormat.language)) {
+                groupByLanguage.put(firstFormat.language, i);
+            }
+            if (firstFormat.id != null && !groupById.containsKey(firstFormat.id)) {
+                groupById.put(firstFormat.id, i);
+            }
+            for (int j = 0; j < group.length; j++) {
+                Format format = group.getFormat(j);
+                if (format.height == Format.NO_VALUE) {
+                    continue;
+                }
+                HeightEntry entry = tracksByHeight.get(format.height);
+                if (entry == null) {
+                    tracksByHeight.put(format.height, new HeightEntry(new TrackRef(i, j), format.bitrate));
+                } else if (format.bitrate > entry.bestBitrate) {
+                    entry.best = new TrackRef(i, j);
+                    entry.bestBitrate = format.bitrate;
+                }
+            }
+        }
+    }
+
+    boolean isFor(TrackGroupArray groups) {
+        return this.groups.equals(groups);
+    }
+
+    TrackGroupArray getGroups() {
+        return groups;
+    }
+
+    /** index of the first group in this language, C.INDEX_UNSET if none */
+    int findGroupByLanguage(@Nullable String language) {
+        Integer index = language == null ? null : groupByLanguage.get(language);
+        return index == null ? C.INDEX_UNSET : index;
+    }
+
+    /** index of the first group with this id, C.INDEX_UNSET if none */
+    int findGroupById(@Nullable String id) {
+        Integer index = id == null ? null : groupById.get(id);
+        return index == null ? C.INDEX_UNSET : index;
+    }
+
+    /** first group matching the 2 or 3 letters device language, 0 if none */
+    int findGroupForLocale(String language2, String language3) {
+        if (groups.length == 0) {
+            return C.INDEX_UNSET;
+        }
+        int index2 = findGroupByLanguage(language2);
+        int index3 = findGroupByLanguage(language3);
+        if (index2 == C.INDEX_UNSET) {
+            return index3 == C.INDEX_UNSET ? 0 : index3;
+        }
+        return index3 == C.INDEX_UNSET ? index2 : Math.min(index2, index3);
+    }
+
+    /** first track with exactly this height, null if none */
+    @Nullable
+    TrackRef findExactHeight(int height) {
+        HeightEntry entry = tracksByHeight.get(height);
+        return entry == null ? null : entry.first;
+    }
+
+    /**
+     * Closest track below this height (highest bitrate on ties), the lowest track when
+     * all tracks are higher, null when there is no track with a known height.
+     */
+    @Nullable
+    TrackRef findClosestHeight(int height) {
+        Map.Entry<Integer, HeightEntry> below = tracksByHeight.lowerEntry(height);
+        if (below != null) {
+            return below.getValue().best;
+        }
+        Map.Entry<Integer, HeightEntry> lowest = tracksByHeight.firstEntry();
+        return lowest == null ? null : lowest.getValue().first;
+    }
+
+    /**
+     * Tracks of the first group the device can decode, all of them when it has a single track.
+     * Computed once, decoder queries are expensive.
+     */
+    List<Integer> getSupportedTracksOfFirstGroup() {
+        if (supportedTracksOfFirstGroup == null) {
+            TrackGroup group = groups.get(0);
+            List<Integer> tracks = new ArrayList<>(group.length);
+            for (int j = 0; j < group.length; j++) {
+                if (group.length == 1 || formatFilter.isSupported(group.getFormat(j))) {
+                    tracks.add(j);
+                }
+            }
+            supportedTracksOfFirstGroup = tracks;
+        }
+        return supportedTracksOfFirstGroup;
+    }
+
+    /** index of the first group with a video track in this mime type, C.INDEX_UNSET if none */
+    int findGroupByVideoMimeType(String mimeType) {
+        for (int i = 0; i < groups.length; i++) {
+            TrackGroup group = groups.get(i);
+            for (int j = 0; j < group.length; j++) {
+                if (mimeType.equals(CodecPreferencePolicy.getVideoMimeType(group.getFormat(j)))) {
+                    return i;
+                }
+            }
+        }
+        return C.INDEX_UNSET;
+    }
+
+    /**
+     * Tracks of a group in this video mime type the device can decode, so ABR doesn't switch
+     * codec (and decoder) between renditions.
+     */
+    List<Integer> getSupportedTracks(int groupIndex, String mimeType) {
+        TrackGroup group = groups.get(groupIndex);
+        List<Integer> tracks = new ArrayList<>(group.length);
+        for (int j = 0; j < group.length; j++) {
+            Format format = group.getFormat(j);
+            if (mimeType.equals(CodecPreferencePolicy.getVideoMimeType(format)) && formatFilter.isSupported(format)) {
+                tracks.add(j);
+            }
+        }
+        return tracks;
+    }
+}
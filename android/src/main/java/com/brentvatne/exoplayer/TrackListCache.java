@@ -0,0 +1,49 @@
+package com.brentvatne.exoplayer;
+
+import androidx.media3.exoplayer.source.TrackGroupArray;
+
+import java.util.ArrayList;
+
+/**
+ * Last track list sent to JS for one track category (audio, text or video).
+ *
+ * onTracksChanged fires on every track selection, ad transition and period boundary, most of
+ * the time with the same tracks. The list only depends on the renderer track groups and on
+ * which groups are selected, so both are kept as the key: when they didn't change the list
+ * is neither rebuilt nor sent again.
+ * TrackGroupArray hash codes are cached by exoplayer, so comparing keys doesn't allocate.
+ */
+final class TrackListCache<T> {
+
+    interface Builder<T> {
+        ArrayList<T> build();
+    }
+
+    private TrackGroupArray groups;
+    private long selectionMask;
+    private ArrayList<T> tracks;
+
+    /**
+     * Rebuild the list if the key changed.
+     * @return true if the list changed and must be sent
+     */
+    boolean update(TrackGroupArray groups, long selectionMask, Builder<T> builder) {
+        if (tracks != null && selectionMask == this.selectionMask && groups.equals(this.groups)) {
+            return false;
+        }
+        this.groups = groups;
+        this.selectionMask = selectionMask;
+        this.tracks = builder.build();
+        return true;
+    }
+
+    ArrayList<T> getTracks() {
+        return tracks;
+    }
+
+    void reset() {
+        groups = null;
+        selectionMask = 0;
+        tracks = null;
+    }
+}
@@ -0,0 +1,169 @@
+package com.brentvatne.exoplayer;
+
+import android.graphics.SurfaceTexture;
+import android.view.Surface;
+import android.view.SurfaceView;
+import android.view.TextureView;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.media3.exoplayer.ExoPlayer;
+
+/**
+ * Video output of one ExoPlayerView.
+ *
+ * With a TextureView, the SurfaceTexture and its Surface belong to this class rather than to
+ * the view: the view is not allowed to release the texture when it is detached, and the
+ * texture is given back to it (or to the TextureView replacing it) when it is attached again.
+ * The player keeps rendering to the same Surface when the view moves to the fullscreen dialog
+ * and back, when the TextureView is recreated and when the player itself is rebuilt, so the
+ * decoder is not reconfigured and the last frame stays on screen instead of a black flash.
+ *
+ * A SurfaceView (secure view, DRM) surface belongs to its window and can't be kept, it is
+ * handed to the player as is.
+ */
+final class VideoSurfaceManager implements TextureView.SurfaceTextureListener, View.OnAttachStateChangeListener {
+
+    @Nullable
+    private ExoPlayer player;
+    @Nullable
+    private View view;
+    @Nullable
+    private SurfaceTexture surfaceTexture;
+    @Nullable
+    private Surface surface;
+
+    void setPlayer(@Nullable ExoPlayer player) {
+        if (this.player == player) {
+            return;
+        }
+        if (this.player != null) {
+            clearPlayerOutput();
+        }
+        this.player = player;
+        if (player != null) {
+            setPlayerOutput();
+        }
+    }
+
+    /**
+     * Sets the SurfaceView or TextureView showing the video. A TextureView replacing another one
+     * gets the same texture, the player is not told about the change.
+     */
+    void setView(View view) {
+        if (this.view == view) {
+            return;
+        }
+        boolean keepSurface = this.view instanceof TextureView && view instanceof TextureView;
+        if (!keepSurface && player != null && this.view != null) {
+            clearPlayerOutput();
+        }
+        if (this.view instanceof TextureView) {
+            // The listener is kept, the old view must not release the texture when it is detached
+            this.view.removeOnAttachStateChangeListener(this);
+            if (!(view instanceof TextureView)) {
+                releaseSurface();
+            }
+        }
+        this.view = view;
+        if (view instanceof TextureView) {
+            TextureView textureView = (TextureView) view;
+            textureView.setSurfaceTextureListener(this);
+            textureView.addOnAttachStateChangeListener(this);
+        }
+        if (!keepSurface && player != null) {
+            setPlayerOutput();
+        }
+    }
+
+    /** releases the texture, to call once the view is not used anymore */
+    void release() {
+        if (player != null) {
+            clearPlayerOutput();
+            player = null;
+        }
+        if (view instanceof TextureView) {
+            view.removeOnAttachStateChangeListener(this);
+        }
+        releaseSurface();
+    }
+
+    private void setPlayerOutput() {
+        if (view instanceof TextureView) {
+            if (surface != null) {
+                player.setVideoSurface(surface);
+            }
+        } else if (view instanceof SurfaceView) {
+            player.setVideoSurfaceView((SurfaceView) view);
+        }
+    }
+
+    private void clearPlayerOutput() {
+        if (view instanceof TextureView) {
+            if (surface != null) {
+                player.clearVideoSurface(surface);
+            }
+        } else if (view instanceof SurfaceView) {
+            player.clearVideoSurfaceView((SurfaceView) view);
+        }
+    }
+
+    private void releaseSurface() {
+        if (surface != null) {
+            surface.release();
+            surface = null;
+        }
+        if (surfaceTexture != null) {
+            surfaceTexture.release();
+            surfaceTexture = null;
+        }
+    }
+
+    // View.OnAttachStateChangeListener implementation
+
+    @Override
+    public void onViewAttachedToWindow(@NonNull View v) {
+        // Before the first draw, so the view doesn't create a texture of its own
+        if (v == view && surfaceTexture != null && ((TextureView) v).getSurfaceTexture() != surfaceTexture) {
+            ((TextureView) v).setSurfaceTexture(surfaceTexture);
+        }
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(@NonNull View v) {
+    }
+
+    // TextureView.SurfaceTextureListener implementation
+
+    @Override
+    public void onSurfaceTextureAvailable(@NonNull SurfaceTexture texture, int width, int height) {
+        if (texture == surfaceTexture) {
+            return;
+        }
+        // First texture, or the previous one was lost
+        if (player != null && surface != null) {
+            player.clearVideoSurface(surface);
+        }
+        releaseSurface();
+        surfaceTexture = texture;
+        surface = new Surface(texture);
+        if (player != null && view instanceof TextureView) {
+            player.setVideoSurface(surface);
+        }
+    }
+
+    @Override
+    public void onSurfaceTextureSizeChanged(@NonNull SurfaceTexture texture, int width, int height) {
+    }
+
+    @Override
+    public boolean onSurfaceTextureDestroyed(@NonNull SurfaceTexture texture) {
+        // Ours is kept for the next attach, any other one is released by the view
+        return texture != surfaceTexture;
+    }
+
+    @Override
+    public void onSurfaceTextureUpdated(@NonNull SurfaceTexture texture) {
+    }
+}
@@ -0,0 +1,208 @@
+package com.brentvatne.exoplayer;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.media3.common.Format;
+import androidx.media3.common.TrackGroup;
+import androidx.media3.exoplayer.source.TrackGroupArray;
+
+/**
+ * Caps the video rendition to the size the video is actually displayed at
+ * (inline view, fullscreen dialog or Picture-in-Picture window).
+ *
+ * The view size is quantized on a rendition height ladder so small layout changes don't
+ * trigger a new track selection. A larger cap is applied right away (the user sees the
+ * bigger view immediately), a smaller one only once the view kept that size for
+ * DOWNSIZE_DELAY_MS, so transient layouts (animations, keyboard, rotation) don't make
+ * the quality flap. Entering Picture-in-Picture skips the delay, and so does the first
+ * measurement: the uncapped initial state is not a size the user has seen.
+ *
+ * All methods are called on the main thread.
+ */
+final class ViewportController {
+
+    interface Listener {
+        /**
+         * Called when a new cap must be applied, width and height are Integer.MAX_VALUE when
+         * the cap is removed.
+         */
+        void onViewportCapChanged(int width, int height, String trigger);
+    }
+
+    static final String TRIGGER_LAYOUT = "layout";
+    static final String TRIGGER_FULLSCREEN = "fullscreen";
+    static final String TRIGGER_PICTURE_IN_PICTURE = "pictureInPicture";
+
+    private static final int[] HEIGHT_LADDER = {144, 240, 360, 480, 540, 720, 1080, 1440, 2160};
+    private static final long DOWNSIZE_DELAY_MS = 3000;
+    // Same as DefaultTrackSelector
+    private static final float FRACTION_TO_CONSIDER_FULLSCREEN = 0.98f;
+
+    private final Listener listener;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private boolean enabled = true;
+    private String pendingTrigger = TRIGGER_LAYOUT;
+    private int appliedWidth = Integer.MAX_VALUE;
+    private int appliedHeight = Integer.MAX_VALUE;
+    private int pendingWidth = Integer.MAX_VALUE;
+    private int pendingHeight = Integer.MAX_VALUE;
+    // False until the first size is known
+    private boolean measured = false;
+
+    private final Runnable applyPending = () -> apply(pendingWidth, pendingHeight);
+
+    ViewportController(Listener listener) {
+        this.listener = listener;
+    }
+
+    void setEnabled(boolean enabled) {
+        if (this.enabled == enabled) {
+            return;
+        }
+        this.enabled = enabled;
+        handler.removeCallbacks(applyPending);
+        if (!enabled) {
+            measured = false;
+            apply(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        }
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    int getWidth() {
+        return appliedWidth;
+    }
+
+    int getHeight() {
+        return appliedHeight;
+    }
+
+    /**
+     * Flag the origin of the next size change, fullscreen and PiP transitions are
+     * followed by a layout pass.
+     */
+    void setTrigger(String trigger) {
+        pendingTrigger = trigger;
+    }
+
+    /**
+     * New displayed size of the video, in pixels.
+     */
+    void onSizeChanged(int width, int height) {
+        if (!enabled || width <= 0 || height <= 0) {
+            return;
+        }
+        int quantizedHeight = quantizeHeight(height);
+        int quantizedWidth = quantizeWidth(width, height, quantizedHeight);
+        boolean firstMeasurement = !measured;
+        measured = true;
+        handler.removeCallbacks(applyPending);
+        pendingWidth = quantizedWidth;
+        pendingHeight = quantizedHeight;
+        if (quantizedWidth == appliedWidth && quantizedHeight == appliedHeight) {
+            pendingTrigger = TRIGGER_LAYOUT;
+            return;
+        }
+        boolean isDownsize = (long) quantizedWidth * quantizedHeight < (long) appliedWidth * appliedHeight;
+        if (isDownsize && !firstMeasurement && !TRIGGER_PICTURE_IN_PICTURE.equals(pendingTrigger)) {
+            handler.postDelayed(applyPending, DOWNSIZE_DELAY_MS);
+        } else {
+            apply(quantizedWidth, quantizedHeight);
+        }
+    }
+
+    void release() {
+        handler.removeCallbacks(applyPending);
+    }
+
+    private void apply(int width, int height) {
+        if (width == appliedWidth && height == appliedHeight) {
+            return;
+        }
+        appliedWidth = width;
+        appliedHeight = height;
+        String trigger = pendingTrigger;
+        pendingTrigger = TRIGGER_LAYOUT;
+        listener.onViewportCapChanged(width, height, trigger);
+    }
+
+    /** height ladder step covering this height, Integer.MAX_VALUE above the ladder */
+    static int quantizeHeight(int height) {
+        for (int step : HEIGHT_LADDER) {
+            if (height <= step) {
+                return step;
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    /** width matching the quantized height, aspect ratio kept */
+    static int quantizeWidth(int width, int height, int quantizedHeight) {
+        return quantizedHeight == Integer.MAX_VALUE
+                ? Integer.MAX_VALUE
+                : (int) Math.ceil((double) width * quantizedHeight / height);
+    }
+
+    /**
+     * Highest bitrate the track selector can pick among the video tracks for the given
+     * viewport, using the same rule as DefaultTrackSelector: formats bigger than the smallest
+     * one covering the viewport (at 98%) are dropped.
+     * Returns 0 when no bitrate is known.
+     */
+    static int getMaxBitrateForViewport(TrackGroupArray groups, int viewportWidth, int viewportHeight,
+                                        int maxVideoBitrate) {
+        long maxPixels = Long.MAX_VALUE;
+        if (viewportWidth != Integer.MAX_VALUE && viewportHeight != Integer.MAX_VALUE) {
+            for (int i = 0; i < groups.length; i++) {
+                TrackGroup group = groups.get(i);
+                for (int t = 0; t < group.length; t++) {
+                    Format format = group.getFormat(t);
+                    if (format.width <= 0 || format.height <= 0) {
+                        continue;
+                    }
+                    // Viewport fitted to the aspect ratio of the format, the format covers it
+                    // when at least as big (at 98%)
+                    int fittedWidth;
+                    int fittedHeight;
+                    if ((long) format.width * viewportHeight >= (long) format.height * viewportWidth) {
+                        fittedWidth = viewportWidth;
+                        fittedHeight = (int) ceilDivide((long) viewportWidth * format.height, format.width);
+                    } else {
+                        fittedWidth = (int) ceilDivide((long) viewportHeight * format.width, format.height);
+                        fittedHeight = viewportHeight;
+                    }
+                    long pixels = (long) format.width * format.height;
+                    if (format.width >= (int) (fittedWidth * FRACTION_TO_CONSIDER_FULLSCREEN)
+                            && format.height >= (int) (fittedHeight * FRACTION_TO_CONSIDER_FULLSCREEN)
+                            && pixels < maxPixels) {
+                        maxPixels = pixels;
+                    }
+                }
+            }
+        }
+        int maxBitrate = 0;
+        for (int i = 0; i < groups.length; i++) {
+            TrackGroup group = groups.get(i);
+            for (int t = 0; t < group.length; t++) {
+                Format format = group.getFormat(t);
+                if (format.bitrate == Format.NO_VALUE || format.bitrate > maxVideoBitrate) {
+                    continue;
+                }
+                if (format.width > 0 && format.height > 0
+                        && (long) format.width * format.height > maxPixels) {
+                    continue;
+                }
+                maxBitrate = Math.max(maxBitrate, format.bitrate);
+            }
+        }
+        return maxBitrate;
+    }
+
+    private static long ceilDivide(long numerator, long denominator) {
+        return (numerator + denominator - 1) / denominator;
+    }
+}
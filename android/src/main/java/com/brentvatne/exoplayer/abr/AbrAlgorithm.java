@@ -0,0 +1,42 @@
+package com.brentvatne.exoplayer.abr;
+
+/**
+ * Strategy picking the rendition of an adaptive video track selection.
+ *
+ * Implementations are called on the playback thread, once per chunk, and must not allocate.
+ */
+public interface AbrAlgorithm {
+
+    /**
+     * Inputs of a decision. A single instance is reused by the track selection.
+     */
+    final class Input {
+        /** Rendition bitrates in descending order, same order as the track selection */
+        public int[] bitrates;
+        /** Whether each rendition is currently excluded (e.g. after a load error) */
+        public boolean[] excluded;
+        /** Bandwidth estimate from the BandwidthMeter, bits per second */
+        public long bitrateEstimate;
+        /** Media currently buffered ahead of the playback position */
+        public long bufferedDurationUs;
+        /** Duration of the last loaded chunk, or C.TIME_UNSET before the first one */
+        public long chunkDurationUs;
+        /** Currently selected rendition */
+        public int selectedIndex;
+    }
+
+    /**
+     * @return the index of the rendition to select, the caller applies switch hysteresis on top
+     */
+    int select(Input input);
+
+    /**
+     * @return short description of why the last {@link #select(Input)} result was chosen
+     */
+    String getReason();
+
+    /**
+     * @return the name reported in the decision log
+     */
+    String getName();
+}
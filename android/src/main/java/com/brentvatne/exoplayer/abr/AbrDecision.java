@@ -0,0 +1,37 @@
+package com.brentvatne.exoplayer.abr;
+
+/**
+ * One entry of the ABR decision log, created when the selected rendition changes.
+ */
+public final class AbrDecision {
+
+    /**
+     * Receives decisions on the playback thread.
+     */
+    public interface Listener {
+        void onAbrDecision(AbrDecision decision);
+    }
+
+    public final String algorithm;
+    public final String reason;
+    public final int previousBitrate;
+    public final int bitrate;
+    public final int width;
+    public final int height;
+    public final long bitrateEstimate;
+    public final long bufferedDurationMs;
+    public final int switchCount;
+
+    AbrDecision(String algorithm, String reason, int previousBitrate, int bitrate, int width, int height,
+                long bitrateEstimate, long bufferedDurationMs, int switchCount) {
+        this.algorithm = algorithm;
+        this.reason = reason;
+        this.previousBitrate = previousBitrate;
+        this.bitrate = bitrate;
+        this.width = width;
+        this.height = height;
+        this.bitrateEstimate = bitrateEstimate;
+        this.bufferedDurationMs = bufferedDurationMs;
+        this.switchCount = switchCount;
+    }
+}
@@ -0,0 +1,146 @@
+package com.brentvatne.exoplayer.abr;
+
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+import androidx.media3.common.C;
+import androidx.media3.common.Format;
+import androidx.media3.common.TrackGroup;
+import androidx.media3.exoplayer.source.chunk.MediaChunk;
+import androidx.media3.exoplayer.source.chunk.MediaChunkIterator;
+import androidx.media3.exoplayer.trackselection.BaseTrackSelection;
+import androidx.media3.exoplayer.upstream.BandwidthMeter;
+
+import com.brentvatne.common.api.AbrConfig;
+
+import java.util.List;
+
+/**
+ * Adaptive video track selection delegating the rendition choice to an {@link AbrAlgorithm}
+ * and applying the switch hysteresis of the source {@link AbrConfig} on top of it:
+ * - no up-switch until enough media is buffered,
+ * - no down-switch while the buffer is comfortable,
+ * - no switch at all within minSwitchIntervalMs of the previous one, unless the buffer runs low.
+ */
+final class AbrTrackSelection extends BaseTrackSelection {
+
+    private final BandwidthMeter bandwidthMeter;
+    private final AbrAlgorithm algorithm;
+    @Nullable
+    private final AbrDecision.Listener listener;
+    private final long minDurationForQualityIncreaseUs;
+    private final long maxDurationForQualityDecreaseUs;
+    private final long minSwitchIntervalMs;
+
+    private final AbrAlgorithm.Input input = new AbrAlgorithm.Input();
+
+    private int selectedIndex;
+    private @C.SelectionReason int reason;
+    private long lastSwitchTimeMs = C.TIME_UNSET;
+    private int switchCount;
+
+    AbrTrackSelection(TrackGroup group, int[] tracks, int type, BandwidthMeter bandwidthMeter,
+                      AbrConfig config, AbrAlgorithm algorithm, @Nullable AbrDecision.Listener listener) {
+        super(group, tracks, type);
+        this.bandwidthMeter = bandwidthMeter;
+        this.algorithm = algorithm;
+        this.listener = listener;
+        this.minDurationForQualityIncreaseUs = config.getMinDurationForQualityIncreaseMs() * 1000L;
+        this.maxDurationForQualityDecreaseUs = config.getMaxDurationForQualityDecreaseMs() * 1000L;
+        this.minSwitchIntervalMs = config.getMinSwitchIntervalMs();
+
+        int length = length();
+        input.bitrates = new int[length];
+        input.excluded = new boolean[length];
+        for (int i = 0; i < length; i++) {
+            input.bitrates[i] = getFormat(i).bitrate;
+        }
+        input.chunkDurationUs = C.TIME_UNSET;
+        input.selectedIndex = length - 1;
+
+        selectedIndex = algorithm.select(fillInput(SystemClock.elapsedRealtime(), 0));
+        reason = C.SELECTION_REASON_INITIAL;
+        notifyDecision(-1, 0);
+    }
+
+    private AbrAlgorithm.Input fillInput(long nowMs, long bufferedDurationUs) {
+        for (int i = 0; i < input.excluded.length; i++) {
+            input.excluded[i] = isTrackExcluded(i, nowMs);
+        }
+        input.bitrateEstimate = bandwidthMeter.getBitrateEstimate();
+        input.bufferedDurationUs = bufferedDurationUs;
+        return input;
+    }
+
+    @Override
+    public void updateSelectedTrack(long playbackPositionUs, long bufferedDurationUs, long availableDurationUs,
+                                    List<? extends MediaChunk> queue, MediaChunkIterator[] mediaChunkIterators) {
+        long nowMs = SystemClock.elapsedRealtime();
+        if (!queue.isEmpty()) {
+            MediaChunk lastChunk = queue.get(queue.size() - 1);
+            input.chunkDurationUs = lastChunk.endTimeUs - lastChunk.startTimeUs;
+        }
+        input.selectedIndex = selectedIndex;
+        int idealIndex = algorithm.select(fillInput(nowMs, bufferedDurationUs));
+        if (idealIndex == selectedIndex) {
+            return;
+        }
+
+        if (!isTrackExcluded(selectedIndex, nowMs)) {
+            boolean isUpSwitch = input.bitrates[idealIndex] > input.bitrates[selectedIndex];
+            if (isUpSwitch && bufferedDurationUs < minDurationForQualityIncreaseUs) {
+                // Not enough buffered to absorb a bad guess on a higher rendition
+                return;
+            }
+            if (!isUpSwitch && bufferedDurationUs >= maxDurationForQualityDecreaseUs) {
+                // Enough buffered to ride out the dip on the current rendition
+                return;
+            }
+            boolean bufferRunningLow = !isUpSwitch && bufferedDurationUs < minDurationForQualityIncreaseUs;
+            if (!bufferRunningLow && lastSwitchTimeMs != C.TIME_UNSET
+                    && nowMs - lastSwitchTimeMs < minSwitchIntervalMs) {
+                return;
+            }
+        }
+
+        int previousIndex = selectedIndex;
+        selectedIndex = idealIndex;
+        reason = C.SELECTION_REASON_ADAPTIVE;
+        lastSwitchTimeMs = nowMs;
+        switchCount++;
+        notifyDecision(previousIndex, bufferedDurationUs);
+    }
+
+    private void notifyDecision(int previousIndex, long bufferedDurationUs) {
+        if (listener == null) {
+            return;
+        }
+        Format format = getFormat(selectedIndex);
+        listener.onAbrDecision(new AbrDecision(
+                algorithm.getName(),
+                previousIndex == -1 ? "initial" : algorithm.getReason(),
+                previousIndex == -1 ? 0 : getFormat(previousIndex).bitrate,
+                format.bitrate,
+                format.width,
+                format.height,
+                input.bitrateEstimate,
+                bufferedDurationUs / 1000,
+                switchCount));
+    }
+
+    @Override
+    public int getSelectedIndex() {
+        return selectedIndex;
+    }
+
+    @Override
+    public @C.SelectionReason int getSelectionReason() {
+        return reason;
+    }
+
+    @Nullable
+    @Override
+    public Object getSelectionData() {
+        return null;
+    }
+}
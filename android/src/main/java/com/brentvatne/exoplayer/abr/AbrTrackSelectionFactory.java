@@ -0,0 +1,79 @@
+package com.brentvatne.exoplayer.abr;
+
+import androidx.annotation.Nullable;
+import androidx.media3.common.C;
+import androidx.media3.common.Format;
+import androidx.media3.common.MimeTypes;
+import androidx.media3.common.Timeline;
+import androidx.media3.exoplayer.source.MediaSource;
+import androidx.media3.exoplayer.trackselection.AdaptiveTrackSelection;
+import androidx.media3.exoplayer.trackselection.ExoTrackSelection;
+import androidx.media3.exoplayer.upstream.BandwidthMeter;
+
+import com.brentvatne.common.api.AbrConfig;
+
+/**
+ * Track selection factory of the player, the ABR algorithm is chosen per source.
+ *
+ * Track selections are created each time tracks are (re)selected, so a new
+ * {@link #setAbrConfig(AbrConfig)} applies from the next selection without rebuilding the player.
+ * Without config, or with the Default algorithm, exoplayer AdaptiveTrackSelection is used as before.
+ * Audio and other adaptive groups always keep AdaptiveTrackSelection.
+ */
+public final class AbrTrackSelectionFactory implements ExoTrackSelection.Factory {
+
+    private final AdaptiveTrackSelection.Factory defaultFactory = new AdaptiveTrackSelection.Factory();
+    @Nullable
+    private final AbrDecision.Listener listener;
+
+    @Nullable
+    private volatile AbrConfig abrConfig;
+
+    public AbrTrackSelectionFactory(@Nullable AbrDecision.Listener listener) {
+        this.listener = listener;
+    }
+
+    public void setAbrConfig(@Nullable AbrConfig abrConfig) {
+        this.abrConfig = abrConfig;
+    }
+
+    @Override
+    public ExoTrackSelection[] createTrackSelections(ExoTrackSelection.Definition[] definitions,
+                                                    BandwidthMeter bandwidthMeter,
+                                                    MediaSource.MediaPeriodId mediaPeriodId,
+                                                    Timeline timeline) {
+        ExoTrackSelection[] selections =
+                defaultFactory.createTrackSelections(definitions, bandwidthMeter, mediaPeriodId, timeline);
+        AbrConfig config = abrConfig;
+        if (config == null || config.getAlgorithm() == AbrConfig.Algorithm.Default) {
+            return selections;
+        }
+        for (int i = 0; i < definitions.length; i++) {
+            ExoTrackSelection.Definition definition = definitions[i];
+            if (definition == null || definition.tracks.length <= 1 || !isVideo(definition)) {
+                continue;
+            }
+            selections[i] = new AbrTrackSelection(definition.group, definition.tracks, definition.type,
+                    bandwidthMeter, config, createAlgorithm(config), listener);
+        }
+        return selections;
+    }
+
+    private static boolean isVideo(ExoTrackSelection.Definition definition) {
+        Format format = definition.group.getFormat(definition.tracks[0]);
+        return MimeTypes.getTrackType(format.sampleMimeType) == C.TRACK_TYPE_VIDEO
+                || MimeTypes.getVideoMediaMimeType(format.codecs) != null;
+    }
+
+    private static AbrAlgorithm createAlgorithm(AbrConfig config) {
+        switch (config.getAlgorithm()) {
+            case Bola:
+                return new BolaAbrAlgorithm(config.getBufferTargetMs());
+            case Hybrid:
+                return new HybridAbrAlgorithm(config.getBandwidthFraction(), config.getBufferTargetMs());
+            case Throughput:
+            default:
+                return new ThroughputAbrAlgorithm(config.getBandwidthFraction());
+        }
+    }
+}
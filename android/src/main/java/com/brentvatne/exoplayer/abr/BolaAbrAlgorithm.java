@@ -0,0 +1,76 @@
+package com.brentvatne.exoplayer.abr;
+
+/**
+ * Buffer based algorithm (BOLA-BASIC, "BOLA: Near-Optimal Bitrate Adaptation for Online Videos").
+ *
+ * Each rendition gets a utility ln(bitrate / lowestBitrate) + 1 and the rendition maximizing
+ * (V * (utility + gp) - bufferLevel) / bitrate is picked. V and gp are derived from the buffer
+ * target so that the lowest rendition is chosen under {@link #MINIMUM_BUFFER_S} and the highest
+ * one close to the target, which is how dash.js parameterizes it.
+ */
+public final class BolaAbrAlgorithm implements AbrAlgorithm {
+
+    private static final double MINIMUM_BUFFER_S = 10;
+    private static final double MINIMUM_BUFFER_PER_LEVEL_S = 2;
+
+    private final double bufferTargetS;
+
+    // Parameters are derived from the bitrate ladder, recomputed only when the ladder changes
+    private int[] ladder;
+    private double[] utilities;
+    private double vp;
+    private double gp;
+
+    private String reason = "bufferLevel";
+
+    public BolaAbrAlgorithm(int bufferTargetMs) {
+        this.bufferTargetS = bufferTargetMs / 1000d;
+    }
+
+    private void updateParameters(int[] bitrates) {
+        int count = bitrates.length;
+        utilities = new double[count];
+        // bitrates are sorted descending, the last one is the lowest
+        double lowest = Math.max(1, bitrates[count - 1]);
+        for (int i = 0; i < count; i++) {
+            utilities[i] = Math.log(Math.max(1, bitrates[i]) / lowest) + 1;
+        }
+        double bufferTime = Math.max(bufferTargetS, MINIMUM_BUFFER_S + MINIMUM_BUFFER_PER_LEVEL_S * count);
+        double highestUtility = utilities[0];
+        gp = (highestUtility - 1) / (bufferTime / MINIMUM_BUFFER_S - 1);
+        vp = gp > 0 ? MINIMUM_BUFFER_S / gp : 0;
+        ladder = bitrates;
+    }
+
+    @Override
+    public int select(Input input) {
+        if (ladder != input.bitrates) {
+            updateParameters(input.bitrates);
+        }
+        double bufferLevelS = input.bufferedDurationUs / 1_000_000d;
+        int bestIndex = -1;
+        double bestScore = -Double.MAX_VALUE;
+        for (int i = 0; i < input.bitrates.length; i++) {
+            if (input.excluded[i]) {
+                continue;
+            }
+            double score = (vp * (utilities[i] + gp) - bufferLevelS) / Math.max(1, input.bitrates[i]);
+            if (bestIndex == -1 || score > bestScore) {
+                bestScore = score;
+                bestIndex = i;
+            }
+        }
+        reason = "bufferLevel";
+        return bestIndex != -1 ? bestIndex : input.selectedIndex;
+    }
+
+    @Override
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String getName() {
+        return "bola";
+    }
+}
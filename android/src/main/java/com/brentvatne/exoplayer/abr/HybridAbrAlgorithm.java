@@ -0,0 +1,47 @@
+package com.brentvatne.exoplayer.abr;
+
+/**
+ * Throughput based while the buffer builds up (startup, after a seek or a rebuffer), buffer
+ * based once it is stable. Same handover as the dash.js DYNAMIC strategy: BOLA takes over at the
+ * buffer target and gives control back under half of it, so the mode itself does not flap.
+ */
+public final class HybridAbrAlgorithm implements AbrAlgorithm {
+
+    private final ThroughputAbrAlgorithm throughput;
+    private final BolaAbrAlgorithm bola;
+    private final long enterBolaUs;
+    private final long leaveBolaUs;
+
+    private boolean useBola;
+    private String reason = "throughput";
+
+    public HybridAbrAlgorithm(float bandwidthFraction, int bufferTargetMs) {
+        throughput = new ThroughputAbrAlgorithm(bandwidthFraction);
+        bola = new BolaAbrAlgorithm(bufferTargetMs);
+        enterBolaUs = bufferTargetMs * 1000L;
+        leaveBolaUs = enterBolaUs / 2;
+    }
+
+    @Override
+    public int select(Input input) {
+        if (!useBola && input.bufferedDurationUs >= enterBolaUs) {
+            useBola = true;
+        } else if (useBola && input.bufferedDurationUs < leaveBolaUs) {
+            useBola = false;
+        }
+        AbrAlgorithm algorithm = useBola ? bola : throughput;
+        int index = algorithm.select(input);
+        reason = algorithm.getReason();
+        return index;
+    }
+
+    @Override
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String getName() {
+        return "hybrid";
+    }
+}
@@ -0,0 +1,42 @@
+package com.brentvatne.exoplayer.abr;
+
+/**
+ * Highest rendition whose bitrate fits in a fraction of the bandwidth estimate.
+ */
+public final class ThroughputAbrAlgorithm implements AbrAlgorithm {
+
+    private final float bandwidthFraction;
+    private String reason = "throughput";
+
+    public ThroughputAbrAlgorithm(float bandwidthFraction) {
+        this.bandwidthFraction = bandwidthFraction;
+    }
+
+    @Override
+    public int select(Input input) {
+        long usableBitrate = (long) (input.bitrateEstimate * bandwidthFraction);
+        int lowestIndex = -1;
+        for (int i = 0; i < input.bitrates.length; i++) {
+            if (input.excluded[i]) {
+                continue;
+            }
+            if (input.bitrates[i] <= usableBitrate) {
+                reason = "throughput";
+                return i;
+            }
+            lowestIndex = i;
+        }
+        reason = "throughputFloor";
+        return lowestIndex != -1 ? lowestIndex : input.selectedIndex;
+    }
+
+    @Override
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String getName() {
+        return "throughput";
+    }
+}
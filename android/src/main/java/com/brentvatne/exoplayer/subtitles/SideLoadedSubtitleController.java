@@ -0,0 +1,361 @@
+package com.brentvatne.exoplayer.subtitles;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+import androidx.media3.common.C;
+import androidx.media3.common.text.Cue;
+import androidx.media3.common.util.Util;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.DataSourceUtil;
+import androidx.media3.datasource.DataSpec;
+import androidx.media3.datasource.HttpDataSource;
+import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.exoplayer.PlayerMessage;
+
+import com.brentvatne.common.api.SideLoadedTextTrack;
+import com.brentvatne.common.toolbox.DebugLog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Side-loaded subtitles (textTracks prop), rendered next to the player instead of being
+ * merged into its source: tracks are added, removed or switched without preparing the source
+ * again.
+ *
+ * Only the selected track is fetched. It is downloaded and parsed on a background thread.
+ * The file is kept in a disk cache with its HTTP validators (ETag, Last-Modified) and
+ * revalidated by a conditional request, so a file changed at the same uri is not served from
+ * the cache; its cues are then kept in memory for the session, so switching back to a track
+ * is instant. The displayed cues change through player messages sent at the cue times.
+ * Public methods must be called on the main thread.
+ */
+public final class SideLoadedSubtitleController {
+
+    private static final String TAG = "SideLoadedSubtitles";
+    private static final int MAX_DISK_ENTRIES = 50;
+
+    public interface Listener {
+        /** cues to show, null when no side-loaded track is selected */
+        void onCues(@Nullable List<Cue> cues);
+    }
+
+    private final File directory;
+    private final Listener listener;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Parsed tracks of the session, by cache key
+    private final HashMap<String, SubtitleCues> loaded = new HashMap<>();
+    // Tracks being loaded, by cache key
+    private final HashSet<String> loading = new HashSet<>();
+
+    private List<SideLoadedTextTrack> tracks = Collections.emptyList();
+    private int selectedIndex = C.INDEX_UNSET;
+    @Nullable
+    private String selectedKey;
+    // Cues of the selected track, null while it loads
+    @Nullable
+    private SubtitleCues cues;
+    @Nullable
+    private DataSource.Factory dataSourceFactory;
+    @Nullable
+    private ExoPlayer player;
+    @Nullable
+    private PlayerMessage nextCueMessage;
+    @Nullable
+    private List<Cue> shownCues;
+    private boolean released = false;
+
+    public SideLoadedSubtitleController(File directory, Listener listener) {
+        this.directory = directory;
+        this.listener = listener;
+    }
+
+    public void setPlayer(@Nullable ExoPlayer player) {
+        cancelNextCueMessage();
+        this.player = player;
+        update();
+    }
+
+    /**
+     * Data sources of the tracks, null without a source: the selected track is loaded once a
+     * factory is set.
+     */
+    public void setDataSourceFactory(@Nullable DataSource.Factory dataSourceFactory) {
+        this.dataSourceFactory = dataSourceFactory;
+        if (selectedIndex != C.INDEX_UNSET && cues == null) {
+            load(tracks.get(selectedIndex), selectedKey);
+        }
+    }
+
+    /**
+     * Replaces the tracks, the selection is dropped: it is applied again by the caller.
+     */
+    public void setTracks(List<SideLoadedTextTrack> tracks) {
+        this.tracks = new ArrayList<>(tracks);
+        selectedIndex = C.INDEX_UNSET;
+    }
+
+    public List<SideLoadedTextTrack> getTracks() {
+        return tracks;
+    }
+
+    /** index in the tracks, C.INDEX_UNSET when none is selected */
+    public int getSelectedIndex() {
+        return selectedIndex;
+    }
+
+    /**
+     * Selects a track, C.INDEX_UNSET for none. The track is loaded in the background unless
+     * it was already loaded in this session.
+     * @return true when the selected index changed
+     */
+    public boolean select(int index) {
+        SideLoadedTextTrack track = index >= 0 && index < tracks.size() ? tracks.get(index) : null;
+        int previousIndex = selectedIndex;
+        selectedIndex = track == null ? C.INDEX_UNSET : index;
+        String key = track == null ? null : getKey(track);
+        if (!Objects.equals(key, selectedKey)) {
+            selectedKey = key;
+            cues = key == null ? null : loaded.get(key);
+            if (track != null && cues == null) {
+                load(track, key);
+            }
+            update();
+        }
+        return selectedIndex != previousIndex;
+    }
+
+    /** to call after a seek or any jump of the playback position */
+    public void onPositionDiscontinuity() {
+        update();
+    }
+
+    public void release() {
+        released = true;
+        cancelNextCueMessage();
+        player = null;
+        mainHandler.removeCallbacksAndMessages(null);
+        executor.shutdown();
+        loaded.clear();
+        loading.clear();
+    }
+
+    /** shows the cues at the playback position and schedules the next change */
+    private void update() {
+        cancelNextCueMessage();
+        if (selectedKey == null) {
+            show(null);
+            return;
+        }
+        if (cues == null || player == null || player.isPlayingAd()) {
+            show(Collections.emptyList());
+            return;
+        }
+        int index = cues.indexOf(Util.msToUs(player.getCurrentPosition()));
+        show(cues.getCues(index));
+        scheduleNextCue(index);
+    }
+
+    private void scheduleNextCue(int index) {
+        long nextTimeUs = cues == null || player == null ? C.TIME_UNSET : cues.getNextTimeUs(index);
+        if (nextTimeUs == C.TIME_UNSET) {
+            return;
+        }
+        final SubtitleCues scheduledCues = cues;
+        nextCueMessage = player.createMessage((messageType, payload) -> {
+                    // The position may still be slightly before the cue time, the index is not
+                    // computed again
+                    if (scheduledCues == cues && player != null && !player.isPlayingAd()) {
+                        show(scheduledCues.getCues(index + 1));
+                        scheduleNextCue(index + 1);
+                    }
+                })
+                .setLooper(Looper.getMainLooper())
+                .setPosition(Util.usToMs(nextTimeUs))
+                .send();
+    }
+
+    private void cancelNextCueMessage() {
+        if (nextCueMessage != null) {
+            nextCueMessage.cancel();
+            nextCueMessage = null;
+        }
+    }
+
+    private void show(@Nullable List<Cue> newCues) {
+        // Same list instance for the same event
+        if (newCues == shownCues) {
+            return;
+        }
+        shownCues = newCues;
+        listener.onCues(newCues);
+    }
+
+    private void load(SideLoadedTextTrack track, String key) {
+        // Without a source, loaded by setDataSourceFactory
+        if (released || dataSourceFactory == null || loading.contains(key)) {
+            return;
+        }
+        loading.add(key);
+        DataSource.Factory factory = dataSourceFactory;
+        File file = new File(directory, key);
+        Uri uri = track.getUri();
+        String mimeType = track.getType();
+        executor.execute(() -> {
+            SubtitleCues parsed = null;
+            try {
+                parsed = SubtitleCues.parse(fetch(factory, uri, file), mimeType);
+            } catch (IOException | RuntimeException e) {
+                DebugLog.w(TAG, "cannot load subtitles " + uri + ": " + e.getMessage());
+            }
+            final SubtitleCues result = parsed;
+            mainHandler.post(() -> onLoaded(key, result));
+        });
+    }
+
+    private void onLoaded(String key, @Nullable SubtitleCues parsed) {
+        if (released) {
+            return;
+        }
+        loading.remove(key);
+        if (parsed == null) {
+            return;
+        }
+        loaded.put(key, parsed);
+        if (key.equals(selectedKey)) {
+            cues = parsed;
+            update();
+        }
+    }
+
+    /**
+     * Content of the subtitle file: the cached file when the server confirms it did not change
+     * (or cannot be reached), the downloaded one otherwise.
+     */
+    private byte[] fetch(DataSource.Factory dataSourceFactory, Uri uri, File file) throws IOException {
+        SubtitleFile cached = null;
+        if (file.exists()) {
+            try {
+                cached = SubtitleFile.read(file);
+                //noinspection ResultOfMethodCallIgnored
+                file.setLastModified(System.currentTimeMillis());
+            } catch (IOException e) {
+                DebugLog.w(TAG, "dropping cached subtitles of " + uri + ": " + e.getMessage());
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+        SubtitleFile downloaded;
+        try {
+            downloaded = download(dataSourceFactory, uri, cached);
+        } catch (HttpDataSource.InvalidResponseCodeException e) {
+            if (cached != null && e.responseCode == 304) {
+                return cached.data;
+            }
+            throw e;
+        } catch (IOException e) {
+            if (cached == null) {
+                throw e;
+            }
+            DebugLog.w(TAG, "using cached subtitles of " + uri + ": " + e.getMessage());
+            return cached.data;
+        }
+        if (downloaded.hasValidator()) {
+            store(downloaded, file);
+        } else if (cached != null) {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+        return downloaded.data;
+    }
+
+    /** writes the file to the disk cache, the least recently used entries are removed */
+    private void store(SubtitleFile subtitleFile, File file) {
+        try {
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("cannot create " + directory);
+            }
+            subtitleFile.write(file);
+        } catch (IOException e) {
+            DebugLog.w(TAG, "cannot cache subtitles: " + e.getMessage());
+            return;
+        }
+        File[] files = directory.listFiles();
+        if (files == null || files.length <= MAX_DISK_ENTRIES) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (int i = 0; i < files.length - MAX_DISK_ENTRIES; i++) {
+            //noinspection ResultOfMethodCallIgnored
+            files[i].delete();
+        }
+    }
+
+    /**
+     * Downloads the file, conditionally when a cached copy has validators: the server answers
+     * 304 (an InvalidResponseCodeException) when the cached copy is still current.
+     */
+    private static SubtitleFile download(DataSource.Factory dataSourceFactory, Uri uri,
+                                         @Nullable SubtitleFile cached) throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        if (cached != null && cached.etag != null) {
+            headers.put("If-None-Match", cached.etag);
+        }
+        if (cached != null && cached.lastModified != null) {
+            headers.put("If-Modified-Since", cached.lastModified);
+        }
+        DataSource dataSource = dataSourceFactory.createDataSource();
+        try {
+            dataSource.open(new DataSpec.Builder().setUri(uri).setHttpRequestHeaders(headers).build());
+            byte[] data = DataSourceUtil.readToEnd(dataSource);
+            Map<String, List<String>> responseHeaders = dataSource.getResponseHeaders();
+            return new SubtitleFile(data,
+                    getHeader(responseHeaders, "ETag"), getHeader(responseHeaders, "Last-Modified"));
+        } finally {
+            DataSourceUtil.closeQuietly(dataSource);
+        }
+    }
+
+    @Nullable
+    private static String getHeader(Map<String, List<String>> headers, String name) {
+        // Header names are case insensitive
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                return header.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
+    /** disk cache file name of a track: its uri and type, the content is checked by the validators */
+    private static String getKey(SideLoadedTextTrack track) {
+        String id = track.getUri() + "|" + track.getType();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(id.getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(id.hashCode()) + "_" + id.length();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.brentvatne.exoplayer.subtitles;
+
+import android.os.SystemClock;
+import android.text.TextUtils;
+
+import androidx.annotation.Nullable;
+import androidx.media3.common.C;
+import androidx.media3.common.Format;
+import androidx.media3.common.MimeTypes;
+import androidx.media3.common.text.Cue;
+import androidx.media3.exoplayer.text.SubtitleDecoderFactory;
+import androidx.media3.extractor.text.SubtitleDecoder;
+import androidx.media3.extractor.text.SubtitleDecoderException;
+import androidx.media3.extractor.text.SubtitleInputBuffer;
+import androidx.media3.extractor.text.SubtitleOutputBuffer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parsed subtitle file: the cues shown from each event time until the next one, as built by
+ * the exoplayer decoder (text, position and style).
+ */
+final class SubtitleCues {
+
+    private static final long DECODE_TIMEOUT_MS = 10_000;
+
+    private final long[] timesUs;
+    // Cues of each event, the same list instance each time
+    private final List<List<Cue>> cues;
+
+    SubtitleCues(long[] timesUs, List<List<Cue>> cues) {
+        this.timesUs = timesUs;
+        this.cues = cues;
+    }
+
+    /** time of the event after index, C.TIME_UNSET after the last one */
+    long getNextTimeUs(int index) {
+        return index + 1 < timesUs.length ? timesUs[index + 1] : C.TIME_UNSET;
+    }
+
+    /** index of the last event at or before this position, -1 if none */
+    int indexOf(long positionUs) {
+        int low = 0;
+        int high = timesUs.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (timesUs[mid] <= positionUs) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /** cues shown from event index, empty before the first event */
+    List<Cue> getCues(int index) {
+        return index < 0 ? Collections.emptyList() : cues.get(index);
+    }
+
+    /**
+     * Parses a subtitle file with the exoplayer decoder of its mime type (WebVTT when unknown).
+     * Blocking, to call on a background thread.
+     */
+    static SubtitleCues parse(byte[] data, @Nullable String mimeType) throws IOException {
+        Format format = new Format.Builder()
+                .setSampleMimeType(TextUtils.isEmpty(mimeType) ? MimeTypes.TEXT_VTT : mimeType)
+                .build();
+        if (!SubtitleDecoderFactory.DEFAULT.supportsFormat(format)) {
+            throw new IOException("unsupported subtitle type " + format.sampleMimeType);
+        }
+        SubtitleDecoder decoder = SubtitleDecoderFactory.DEFAULT.createDecoder(format);
+        try {
+            SubtitleInputBuffer input = decoder.dequeueInputBuffer();
+            if (input == null) {
+                throw new IOException("no subtitle decoder input buffer");
+            }
+            input.ensureSpaceForWrite(data.length);
+            input.data.put(data);
+            input.flip();
+            input.timeUs = 0;
+            input.subsampleOffsetUs = 0;
+            decoder.queueInputBuffer(input);
+
+            // The decoder works on its own thread
+            long deadlineMs = SystemClock.elapsedRealtime() + DECODE_TIMEOUT_MS;
+            SubtitleOutputBuffer output;
+            while ((output = decoder.dequeueOutputBuffer()) == null) {
+                if (SystemClock.elapsedRealtime() > deadlineMs) {
+                    throw new IOException("subtitle decoding timed out");
+                }
+                Thread.sleep(5);
+            }
+            try {
+                int count = output.getEventTimeCount();
+                long[] timesUs = new long[count];
+                List<List<Cue>> cues = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    timesUs[i] = output.getEventTime(i);
+                    cues.add(Collections.unmodifiableList(new ArrayList<>(output.getCues(timesUs[i]))));
+                }
+                return new SubtitleCues(timesUs, cues);
+            } finally {
+                output.release();
+            }
+        } catch (SubtitleDecoderException e) {
+            throw new IOException("cannot decode subtitles", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("subtitle decoding interrupted", e);
+        } finally {
+            decoder.release();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.brentvatne.exoplayer.subtitles;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Subtitle file of the disk cache, as downloaded, with the validators of its HTTP response.
+ *
+ * The cues are parsed again from the file, so their position and style are kept, and the
+ * validators revalidate the file with a conditional request: a file changed at the same uri
+ * is downloaded again.
+ */
+final class SubtitleFile {
+
+    private static final int FORMAT_VERSION = 2;
+
+    final byte[] data;
+    @Nullable
+    final String etag;
+    @Nullable
+    final String lastModified;
+
+    SubtitleFile(byte[] data, @Nullable String etag, @Nullable String lastModified) {
+        this.data = data;
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    /** only a file with a validator is cached, it couldn't be revalidated otherwise */
+    boolean hasValidator() {
+        return etag != null || lastModified != null;
+    }
+
+    static SubtitleFile read(File file) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() != FORMAT_VERSION) {
+                throw new IOException("unknown subtitle cache version");
+            }
+            String etag = readString(input);
+            String lastModified = readString(input);
+            int length = input.readInt();
+            if (length < 0) {
+                throw new IOException("invalid subtitle length " + length);
+            }
+            byte[] data = new byte[length];
+            input.readFully(data);
+            return new SubtitleFile(data, etag, lastModified);
+        }
+    }
+
+    /** written to a temporary file first, a reader never sees a partial file */
+    void write(File file) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            output.writeInt(FORMAT_VERSION);
+            writeString(output, etag);
+            writeString(output, lastModified);
+            output.writeInt(data.length);
+            output.write(data);
+        } catch (IOException e) {
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            throw e;
+        }
+        if (!tempFile.renameTo(file)) {
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            throw new IOException("cannot write " + file);
+        }
+    }
+
+    // Length and UTF-8 bytes, -1 for null: no size limit unlike writeUTF
+    private static void writeString(DataOutputStream output, @Nullable String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    @Nullable
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
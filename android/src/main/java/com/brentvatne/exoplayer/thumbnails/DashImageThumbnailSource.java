@@ -0,0 +1,201 @@
+package com.brentvatne.exoplayer.thumbnails;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.net.Uri;
+
+import androidx.annotation.Nullable;
+import androidx.media3.common.C;
+import androidx.media3.common.Format;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.exoplayer.dash.DashSegmentIndex;
+import androidx.media3.exoplayer.dash.manifest.AdaptationSet;
+import androidx.media3.exoplayer.dash.manifest.DashManifest;
+import androidx.media3.exoplayer.dash.manifest.Descriptor;
+import androidx.media3.exoplayer.dash.manifest.Period;
+import androidx.media3.exoplayer.dash.manifest.RangedUri;
+import androidx.media3.exoplayer.dash.manifest.Representation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thumbnails from a DASH image adaptation set (DASH-IF thumbnails): each segment is a sprite
+ * sheet of columns x rows tiles ({@code thumbnail_tile} essential property) evenly covering
+ * the segment duration.
+ *
+ * Only the first period is used.
+ */
+public final class DashImageThumbnailSource extends ThumbnailSource {
+
+    private static final String TILE_SCHEME_SUFFIX = "thumbnail_tile";
+
+    private static final class TileCue extends Cue {
+        final Uri uri;
+        final Rect region;
+
+        TileCue(long startMs, long durationMs, Uri uri, Rect region) {
+            super(startMs, durationMs);
+            this.uri = uri;
+            this.region = region;
+        }
+    }
+
+    private final DataSource.Factory dataSourceFactory;
+    private final List<TileCue> cues;
+
+    private DashImageThumbnailSource(DataSource.Factory dataSourceFactory, List<TileCue> cues) {
+        super(cues);
+        this.dataSourceFactory = dataSourceFactory;
+        this.cues = cues;
+    }
+
+    /**
+     * Identity of the thumbnails of this manifest: first period and image representations.
+     * Live manifests are refreshed into new objects with the same key, the thumbnails are not
+     * reloaded for them.
+     */
+    public static String getSourceKey(DashManifest manifest) {
+        if (manifest.getPeriodCount() == 0) {
+            return "";
+        }
+        Period period = manifest.getPeriod(0);
+        StringBuilder key = new StringBuilder().append(period.id).append('@').append(period.startMs);
+        for (int i = 0; i < period.adaptationSets.size(); i++) {
+            AdaptationSet adaptationSet = period.adaptationSets.get(i);
+            if (adaptationSet.representations.isEmpty() || !isImage(adaptationSet.representations.get(0).format)) {
+                continue;
+            }
+            for (int j = 0; j < adaptationSet.representations.size(); j++) {
+                Representation representation = adaptationSet.representations.get(j);
+                key.append('|').append(representation.format.id).append(':').append(representation.revisionId);
+            }
+        }
+        return key.toString();
+    }
+
+    /** null when the manifest has no image adaptation set or its duration is unknown (live) */
+    @Nullable
+    public static DashImageThumbnailSource create(DataSource.Factory dataSourceFactory, DashManifest manifest,
+                                                  int maxWidth) {
+        if (manifest.getPeriodCount() == 0) {
+            return null;
+        }
+        long periodDurationUs = manifest.getPeriodDurationUs(0);
+        if (periodDurationUs == C.TIME_UNSET) {
+            return null;
+        }
+        Period period = manifest.getPeriod(0);
+        // Index loops: the stub manifest classes, used when the dash module is disabled, have no lists
+        for (int i = 0; i < period.adaptationSets.size(); i++) {
+            AdaptationSet adaptationSet = period.adaptationSets.get(i);
+            if (adaptationSet.representations.isEmpty() || !isImage(adaptationSet.representations.get(0).format)) {
+                continue;
+            }
+            Representation representation = selectRepresentation(adaptationSet, maxWidth);
+            int[] grid = getTileGrid(representation.essentialProperties);
+            if (grid == null) {
+                grid = getTileGrid(adaptationSet.essentialProperties);
+            }
+            if (grid == null) {
+                grid = new int[] {1, 1};
+            }
+            List<TileCue> cues = buildCues(representation, periodDurationUs, grid[0], grid[1]);
+            if (!cues.isEmpty()) {
+                return new DashImageThumbnailSource(dataSourceFactory, cues);
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    @Override
+    protected Bitmap decode(int index, int maxWidth) throws IOException {
+        TileCue cue = cues.get(index);
+        return decodeSheetRegion(dataSourceFactory, cue.uri, cue.region, maxWidth);
+    }
+
+    private static boolean isImage(Format format) {
+        String mimeType = format.containerMimeType != null ? format.containerMimeType : format.sampleMimeType;
+        return mimeType != null && mimeType.startsWith("image/");
+    }
+
+    /** smallest sheet with tiles about maxWidth wide, assuming the same grid in all representations */
+    private static Representation selectRepresentation(AdaptationSet adaptationSet, int maxWidth) {
+        Representation selected = adaptationSet.representations.get(0);
+        for (int i = 1; i < adaptationSet.representations.size(); i++) {
+            Representation representation = adaptationSet.representations.get(i);
+            int width = representation.format.width;
+            int selectedWidth = selected.format.width;
+            if (width != Format.NO_VALUE && (selectedWidth == Format.NO_VALUE
+                    || (width >= maxWidth && (selectedWidth < maxWidth || width < selectedWidth))
+                    || (selectedWidth < maxWidth && width > selectedWidth))) {
+                selected = representation;
+            }
+        }
+        return selected;
+    }
+
+    /** {columns, rows} of the thumbnail_tile property, null if absent */
+    @Nullable
+    private static int[] getTileGrid(List<Descriptor> properties) {
+        for (Descriptor property : properties) {
+            if (property.schemeIdUri.endsWith(TILE_SCHEME_SUFFIX) && property.value != null) {
+                String[] parts = property.value.toLowerCase().split("x");
+                if (parts.length == 2) {
+                    try {
+                        int columns = Integer.parseInt(parts[0].trim());
+                        int rows = Integer.parseInt(parts[1].trim());
+                        if (columns > 0 && rows > 0) {
+                            return new int[] {columns, rows};
+                        }
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static List<TileCue> buildCues(Representation representation, long periodDurationUs, int columns,
+                                           int rows) {
+        List<TileCue> cues = new ArrayList<>();
+        Format format = representation.format;
+        if (format.width == Format.NO_VALUE || format.height == Format.NO_VALUE || representation.baseUrls.isEmpty()) {
+            return cues;
+        }
+        String baseUrl = representation.baseUrls.get(0).url;
+        int tileWidth = format.width / columns;
+        int tileHeight = format.height / rows;
+        DashSegmentIndex index = representation.getIndex();
+        if (index == null) {
+            // Single sheet for the whole period
+            addSheetCues(cues, Uri.parse(baseUrl), 0, periodDurationUs, columns, rows, tileWidth, tileHeight);
+            return cues;
+        }
+        long segmentCount = index.getSegmentCount(periodDurationUs);
+        if (segmentCount == DashSegmentIndex.INDEX_UNBOUNDED) {
+            return cues;
+        }
+        long firstSegmentNum = index.getFirstSegmentNum();
+        for (long segmentNum = firstSegmentNum; segmentNum < firstSegmentNum + segmentCount; segmentNum++) {
+            RangedUri rangedUri = index.getSegmentUrl(segmentNum);
+            addSheetCues(cues, rangedUri.resolveUri(baseUrl), index.getTimeUs(segmentNum),
+                    index.getDurationUs(segmentNum, periodDurationUs), columns, rows, tileWidth, tileHeight);
+        }
+        return cues;
+    }
+
+    private static void addSheetCues(List<TileCue> cues, Uri uri, long startUs, long durationUs, int columns, int rows,
+                                     int tileWidth, int tileHeight) {
+        long tileDurationUs = durationUs / (columns * rows);
+        for (int tile = 0; tile < columns * rows; tile++) {
+            int x = (tile % columns) * tileWidth;
+            int y = (tile / columns) * tileHeight;
+            cues.add(new TileCue((startUs + tile * tileDurationUs) / 1000, tileDurationUs / 1000, uri,
+                    new Rect(x, y, x + tileWidth, y + tileHeight)));
+        }
+    }
+}
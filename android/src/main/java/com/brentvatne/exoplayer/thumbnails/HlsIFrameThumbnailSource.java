@@ -0,0 +1,150 @@
+package com.brentvatne.exoplayer.thumbnails;
+
+import android.graphics.Bitmap;
+import android.media.MediaMetadataRetriever;
+import android.net.Uri;
+
+import androidx.annotation.Nullable;
+import androidx.media3.common.C;
+import androidx.media3.common.Format;
+import androidx.media3.common.util.UriUtil;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.exoplayer.hls.playlist.HlsMediaPlaylist;
+import androidx.media3.exoplayer.hls.playlist.HlsMultivariantPlaylist;
+import androidx.media3.exoplayer.hls.playlist.HlsPlaylist;
+import androidx.media3.exoplayer.hls.playlist.HlsPlaylistParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thumbnails from the HLS I-frame playlist ({@code EXT-X-I-FRAME-STREAM-INF}, parsed by
+ * exoplayer as trick play variants).
+ *
+ * Each thumbnail is a single I-frame: its byte range (with the EXT-X-MAP init section, if any)
+ * is written to a temporary file and decoded by MediaMetadataRetriever. Encrypted I-frame
+ * playlists are not supported.
+ */
+public final class HlsIFrameThumbnailSource extends ThumbnailSource {
+
+    private static final class IFrameCue extends Cue {
+        final HlsMediaPlaylist.Segment segment;
+
+        IFrameCue(HlsMediaPlaylist.Segment segment) {
+            super(segment.relativeStartTimeUs / 1000, segment.durationUs / 1000);
+            this.segment = segment;
+        }
+    }
+
+    private final DataSource.Factory dataSourceFactory;
+    private final String baseUri;
+    private final List<IFrameCue> cues;
+    private final File tempFile;
+
+    private HlsIFrameThumbnailSource(DataSource.Factory dataSourceFactory, String baseUri, List<IFrameCue> cues,
+                                     File tempFile) {
+        super(cues);
+        this.dataSourceFactory = dataSourceFactory;
+        this.baseUri = baseUri;
+        this.cues = cues;
+        this.tempFile = tempFile;
+    }
+
+    /**
+     * Loads the I-frame playlist closest to maxWidth, null when the stream has none (or an
+     * encrypted one). I-frames are written to a temporary file of directory.
+     */
+    @Nullable
+    public static HlsIFrameThumbnailSource load(DataSource.Factory dataSourceFactory,
+                                                HlsMultivariantPlaylist multivariantPlaylist, int maxWidth,
+                                                File directory) throws IOException {
+        HlsMultivariantPlaylist.Variant variant = selectVariant(multivariantPlaylist, maxWidth);
+        if (variant == null) {
+            return null;
+        }
+        byte[] data = load(dataSourceFactory, variant.url, 0, C.LENGTH_UNSET);
+        HlsPlaylist playlist = new HlsPlaylistParser().parse(variant.url, new ByteArrayInputStream(data));
+        if (!(playlist instanceof HlsMediaPlaylist)) {
+            return null;
+        }
+        HlsMediaPlaylist mediaPlaylist = (HlsMediaPlaylist) playlist;
+        List<IFrameCue> cues = new ArrayList<>(mediaPlaylist.segments.size());
+        for (HlsMediaPlaylist.Segment segment : mediaPlaylist.segments) {
+            if (segment.fullSegmentEncryptionKeyUri != null || segment.drmInitData != null) {
+                return null;
+            }
+            cues.add(new IFrameCue(segment));
+        }
+        if (cues.isEmpty()) {
+            return null;
+        }
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("cannot create " + directory);
+        }
+        return new HlsIFrameThumbnailSource(dataSourceFactory, mediaPlaylist.baseUri, cues,
+                File.createTempFile("iframe", ".tmp", directory));
+    }
+
+    /** smallest trick play variant at least maxWidth wide, the widest one otherwise */
+    @Nullable
+    private static HlsMultivariantPlaylist.Variant selectVariant(HlsMultivariantPlaylist playlist, int maxWidth) {
+        HlsMultivariantPlaylist.Variant selected = null;
+        for (HlsMultivariantPlaylist.Variant variant : playlist.variants) {
+            Format format = variant.format;
+            if ((format.roleFlags & C.ROLE_FLAG_TRICK_PLAY) == 0) {
+                continue;
+            }
+            if (selected == null) {
+                selected = variant;
+                continue;
+            }
+            int width = format.width;
+            int selectedWidth = selected.format.width;
+            boolean fits = width >= maxWidth;
+            boolean selectedFits = selectedWidth >= maxWidth;
+            if ((fits && (!selectedFits || width < selectedWidth)) || (!fits && !selectedFits && width > selectedWidth)) {
+                selected = variant;
+            }
+        }
+        return selected;
+    }
+
+    @Nullable
+    @Override
+    protected Bitmap decode(int index, int maxWidth) throws IOException {
+        HlsMediaPlaylist.Segment segment = cues.get(index).segment;
+        try (FileOutputStream output = new FileOutputStream(tempFile)) {
+            if (segment.initializationSegment != null) {
+                output.write(loadSegment(segment.initializationSegment));
+            }
+            output.write(loadSegment(segment));
+        }
+        MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+        try {
+            retriever.setDataSource(tempFile.getAbsolutePath());
+            return scale(retriever.getFrameAtTime(), maxWidth);
+        } catch (RuntimeException e) {
+            throw new IOException("cannot decode I-frame " + index, e);
+        } finally {
+            retriever.release();
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+        }
+    }
+
+    @Override
+    void release() {
+        super.release();
+        //noinspection ResultOfMethodCallIgnored
+        tempFile.delete();
+    }
+
+    private byte[] loadSegment(HlsMediaPlaylist.Segment segment) throws IOException {
+        Uri uri = UriUtil.resolveToUri(baseUri, segment.url);
+        return load(dataSourceFactory, uri, segment.byteRangeOffset, segment.byteRangeLength);
+    }
+}
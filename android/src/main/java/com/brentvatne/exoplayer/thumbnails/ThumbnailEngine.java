@@ -0,0 +1,308 @@
+package com.brentvatne.exoplayer.thumbnails;
+
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
+
+import com.brentvatne.common.toolbox.DebugLog;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Seek preview thumbnails of one player.
+ *
+ * The source is built and thumbnails are decoded on a single background thread. Decoded
+ * thumbnails are kept in a bitmap LRU cache bounded in bytes, each one also written as a jpeg
+ * so JS gets a file uri: a cached thumbnail is answered right away on the calling thread.
+ * JS may still show a jpeg after its bitmap left the cache, the files are only deleted by
+ * {@link #release()}.
+ * Requests are served before prefetches; the prefetch queue is replaced on each position
+ * update, around the new position.
+ * Public methods can be called from any thread.
+ */
+public final class ThumbnailEngine {
+
+    private static final String TAG = "ThumbnailEngine";
+    private static final int JPEG_QUALITY = 80;
+
+    public interface Callback {
+        /** called on the engine thread, or on the calling thread for a cached thumbnail */
+        void onThumbnail(@Nullable Thumbnail thumbnail);
+    }
+
+    /**
+     * A decoded thumbnail and its jpeg file.
+     */
+    public static final class Thumbnail {
+        public final long startMs;
+        public final long durationMs;
+        public final int width;
+        public final int height;
+        public final Uri uri;
+        final Bitmap bitmap;
+
+        Thumbnail(long startMs, long durationMs, Bitmap bitmap, Uri uri) {
+            this.startMs = startMs;
+            this.durationMs = durationMs;
+            this.width = bitmap.getWidth();
+            this.height = bitmap.getHeight();
+            this.bitmap = bitmap;
+            this.uri = uri;
+        }
+    }
+
+    private static final class Request {
+        final int index;
+        final Callback callback;
+
+        Request(int index, Callback callback) {
+            this.index = index;
+            this.callback = callback;
+        }
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final File directory;
+    private final int maxWidth;
+    private final int prefetchCount;
+    private final LruCache<Integer, Thumbnail> cache;
+
+    // Guarded by this
+    private final ArrayDeque<Request> requests = new ArrayDeque<>();
+    private final ArrayDeque<Integer> prefetches = new ArrayDeque<>();
+    private boolean draining = false;
+    private int generation = 0;
+    // Jpeg files handed out, deleted on release
+    private final Set<File> files = new HashSet<>();
+
+    @Nullable
+    private volatile ThumbnailSource source;
+    private boolean released = false;
+
+    public ThumbnailEngine(File directory, int maxWidth, int cacheSizeBytes, int prefetchCount) {
+        this.directory = directory;
+        this.maxWidth = maxWidth;
+        this.prefetchCount = prefetchCount;
+        this.cache = new LruCache<Integer, Thumbnail>(cacheSizeBytes) {
+            @Override
+            protected int sizeOf(Integer key, Thumbnail value) {
+                return value.bitmap.getByteCount();
+            }
+        };
+    }
+
+    /**
+     * Builds the source on the engine thread, thumbnails of the previous source are dropped.
+     */
+    public synchronized void load(Callable<ThumbnailSource> loader) {
+        if (released) {
+            return;
+        }
+        final int loadGeneration = resetLocked();
+        executor.execute(() -> {
+            ThumbnailSource loaded;
+            try {
+                loaded = loader.call();
+            } catch (Exception e) {
+                DebugLog.w(TAG, "cannot load the thumbnails: " + e.getMessage());
+                loaded = null;
+            }
+            synchronized (this) {
+                if (loadGeneration != generation) {
+                    if (loaded != null) {
+                        loaded.release();
+                    }
+                    return;
+                }
+                source = loaded;
+                scheduleLocked();
+            }
+        });
+    }
+
+    /** drops the source and its thumbnails */
+    public synchronized void clear() {
+        if (!released) {
+            resetLocked();
+        }
+    }
+
+    public synchronized void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        resetLocked();
+        // After the decoding in progress, if any
+        executor.execute(this::deleteFiles);
+        executor.shutdown();
+    }
+
+    private void deleteFiles() {
+        List<File> deleted;
+        synchronized (this) {
+            deleted = new ArrayList<>(files);
+            files.clear();
+        }
+        for (File file : deleted) {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+        //noinspection ResultOfMethodCallIgnored
+        directory.delete();
+    }
+
+    /**
+     * Thumbnail covering this position: the callback is called right away when it is cached,
+     * after its decoding otherwise. Null when there is no thumbnail at this position.
+     */
+    public void getThumbnail(long positionMs, Callback callback) {
+        ThumbnailSource currentSource = source;
+        int index = currentSource == null ? -1 : currentSource.indexOf(positionMs);
+        if (index < 0) {
+            callback.onThumbnail(null);
+            return;
+        }
+        Thumbnail cached = cache.get(index);
+        if (cached != null) {
+            callback.onThumbnail(cached);
+            return;
+        }
+        synchronized (this) {
+            if (released) {
+                callback.onThumbnail(null);
+                return;
+            }
+            requests.add(new Request(index, callback));
+            scheduleLocked();
+        }
+    }
+
+    /**
+     * Decodes the thumbnails around this position in the background, nearest first.
+     */
+    public void prefetch(long positionMs) {
+        ThumbnailSource currentSource = source;
+        int index = currentSource == null ? -1 : currentSource.indexOf(positionMs);
+        if (index < 0) {
+            return;
+        }
+        List<Integer> indexes = new ArrayList<>(prefetchCount * 2 + 1);
+        indexes.add(index);
+        for (int i = 1; i <= prefetchCount; i++) {
+            if (index + i < currentSource.size()) {
+                indexes.add(index + i);
+            }
+            if (index - i >= 0) {
+                indexes.add(index - i);
+            }
+        }
+        synchronized (this) {
+            if (released) {
+                return;
+            }
+            prefetches.clear();
+            for (int candidate : indexes) {
+                if (cache.get(candidate) == null) {
+                    prefetches.add(candidate);
+                }
+            }
+            scheduleLocked();
+        }
+    }
+
+    private int resetLocked() {
+        generation++;
+        ThumbnailSource previous = source;
+        source = null;
+        if (previous != null) {
+            // Released on the engine thread, it may be decoding
+            executor.execute(previous::release);
+        }
+        for (Request request : requests) {
+            request.callback.onThumbnail(null);
+        }
+        requests.clear();
+        prefetches.clear();
+        cache.evictAll();
+        return generation;
+    }
+
+    private void scheduleLocked() {
+        if (!draining && source != null) {
+            draining = true;
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Request request;
+            int index;
+            int decodeGeneration;
+            ThumbnailSource currentSource;
+            synchronized (this) {
+                request = requests.poll();
+                Integer prefetch = request == null ? prefetches.poll() : null;
+                currentSource = source;
+                if ((request == null && prefetch == null) || currentSource == null) {
+                    draining = false;
+                    return;
+                }
+                index = request != null ? request.index : prefetch;
+                decodeGeneration = generation;
+            }
+            Thumbnail thumbnail = cache.get(index);
+            if (thumbnail == null) {
+                thumbnail = decode(currentSource, index, decodeGeneration);
+            }
+            if (request != null) {
+                request.callback.onThumbnail(thumbnail);
+            }
+        }
+    }
+
+    @Nullable
+    private Thumbnail decode(ThumbnailSource currentSource, int index, int decodeGeneration) {
+        try {
+            Bitmap bitmap = currentSource.decode(index, maxWidth);
+            if (bitmap == null) {
+                return null;
+            }
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("cannot create " + directory);
+            }
+            File file = new File(directory, decodeGeneration + "_" + index + ".jpg");
+            try (FileOutputStream output = new FileOutputStream(file)) {
+                bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, output);
+            }
+            Thumbnail thumbnail = new Thumbnail(currentSource.getStartMs(index), currentSource.getDurationMs(index),
+                    bitmap, Uri.fromFile(file));
+            synchronized (this) {
+                if (decodeGeneration != generation) {
+                    //noinspection ResultOfMethodCallIgnored
+                    file.delete();
+                    return null;
+                }
+                cache.put(index, thumbnail);
+                files.add(file);
+            }
+            return thumbnail;
+        } catch (IOException | RuntimeException e) {
+            DebugLog.w(TAG, "cannot decode thumbnail " + index + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
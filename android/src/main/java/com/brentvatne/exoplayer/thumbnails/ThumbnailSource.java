@@ -0,0 +1,157 @@
+package com.brentvatne.exoplayer.thumbnails;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import android.net.Uri;
+
+import androidx.annotation.Nullable;
+import androidx.media3.common.C;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.DataSourceUtil;
+import androidx.media3.datasource.DataSpec;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thumbnails of a stream: a sorted list of cues, each one covering a time range, and the
+ * way to decode the picture of a cue.
+ *
+ * Sources are built and decoded on the {@link ThumbnailEngine} thread only.
+ */
+public abstract class ThumbnailSource {
+
+    /**
+     * Time range of a thumbnail.
+     */
+    protected static class Cue implements Comparable<Cue> {
+        final long startMs;
+        final long durationMs;
+
+        protected Cue(long startMs, long durationMs) {
+            this.startMs = startMs;
+            this.durationMs = durationMs;
+        }
+
+        @Override
+        public int compareTo(Cue other) {
+            return Long.compare(startMs, other.startMs);
+        }
+    }
+
+    private final long[] startsMs;
+    private final long[] durationsMs;
+
+    // Last sprite sheet decoder, consecutive cues usually share their sheet
+    @Nullable
+    private Uri sheetUri;
+    @Nullable
+    private BitmapRegionDecoder sheetDecoder;
+
+    protected ThumbnailSource(List<? extends Cue> cues) {
+        Collections.sort(cues);
+        startsMs = new long[cues.size()];
+        durationsMs = new long[cues.size()];
+        for (int i = 0; i < cues.size(); i++) {
+            startsMs[i] = cues.get(i).startMs;
+            durationsMs[i] = cues.get(i).durationMs;
+        }
+    }
+
+    public final int size() {
+        return startsMs.length;
+    }
+
+    /** index of the cue covering this position, -1 if none */
+    public final int indexOf(long positionMs) {
+        int low = 0;
+        int high = startsMs.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (startsMs[mid] <= positionMs) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (found >= 0 && found == startsMs.length - 1 && positionMs >= startsMs[found] + durationsMs[found]) {
+            return -1;
+        }
+        return found;
+    }
+
+    public final long getStartMs(int index) {
+        return startsMs[index];
+    }
+
+    public final long getDurationMs(int index) {
+        return durationsMs[index];
+    }
+
+    /**
+     * Decodes the picture of a cue, scaled down to about maxWidth.
+     */
+    @Nullable
+    protected abstract Bitmap decode(int index, int maxWidth) throws IOException;
+
+    void release() {
+        if (sheetDecoder != null) {
+            sheetDecoder.recycle();
+            sheetDecoder = null;
+            sheetUri = null;
+        }
+    }
+
+    /**
+     * Decodes a region of a sprite sheet (whole image when region is null), the sheet is only
+     * downloaded once for consecutive calls.
+     */
+    @SuppressWarnings("deprecation") // the 3 arguments BitmapRegionDecoder.newInstance is API 31
+    @Nullable
+    protected final Bitmap decodeSheetRegion(DataSource.Factory dataSourceFactory, Uri uri, @Nullable Rect region,
+                                             int maxWidth) throws IOException {
+        if (!uri.equals(sheetUri) || sheetDecoder == null) {
+            release();
+            byte[] data = load(dataSourceFactory, uri, 0, C.LENGTH_UNSET);
+            sheetDecoder = BitmapRegionDecoder.newInstance(data, 0, data.length, false);
+            sheetUri = uri;
+        }
+        Rect rect = region != null ? region : new Rect(0, 0, sheetDecoder.getWidth(), sheetDecoder.getHeight());
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = 1;
+        while (rect.width() / (options.inSampleSize * 2) >= maxWidth) {
+            options.inSampleSize *= 2;
+        }
+        return scale(sheetDecoder.decodeRegion(rect, options), maxWidth);
+    }
+
+    /** downloads a byte range, the whole resource when length is C.LENGTH_UNSET */
+    protected static byte[] load(DataSource.Factory dataSourceFactory, Uri uri, long position, long length)
+            throws IOException {
+        DataSource dataSource = dataSourceFactory.createDataSource();
+        try {
+            dataSource.open(new DataSpec.Builder().setUri(uri).setPosition(position).setLength(length).build());
+            return DataSourceUtil.readToEnd(dataSource);
+        } finally {
+            DataSourceUtil.closeQuietly(dataSource);
+        }
+    }
+
+    @Nullable
+    protected static Bitmap scale(@Nullable Bitmap bitmap, int maxWidth) {
+        if (bitmap == null || bitmap.getWidth() <= maxWidth) {
+            return bitmap;
+        }
+        int height = Math.max(1, Math.round(bitmap.getHeight() * (float) maxWidth / bitmap.getWidth()));
+        Bitmap scaled = Bitmap.createScaledBitmap(bitmap, maxWidth, height, true);
+        if (scaled != bitmap) {
+            bitmap.recycle();
+        }
+        return scaled;
+    }
+}
@@ -0,0 +1,116 @@
+package com.brentvatne.exoplayer.thumbnails;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.net.Uri;
+
+import androidx.annotation.Nullable;
+import androidx.media3.common.C;
+import androidx.media3.common.util.UriUtil;
+import androidx.media3.datasource.DataSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thumbnails from a WebVTT index of sprite sheets: each cue payload is an image url, with
+ * an optional {@code #xywh=x,y,w,h} fragment selecting the tile.
+ */
+public final class VttThumbnailSource extends ThumbnailSource {
+
+    private static final String TIMING_SEPARATOR = "-->";
+    private static final String XYWH_FRAGMENT = "#xywh=";
+
+    private static final class VttCue extends Cue {
+        final Uri uri;
+        @Nullable
+        final Rect region;
+
+        VttCue(long startMs, long durationMs, Uri uri, @Nullable Rect region) {
+            super(startMs, durationMs);
+            this.uri = uri;
+            this.region = region;
+        }
+    }
+
+    private final DataSource.Factory dataSourceFactory;
+    private final List<VttCue> cues;
+
+    private VttThumbnailSource(DataSource.Factory dataSourceFactory, List<VttCue> cues) {
+        super(cues);
+        this.dataSourceFactory = dataSourceFactory;
+        this.cues = cues;
+    }
+
+    /** downloads and parses the index, null when it has no cue */
+    @Nullable
+    public static VttThumbnailSource load(DataSource.Factory dataSourceFactory, Uri uri) throws IOException {
+        String text = new String(load(dataSourceFactory, uri, 0, C.LENGTH_UNSET), StandardCharsets.UTF_8);
+        List<VttCue> cues = new ArrayList<>();
+        String[] lines = text.split("\r?\n");
+        for (int i = 0; i < lines.length - 1; i++) {
+            String line = lines[i];
+            int separator = line.indexOf(TIMING_SEPARATOR);
+            if (separator < 0) {
+                continue;
+            }
+            long startMs = parseTimestamp(line.substring(0, separator));
+            long endMs = parseTimestamp(line.substring(separator + TIMING_SEPARATOR.length()));
+            String payload = lines[i + 1].trim();
+            if (startMs < 0 || endMs < startMs || payload.isEmpty()) {
+                continue;
+            }
+            Rect region = null;
+            int fragment = payload.indexOf(XYWH_FRAGMENT);
+            if (fragment >= 0) {
+                region = parseRegion(payload.substring(fragment + XYWH_FRAGMENT.length()));
+                payload = payload.substring(0, fragment);
+            }
+            cues.add(new VttCue(startMs, endMs - startMs, UriUtil.resolveToUri(uri.toString(), payload), region));
+            i++;
+        }
+        return cues.isEmpty() ? null : new VttThumbnailSource(dataSourceFactory, cues);
+    }
+
+    @Nullable
+    @Override
+    protected Bitmap decode(int index, int maxWidth) throws IOException {
+        VttCue cue = cues.get(index);
+        return decodeSheetRegion(dataSourceFactory, cue.uri, cue.region, maxWidth);
+    }
+
+    /** [hh:]mm:ss.ttt, -1 when invalid */
+    private static long parseTimestamp(String value) {
+        String[] parts = value.trim().split("\\s+")[0].split(":");
+        try {
+            long ms = Math.round(Double.parseDouble(parts[parts.length - 1]) * 1000);
+            long multiplier = 60_000;
+            for (int i = parts.length - 2; i >= 0; i--) {
+                ms += Long.parseLong(parts[i]) * multiplier;
+                multiplier *= 60;
+            }
+            return ms;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Nullable
+    private static Rect parseRegion(String value) {
+        String[] parts = value.split(",");
+        if (parts.length != 4) {
+            return null;
+        }
+        try {
+            int x = Integer.parseInt(parts[0].trim());
+            int y = Integer.parseInt(parts[1].trim());
+            int width = Integer.parseInt(parts[2].trim());
+            int height = Integer.parseInt(parts[3].trim());
+            return width > 0 && height > 0 ? new Rect(x, y, x + width, y + height) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -2,25 +2,55 @@ package com.brentvatne.react;
 
 import android.annotation.SuppressLint;
 import android.media.MediaCodecInfo;
-import android.media.MediaCodecList;
 import android.media.MediaDrm;
-import android.media.MediaFormat;
 import android.media.UnsupportedSchemeException;
 import android.os.Build;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.RequiresApi;
 
+import com.brentvatne.common.toolbox.DebugLog;
+import com.brentvatne.common.toolbox.ReactBridgeUtils;
+import com.brentvatne.exoplayer.CodecCapabilityCache;
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
 
+import java.util.List;
 import java.util.UUID;
 
 @RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN_MR2)
 public class VideoDecoderPropertiesModule extends ReactContextBaseJavaModule {
 
+    private static final String TAG = "VideoDecoderPropertiesModule";
+
+    private static final UUID WIDEVINE_UUID = new UUID(0xEDEF8BA979D64ACEL, 0xA3C827DCD51D21EDL);
+    private static final String WIDEVINE_SECURITY_LEVEL_1 = "L1";
+    private static final String WIDEVINE_SECURITY_LEVEL_2 = "L2";
+    private static final String WIDEVINE_SECURITY_LEVEL_3 = "L3";
+    private static final String SECURITY_LEVEL_PROPERTY = "securityLevel";
+
+    private static final String PROP_MIME_TYPE = "mimeType";
+    private static final String PROP_WIDTH = "width";
+    private static final String PROP_HEIGHT = "height";
+    private static final String PROP_FPS = "fps";
+    private static final String PROP_SUPPORT = "support";
+    private static final String PROP_DECODER_NAME = "decoderName";
+    private static final String PROP_MAX_SUPPORTED_INSTANCES = "maxSupportedInstances";
+    private static final String PROP_PERFORMANCE_POINTS = "performancePoints";
+    private static final String PROP_COVERED_BY_PERFORMANCE_POINT = "coveredByPerformancePoint";
+    private static final String PROP_WIDEVINE_LEVEL = "widevineLevel";
+    private static final String PROP_DECODERS = "decoders";
+
+    // The security level can't change while the app runs, probe the DRM only once
+    private static volatile Integer widevineLevel = null;
+
     ReactApplicationContext reactContext;
 
     @NonNull
@@ -29,98 +59,183 @@ public class VideoDecoderPropertiesModule extends ReactContextBaseJavaModule {
         return "VideoDecoderProperties";
     }
 
-    @SuppressLint("ObsoleteSdkInt")
-    @ReactMethod
-    public void getWidevineLevel(Promise p) {
-        int widevineLevel = 0;
-
-        if (android.os.Build.VERSION.SDK_INT < android.os.Build.VERSION_CODES.JELLY_BEAN_MR2) {
-            p.resolve(widevineLevel);
-            return;
+    /**
+     * Widevine security level, MediaDrm is opened only for the first call and closed right after.
+     */
+    private static int getWidevineLevel() {
+        Integer level = widevineLevel;
+        if (level != null) {
+            return level;
         }
-        final UUID WIDEVINE_UUID = new UUID(0xEDEF8BA979D64ACEL, 0xA3C827DCD51D21EDL);
-        final String WIDEVINE_SECURITY_LEVEL_1 = "L1";
-        final String WIDEVINE_SECURITY_LEVEL_2 = "L2";
-        final String WIDEVINE_SECURITY_LEVEL_3 = "L3";
-        final String SECURITY_LEVEL_PROPERTY = "securityLevel";
-
         String securityProperty = null;
+        MediaDrm mediaDrm = null;
         try {
-            MediaDrm mediaDrm = new MediaDrm(WIDEVINE_UUID);
+            mediaDrm = new MediaDrm(WIDEVINE_UUID);
             securityProperty = mediaDrm.getPropertyString(SECURITY_LEVEL_PROPERTY);
         } catch (UnsupportedSchemeException e) {
-            e.printStackTrace();
-        }
-        if (securityProperty == null) {
-            p.resolve(widevineLevel);
-            return;
+            DebugLog.w(TAG, "Widevine not supported: " + e.getMessage());
+        } catch (Exception e) {
+            DebugLog.w(TAG, "cannot read Widevine security level: " + e.getMessage());
+        } finally {
+            if (mediaDrm != null) {
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+                    mediaDrm.close();
+                } else {
+                    mediaDrm.release();
+                }
+            }
         }
 
-        switch (securityProperty) {
-            case WIDEVINE_SECURITY_LEVEL_1: {
-                widevineLevel = 1;
-                break;
-            }
-            case WIDEVINE_SECURITY_LEVEL_2: {
-                widevineLevel = 2;
-                break;
-            }
-            case WIDEVINE_SECURITY_LEVEL_3: {
-                widevineLevel = 3;
-                break;
-            }
-            default: {
-                // widevineLevel 0
-                break;
+        level = 0;
+        if (securityProperty != null) {
+            switch (securityProperty) {
+                case WIDEVINE_SECURITY_LEVEL_1: {
+                    level = 1;
+                    break;
+                }
+                case WIDEVINE_SECURITY_LEVEL_2: {
+                    level = 2;
+                    break;
+                }
+                case WIDEVINE_SECURITY_LEVEL_3: {
+                    level = 3;
+                    break;
+                }
+                default: {
+                    // widevineLevel 0
+                    break;
+                }
             }
         }
-        p.resolve(widevineLevel);
+        widevineLevel = level;
+        return level;
     }
 
     @SuppressLint("ObsoleteSdkInt")
     @ReactMethod
-    public void isCodecSupported(String mimeType, int width, int height, Promise p) {
-        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
-            p.resolve("unsupported");
+    public void getWidevineLevel(Promise p) {
+        if (android.os.Build.VERSION.SDK_INT < android.os.Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            p.resolve(0);
             return;
         }
+        CodecCapabilityCache.getInstance().getExecutor().execute(() -> p.resolve(getWidevineLevel()));
+    }
 
-        MediaCodecList mRegularCodecs = new MediaCodecList(MediaCodecList.REGULAR_CODECS);
-        MediaFormat format = MediaFormat.createVideoFormat(mimeType, width, height);
-        String codecName = mRegularCodecs.findDecoderForFormat(format);
-
-        if (codecName == null) {
-            p.resolve("unsupported");
-            return;
-        }
+    @ReactMethod
+    public void isCodecSupported(String mimeType, int width, int height, Promise p) {
+        CodecCapabilityCache.getInstance().getExecutor().execute(() -> {
+            CodecCapabilityCache.Support support =
+                    CodecCapabilityCache.getInstance().getSupport(mimeType, width, height, 0);
+            p.resolve(toJsSupport(support));
+        });
+    }
 
-        // Fallback for android < 10
-        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
-            p.resolve("software");
-            return;
+    private static String toJsSupport(CodecCapabilityCache.Support support) {
+        switch (support) {
+            case HARDWARE:
+                return "hardware";
+            case SOFTWARE:
+                return "software";
+            default:
+                return "unsupported";
         }
+    }
 
-        boolean isHardwareAccelerated = false;
+    @ReactMethod
+    public void isHEVCSupported(Promise p) {
+        isCodecSupported("video/hevc", 1920, 1080, p);
+    }
 
-        for (MediaCodecInfo codecInfo : mRegularCodecs.getCodecInfos()) {
-            if (codecInfo.getName().equalsIgnoreCase(codecName)) {
-                isHardwareAccelerated = codecInfo.isHardwareAccelerated();
-                break;
-            }
+    /**
+     * Batch query: support of each {mimeType, width, height, fps} plus the Widevine level,
+     * resolved in one round-trip from the codec executor.
+     */
+    @ReactMethod
+    public void getDecoderCapabilities(ReadableArray queries, Promise p) {
+        // Read the bridge array on the calling thread, it isn't meant to be shared
+        int count = queries == null ? 0 : queries.size();
+        String[] mimeTypes = new String[count];
+        int[] widths = new int[count];
+        int[] heights = new int[count];
+        float[] frameRates = new float[count];
+        for (int i = 0; i < count; i++) {
+            ReadableMap query = queries.getMap(i);
+            mimeTypes[i] = ReactBridgeUtils.safeGetString(query, PROP_MIME_TYPE);
+            widths[i] = ReactBridgeUtils.safeGetInt(query, PROP_WIDTH, 0);
+            heights[i] = ReactBridgeUtils.safeGetInt(query, PROP_HEIGHT, 0);
+            frameRates[i] = ReactBridgeUtils.safeGetFloat(query, PROP_FPS, 0f);
         }
 
-        p.resolve(isHardwareAccelerated ? "software" : "hardware");
+        CodecCapabilityCache.getInstance().getExecutor().execute(() -> {
+            try {
+                WritableArray decoders = Arguments.createArray();
+                for (int i = 0; i < count; i++) {
+                    decoders.pushMap(getDecoderCapabilities(mimeTypes[i], widths[i], heights[i], frameRates[i]));
+                }
+                WritableMap result = Arguments.createMap();
+                result.putInt(PROP_WIDEVINE_LEVEL, getWidevineLevel());
+                result.putArray(PROP_DECODERS, decoders);
+                p.resolve(result);
+            } catch (Exception e) {
+                p.reject(e);
+            }
+        });
     }
 
-
-    @ReactMethod
-    public void isHEVCSupported(Promise p) {
-        isCodecSupported("video/hevc", 1920, 1080, p);
+    private static WritableMap getDecoderCapabilities(String mimeType, int width, int height, float frameRate) {
+        WritableMap entry = Arguments.createMap();
+        entry.putString(PROP_MIME_TYPE, mimeType);
+        entry.putInt(PROP_WIDTH, width);
+        entry.putInt(PROP_HEIGHT, height);
+        entry.putDouble(PROP_FPS, frameRate);
+        if (mimeType == null) {
+            entry.putString(PROP_SUPPORT, "unsupported");
+            return entry;
+        }
+        CodecCapabilityCache cache = CodecCapabilityCache.getInstance();
+        CodecCapabilityCache.Support support = cache.getSupport(mimeType, width, height, frameRate);
+        entry.putString(PROP_SUPPORT, toJsSupport(support));
+        if (support != CodecCapabilityCache.Support.HARDWARE && support != CodecCapabilityCache.Support.SOFTWARE) {
+            return entry;
+        }
+        MediaCodecInfo decoder = cache.findDecoder(mimeType, width, height, frameRate);
+        MediaCodecInfo.CodecCapabilities capabilities =
+                decoder == null ? null : CodecCapabilityCache.getCapabilities(decoder, mimeType);
+        if (capabilities == null) {
+            return entry;
+        }
+        entry.putString(PROP_DECODER_NAME, decoder.getName());
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            entry.putInt(PROP_MAX_SUPPORTED_INSTANCES, capabilities.getMaxSupportedInstances());
+        }
+        MediaCodecInfo.VideoCapabilities video = capabilities.getVideoCapabilities();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && video != null) {
+            List<MediaCodecInfo.VideoCapabilities.PerformancePoint> points = video.getSupportedPerformancePoints();
+            if (points != null) {
+                WritableArray performancePoints = Arguments.createArray();
+                boolean covered = false;
+                MediaCodecInfo.VideoCapabilities.PerformancePoint requested = width > 0 && height > 0 && frameRate > 0
+                        ? new MediaCodecInfo.VideoCapabilities.PerformancePoint(width, height, Math.round(frameRate))
+                        : null;
+                for (MediaCodecInfo.VideoCapabilities.PerformancePoint point : points) {
+                    performancePoints.pushString(point.toString());
+                    if (requested != null && point.covers(requested)) {
+                        covered = true;
+                    }
+                }
+                entry.putArray(PROP_PERFORMANCE_POINTS, performancePoints);
+                if (requested != null) {
+                    entry.putBoolean(PROP_COVERED_BY_PERFORMANCE_POINT, covered);
+                }
+            }
+        }
+        return entry;
     }
 
     public VideoDecoderPropertiesModule(ReactApplicationContext reactContext) {
         super(reactContext);
         this.reactContext = reactContext;
+        CodecCapabilityCache.getInstance().warmUp(reactContext);
     }
 
 }
@@ -1,13 +1,20 @@
 package com.brentvatne.react
 
+import androidx.media3.common.C
+import com.brentvatne.common.api.PlayerCommandBatch
 import com.brentvatne.common.toolbox.ReactBridgeUtils
+import com.brentvatne.exoplayer.PlaybackSnapshot
 import com.brentvatne.exoplayer.ReactExoplayerView
+import com.brentvatne.exoplayer.ReactExoplayerViewRegistry
+import com.facebook.react.bridge.Arguments
 import com.facebook.react.bridge.Promise
 import com.facebook.react.bridge.ReactApplicationContext
 import com.facebook.react.bridge.ReactContextBaseJavaModule
 import com.facebook.react.bridge.ReactMethod
+import com.facebook.react.bridge.ReadableArray
 import com.facebook.react.bridge.ReadableMap
 import com.facebook.react.bridge.UiThreadUtil
+import com.facebook.react.bridge.WritableMap
 import com.facebook.react.uimanager.UIManagerHelper
 import com.facebook.react.uimanager.common.UIManagerType
 import kotlin.math.roundToInt
@@ -15,7 +22,20 @@ import kotlin.math.roundToInt
 class VideoManagerModule(reactContext: ReactApplicationContext?) : ReactContextBaseJavaModule(reactContext) {
     override fun getName(): String = REACT_CLASS
 
+    /**
+     * Runs the callback on the UI thread with the view of this tag. Views come from
+     * [ReactExoplayerViewRegistry], the UIManager is only asked for views not registered.
+     */
     private fun performOnPlayerView(reactTag: Int, callback: (ReactExoplayerView?) -> Unit) {
+        val registeredView = ReactExoplayerViewRegistry.get(reactTag)
+        if (registeredView != null) {
+            if (UiThreadUtil.isOnUiThread()) {
+                callback(registeredView)
+            } else {
+                UiThreadUtil.runOnUiThread { callback(registeredView) }
+            }
+            return
+        }
         UiThreadUtil.runOnUiThread {
             try {
                 val uiManager = UIManagerHelper.getUIManager(
@@ -55,6 +75,38 @@ class VideoManagerModule(reactContext: ReactApplicationContext?) : ReactContextB
         }
     }
 
+    @ReactMethod
+    fun setScrubbing(scrubbing: Boolean, reactTag: Int) {
+        performOnPlayerView(reactTag) {
+            it?.setScrubbing(scrubbing)
+        }
+    }
+
+    @ReactMethod
+    fun getCoalescedSeeks(reactTag: Int, promise: Promise) {
+        performOnPlayerView(reactTag) {
+            it?.getCoalescedSeeks(promise)
+        }
+    }
+
+    /**
+     * New request headers for the running source (a refreshed CDN token for instance), used
+     * from the next request on without reloading, see [ReactExoplayerView.updateRequestHeaders].
+     * A null value removes the header, replace drops the headers missing from the update.
+     */
+    @ReactMethod
+    fun updateRequestHeaders(reactTag: Int, headers: ReadableMap, replace: Boolean) {
+        val requestHeaders = HashMap<String, String?>()
+        val iterator = headers.keySetIterator()
+        while (iterator.hasNextKey()) {
+            val key = iterator.nextKey()
+            requestHeaders[key] = ReactBridgeUtils.safeGetString(headers, key)
+        }
+        performOnPlayerView(reactTag) {
+            it?.updateRequestHeaders(requestHeaders, replace)
+        }
+    }
+
     @ReactMethod
     fun setVolume(volume: Float, reactTag: Int) {
         performOnPlayerView(reactTag) {
@@ -62,13 +114,117 @@ class VideoManagerModule(reactContext: ReactApplicationContext?) : ReactContextB
         }
     }
 
+    /**
+     * Applies several commands in a single UI thread pass, see [ReactExoplayerView.executeBatch].
+     * Resolves with the number of commands dropped by the coalescing.
+     */
+    @ReactMethod
+    fun executeBatch(reactTag: Int, commands: ReadableArray, promise: Promise) {
+        val batch = PlayerCommandBatch.parse(commands)
+        performOnPlayerView(reactTag) {
+            if (it == null) {
+                promise.reject("PLAYER_NOT_AVAILABLE", "Player is not initialized.")
+            } else {
+                it.executeBatch(batch)
+                promise.resolve(batch.coalescedCount)
+            }
+        }
+    }
+
     @ReactMethod
     fun getCurrentPosition(reactTag: Int, promise: Promise) {
+        // The position is readable from any thread, no UI thread hop
+        val registeredView = ReactExoplayerViewRegistry.get(reactTag)
+        if (registeredView != null) {
+            registeredView.getCurrentPosition(promise)
+            return
+        }
         performOnPlayerView(reactTag) {
             it?.getCurrentPosition(promise)
         }
     }
 
+    @ReactMethod
+    fun getSuppressedProgressTicks(reactTag: Int, promise: Promise) {
+        performOnPlayerView(reactTag) {
+            it?.getSuppressedProgressTicks(promise)
+        }
+    }
+
+    /**
+     * Playback state of one player, read synchronously from the JS thread without any UI
+     * thread hop. Null when the view is unknown or has no player yet.
+     */
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    fun getPlaybackSnapshotSync(reactTag: Int): WritableMap? =
+        ReactExoplayerViewRegistry.get(reactTag)?.playbackSnapshot?.let { snapshotToMap(it) }
+
+    /**
+     * Batch version of [getPlaybackSnapshotSync]: one entry per tag, in the same order. The
+     * players are read on the UI thread, the snapshots are not older than the call.
+     */
+    @ReactMethod
+    fun getPlaybackSnapshot(reactTags: ReadableArray, promise: Promise) {
+        val views = (0 until reactTags.size()).map { ReactExoplayerViewRegistry.get(reactTags.getInt(it)) }
+        UiThreadUtil.runOnUiThread {
+            val snapshots = Arguments.createArray()
+            for (view in views) {
+                val map = view?.readPlaybackSnapshot()?.let { snapshotToMap(it) }
+                if (map != null) {
+                    snapshots.pushMap(map)
+                } else {
+                    snapshots.pushNull()
+                }
+            }
+            promise.resolve(snapshots)
+        }
+    }
+
+    /**
+     * Seek preview thumbnail at this position, answered on the calling thread when cached.
+     * Resolves null without thumbnail.
+     */
+    @ReactMethod
+    fun getThumbnail(reactTag: Int, positionMs: Double, promise: Promise) {
+        val view = ReactExoplayerViewRegistry.get(reactTag)
+        if (view == null) {
+            promise.resolve(null)
+            return
+        }
+        view.getThumbnail(positionMs.toLong()) { thumbnail ->
+            if (thumbnail == null) {
+                promise.resolve(null)
+            } else {
+                val map = Arguments.createMap()
+                map.putString("uri", thumbnail.uri.toString())
+                map.putInt("width", thumbnail.width)
+                map.putInt("height", thumbnail.height)
+                map.putDouble("time", thumbnail.startMs / 1000.0)
+                map.putDouble("duration", thumbnail.durationMs / 1000.0)
+                promise.resolve(map)
+            }
+        }
+    }
+
+    private fun snapshotToMap(snapshot: PlaybackSnapshot): WritableMap? {
+        if (snapshot.isEmpty) {
+            return null
+        }
+        val map = Arguments.createMap()
+        map.putDouble("currentTime", msToSeconds(snapshot.getPositionMs()))
+        map.putDouble("bufferedPosition", msToSeconds(snapshot.bufferedPositionMs))
+        map.putDouble("duration", msToSeconds(snapshot.durationMs))
+        map.putString("playbackState", snapshot.playbackState)
+        map.putBoolean("isPlaying", snapshot.playing)
+        map.putDouble("playbackRate", snapshot.speed.toDouble())
+        map.putDouble("bitrate", snapshot.bitrate)
+        map.putDouble("liveOffset", msToSeconds(snapshot.liveOffsetMs))
+        return map
+    }
+
+    // -1 when unknown
+    private fun msToSeconds(timeMs: Long): Double = if (timeMs == C.TIME_UNSET) -1.0 else timeMs / 1000.0
+
     companion object {
         private const val REACT_CLASS = "VideoManager"
     }
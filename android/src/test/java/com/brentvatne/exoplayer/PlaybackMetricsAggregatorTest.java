@@ -0,0 +1,76 @@
+package com.brentvatne.exoplayer;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PlaybackMetricsAggregatorTest {
+
+    private PlaybackMetricsAggregator aggregator;
+
+    @Before
+    public void setUp() {
+        aggregator = new PlaybackMetricsAggregator(metrics -> { }, 1000);
+        aggregator.start();
+    }
+
+    @Test
+    public void addSample_skipsUnknownThroughputAndBitrate() {
+        aggregator.addSample(-1, -1, 25, 0);
+        aggregator.addSample(4_000_000, 2_000_000, 25, 0);
+        assertEquals(1, aggregator.throughput.getCount());
+        assertEquals(1, aggregator.bitrate.getCount());
+        assertEquals(2, aggregator.framesPerSecond.getCount());
+        assertEquals(4_000_000, aggregator.throughput.getLast(), 0);
+    }
+
+    @Test
+    public void addSample_aggregatesMinMaxAverage() {
+        aggregator.addSample(1_000_000, 800_000, 25, 0);
+        aggregator.addSample(3_000_000, 800_000, 25, 0);
+        aggregator.addSample(2_000_000, 2_500_000, 50, 0);
+        assertEquals(1_000_000, aggregator.throughput.getMin(), 0);
+        assertEquals(3_000_000, aggregator.throughput.getMax(), 0);
+        assertEquals(2_000_000, aggregator.throughput.getAverage(), 0);
+        assertEquals(2_500_000, aggregator.bitrate.getLast(), 0);
+        assertEquals(50, aggregator.framesPerSecond.getMax(), 0);
+    }
+
+    @Test
+    public void addSample_recordsDroppedFramesSinceThePreviousSample() {
+        aggregator.addSample(1, 1, 25, 3);
+        aggregator.addSample(1, 1, 25, 10);
+        aggregator.addSample(1, 1, 25, 10);
+        assertEquals(3, aggregator.droppedFrames.getCount());
+        assertEquals(7, aggregator.droppedFrames.getMax(), 0);
+        assertEquals(0, aggregator.droppedFrames.getLast(), 0);
+    }
+
+    @Test
+    public void addSample_neverRecordsNegativeDroppedFrames() {
+        aggregator.addSample(1, 1, 25, 10);
+        // The session counter restarted with a new player
+        aggregator.addSample(1, 1, 25, 2);
+        assertEquals(0, aggregator.droppedFrames.getMin(), 0);
+    }
+
+    @Test
+    public void start_resetsTheStatsAndTheDroppedFramesBase() {
+        aggregator.addSample(1_000_000, 800_000, 25, 5);
+        aggregator.start();
+        assertEquals(0, aggregator.throughput.getCount());
+        aggregator.addSample(1_000_000, 800_000, 25, 5);
+        assertEquals(5, aggregator.droppedFrames.getLast(), 0);
+    }
+
+    @Test
+    public void stop_resetsTheStats() {
+        aggregator.addSample(1_000_000, 800_000, 25, 0);
+        aggregator.stop();
+        assertEquals(0, aggregator.throughput.getCount());
+        assertEquals(0, aggregator.bitrate.getCount());
+        assertEquals(0, aggregator.framesPerSecond.getCount());
+        assertEquals(0, aggregator.droppedFrames.getCount());
+    }
+}
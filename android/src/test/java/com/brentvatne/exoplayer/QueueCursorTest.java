@@ -0,0 +1,81 @@
+package com.brentvatne.exoplayer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class QueueCursorTest {
+
+    @Test
+    public void startsOnSource() {
+        QueueCursor cursor = new QueueCursor();
+        assertEquals(-1, cursor.getCurrentIndex());
+        assertEquals(0, cursor.getNextIndex());
+        assertTrue(cursor.hasNext(1));
+        assertFalse(cursor.hasNext(0));
+    }
+
+    @Test
+    public void takeNext_walksThroughTheItems() {
+        QueueCursor cursor = new QueueCursor();
+        assertEquals(0, cursor.takeNext());
+        assertTrue(cursor.onItemStarted(0, 2));
+        assertEquals(1, cursor.takeNext());
+        assertTrue(cursor.onItemStarted(1, 2));
+        assertEquals(1, cursor.getCurrentIndex());
+        assertFalse(cursor.hasNext(2));
+    }
+
+    @Test
+    public void onItemStarted_ignoresThePlayingItemAndUnknownIndexes() {
+        QueueCursor cursor = new QueueCursor();
+        cursor.takeNext();
+        assertTrue(cursor.onItemStarted(0, 2));
+        assertFalse(cursor.onItemStarted(0, 2));
+        assertFalse(cursor.onItemStarted(2, 2));
+        assertFalse(cursor.onItemStarted(-1, 2));
+        assertEquals(0, cursor.getCurrentIndex());
+    }
+
+    @Test
+    public void onItemStarted_neverMovesTheNextIndexBack() {
+        QueueCursor cursor = new QueueCursor();
+        cursor.takeNext();
+        cursor.takeNext();
+        // Item 0 starts after item 1 was preloaded
+        assertTrue(cursor.onItemStarted(0, 3));
+        assertEquals(2, cursor.getNextIndex());
+    }
+
+    @Test
+    public void onPlayerReleased_addsThePlayingItemSuccessorAgain() {
+        QueueCursor cursor = new QueueCursor();
+        cursor.takeNext();
+        cursor.onItemStarted(0, 3);
+        // Item 1 was preloaded in the released player
+        cursor.takeNext();
+        cursor.onPlayerReleased();
+        assertEquals(1, cursor.getNextIndex());
+        assertEquals(0, cursor.getCurrentIndex());
+    }
+
+    @Test
+    public void onPlayerReleased_onSourceStartsTheQueueAgain() {
+        QueueCursor cursor = new QueueCursor();
+        cursor.takeNext();
+        cursor.onPlayerReleased();
+        assertEquals(0, cursor.getNextIndex());
+    }
+
+    @Test
+    public void reset_goesBackToSource() {
+        QueueCursor cursor = new QueueCursor();
+        cursor.takeNext();
+        cursor.onItemStarted(0, 2);
+        cursor.reset();
+        assertEquals(-1, cursor.getCurrentIndex());
+        assertEquals(0, cursor.getNextIndex());
+    }
+}
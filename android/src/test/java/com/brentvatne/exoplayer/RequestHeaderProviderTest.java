@@ -0,0 +1,60 @@
+package com.brentvatne.exoplayer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class RequestHeaderProviderTest {
+
+    private RequestHeaderProvider provider;
+
+    @Before
+    public void setUp() {
+        provider = new RequestHeaderProvider();
+        Map<String, String> sourceHeaders = new HashMap<>();
+        sourceHeaders.put("Authorization", "old");
+        sourceHeaders.put("X-Debug", "1");
+        provider.setHeaders(sourceHeaders);
+    }
+
+    @Test
+    public void updateHeaders_mergesOverTheCurrentHeaders() {
+        Map<String, String> update = new HashMap<>();
+        update.put("Authorization", "new");
+        provider.updateHeaders(update, false);
+        provider.updateHeaders(new HashMap<>(), false);
+
+        assertEquals("new", provider.getHeaders().get("Authorization"));
+        assertEquals("1", provider.getHeaders().get("X-Debug"));
+    }
+
+    @Test
+    public void updateHeaders_removesNullValues() {
+        Map<String, String> update = new HashMap<>();
+        update.put("X-Debug", null);
+        update.put("X-Missing", null);
+        provider.updateHeaders(update, false);
+
+        assertEquals(1, provider.getHeaders().size());
+        assertEquals("old", provider.getHeaders().get("Authorization"));
+    }
+
+    @Test
+    public void updateHeaders_replaceKeepsOnlyTheUpdate() {
+        Map<String, String> update = new HashMap<>();
+        update.put("Authorization", "new");
+        update.put("X-Debug", null);
+        provider.updateHeaders(update, true);
+
+        assertEquals(1, provider.getHeaders().size());
+        assertEquals("new", provider.getHeaders().get("Authorization"));
+
+        provider.updateHeaders(new HashMap<>(), true);
+        assertTrue(provider.getHeaders().isEmpty());
+    }
+}
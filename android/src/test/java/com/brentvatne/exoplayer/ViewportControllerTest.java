@@ -0,0 +1,113 @@
+package com.brentvatne.exoplayer;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.media3.common.Format;
+import androidx.media3.common.MimeTypes;
+import androidx.media3.common.TrackGroup;
+import androidx.media3.exoplayer.source.TrackGroupArray;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ViewportControllerTest {
+
+    private static Format video(int width, int height, int bitrate) {
+        return new Format.Builder()
+                .setSampleMimeType(MimeTypes.VIDEO_H264)
+                .setWidth(width)
+                .setHeight(height)
+                .setAverageBitrate(bitrate)
+                .setPeakBitrate(bitrate)
+                .build();
+    }
+
+    private static final TrackGroupArray LADDER = new TrackGroupArray(new TrackGroup(
+            video(640, 360, 800_000),
+            video(1280, 720, 2_500_000),
+            video(1920, 1080, 5_000_000)));
+
+    private static final class RecordingListener implements ViewportController.Listener {
+        final List<int[]> caps = new ArrayList<>();
+
+        @Override
+        public void onViewportCapChanged(int width, int height, String trigger) {
+            caps.add(new int[]{width, height});
+        }
+    }
+
+    @Test
+    public void firstMeasurement_isAppliedRightAway() {
+        RecordingListener listener = new RecordingListener();
+        ViewportController controller = new ViewportController(listener);
+        controller.onSizeChanged(600, 338);
+        assertEquals(1, listener.caps.size());
+        assertEquals(640, controller.getWidth());
+        assertEquals(360, controller.getHeight());
+    }
+
+    @Test
+    public void laterDownsize_waitsForTheDelay() {
+        RecordingListener listener = new RecordingListener();
+        ViewportController controller = new ViewportController(listener);
+        controller.onSizeChanged(1280, 720);
+        controller.onSizeChanged(400, 225);
+        // Posted on the handler, not applied yet
+        assertEquals(1, listener.caps.size());
+        assertEquals(720, controller.getHeight());
+        // Upsizes are applied right away
+        controller.onSizeChanged(1920, 1080);
+        assertEquals(2, listener.caps.size());
+        assertEquals(1080, controller.getHeight());
+    }
+
+    @Test
+    public void quantizeHeight_roundsUpOnTheLadder() {
+        assertEquals(144, ViewportController.quantizeHeight(1));
+        assertEquals(360, ViewportController.quantizeHeight(300));
+        assertEquals(720, ViewportController.quantizeHeight(720));
+        assertEquals(1080, ViewportController.quantizeHeight(721));
+        assertEquals(Integer.MAX_VALUE, ViewportController.quantizeHeight(2161));
+    }
+
+    @Test
+    public void quantizeWidth_keepsTheAspectRatio() {
+        assertEquals(640, ViewportController.quantizeWidth(400, 225, 360));
+        assertEquals(Integer.MAX_VALUE, ViewportController.quantizeWidth(4000, 2250, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void maxBitrate_uncappedViewport_isTheHighestBitrate() {
+        assertEquals(5_000_000, ViewportController.getMaxBitrateForViewport(
+                LADDER, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void maxBitrate_keepsTheSmallestFormatCoveringTheViewport() {
+        assertEquals(2_500_000, ViewportController.getMaxBitrateForViewport(LADDER, 1280, 720, Integer.MAX_VALUE));
+        assertEquals(2_500_000, ViewportController.getMaxBitrateForViewport(LADDER, 1000, 563, Integer.MAX_VALUE));
+        assertEquals(800_000, ViewportController.getMaxBitrateForViewport(LADDER, 640, 360, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void maxBitrate_acceptsFormatsSlightlySmallerThanTheViewport() {
+        // 1280x720 covers 98% of a 1300x731 viewport
+        assertEquals(2_500_000, ViewportController.getMaxBitrateForViewport(LADDER, 1300, 731, Integer.MAX_VALUE));
+        // but not 90% of a 1422x800 one
+        assertEquals(5_000_000, ViewportController.getMaxBitrateForViewport(LADDER, 1422, 800, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void maxBitrate_fitsTheViewportToTheFormatAspectRatio() {
+        // A tall viewport: the width limits the 16:9 formats
+        assertEquals(800_000, ViewportController.getMaxBitrateForViewport(LADDER, 640, 1000, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void maxBitrate_honorsMaxVideoBitrate() {
+        assertEquals(800_000, ViewportController.getMaxBitrateForViewport(
+                LADDER, Integer.MAX_VALUE, Integer.MAX_VALUE, 1_000_000));
+    }
+}
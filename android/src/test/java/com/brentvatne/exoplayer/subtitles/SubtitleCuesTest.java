@@ -0,0 +1,44 @@
+package com.brentvatne.exoplayer.subtitles;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import androidx.media3.common.C;
+import androidx.media3.common.text.Cue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class SubtitleCuesTest {
+
+    private final List<Cue> first = new ArrayList<>();
+    private final List<Cue> second = new ArrayList<>();
+    private final SubtitleCues cues = new SubtitleCues(new long[] {1_000_000, 3_000_000},
+            Arrays.asList(first, second));
+
+    @Test
+    public void indexOf_findsTheLastEventAtOrBeforeThePosition() {
+        assertEquals(-1, cues.indexOf(0));
+        assertEquals(0, cues.indexOf(1_000_000));
+        assertEquals(0, cues.indexOf(2_999_999));
+        assertEquals(1, cues.indexOf(10_000_000));
+    }
+
+    @Test
+    public void getNextTimeUs_isUnsetAfterTheLastEvent() {
+        assertEquals(1_000_000, cues.getNextTimeUs(-1));
+        assertEquals(3_000_000, cues.getNextTimeUs(0));
+        assertEquals(C.TIME_UNSET, cues.getNextTimeUs(1));
+    }
+
+    @Test
+    public void getCues_returnsTheSameListForAnEvent() {
+        assertTrue(cues.getCues(-1).isEmpty());
+        assertSame(first, cues.getCues(0));
+        assertSame(second, cues.getCues(1));
+    }
+}
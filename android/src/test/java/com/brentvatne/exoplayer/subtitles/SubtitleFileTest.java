@@ -0,0 +1,71 @@
+package com.brentvatne.exoplayer.subtitles;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class SubtitleFileTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("subtitles", null);
+    }
+
+    @After
+    public void tearDown() {
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    @Test
+    public void write_keepsFilesOver64KB() throws IOException {
+        byte[] data = new byte[200_000];
+        Arrays.fill(data, (byte) 'a');
+        new SubtitleFile(data, "\"v1\"", "Wed, 21 Oct 2015 07:28:00 GMT").write(file);
+
+        SubtitleFile read = SubtitleFile.read(file);
+        assertArrayEquals(data, read.data);
+        assertEquals("\"v1\"", read.etag);
+        assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", read.lastModified);
+    }
+
+    @Test
+    public void write_keepsMissingValidators() throws IOException {
+        new SubtitleFile(new byte[] {1, 2, 3}, null, "Wed, 21 Oct 2015 07:28:00 GMT").write(file);
+
+        SubtitleFile read = SubtitleFile.read(file);
+        assertNull(read.etag);
+        assertTrue(read.hasValidator());
+        assertFalse(new SubtitleFile(new byte[0], null, null).hasValidator());
+    }
+
+    @Test
+    public void read_rejectsAnotherVersion() throws IOException {
+        try (DataOutputStream output = new DataOutputStream(new FileOutputStream(file))) {
+            // Text only cues of the first cache version
+            output.writeInt(1);
+            output.writeInt(0);
+        }
+        try {
+            SubtitleFile.read(file);
+            fail();
+        } catch (IOException expected) {
+            // dropped by the controller
+        }
+    }
+}
@@ -19,9 +19,11 @@ import {
 
 import NativeVideoComponent, {
 	VideoManager,
+	type OnAbrDecisionData,
 	type OnAudioFocusChangedData,
 	type OnAudioTracksData,
 	type OnBandwidthUpdateData,
+	type OnBufferConfigAppliedData,
 	type OnBufferData,
 	type OnExternalPlaybackChangeData,
 	type OnLoadStartData,
@@ -29,17 +31,33 @@ import NativeVideoComponent, {
 	type OnPlaybackMetricsData,
 	type OnPlaybackStateChangedData,
 	type OnProgressData,
+	type OnQueueItemChangeData,
 	type OnSeekData,
 	type OnTextTrackDataChangedData,
 	type OnTimedMetadataData,
 	type OnVideoAspectRatioData,
 	type OnVideoErrorData,
 	type OnVideoTracksData,
+	type OnViewportCapChangedData,
+	type PlaybackSnapshot,
+	type PlayerCommand,
+	type Thumbnail,
 	type VideoComponentType,
 	type VideoSrc,
 } from "./specs/VideoNativeComponent";
-import type { OnLoadData, OnReceiveAdEventData, OnTextTracksData, ReactVideoProps } from "./types";
-import { generateHeaderForNative, getReactTag, resolveAssetSourceForVideo } from "./utils";
+import type {
+	OnLoadData,
+	OnReceiveAdEventData,
+	OnTextTracksData,
+	ReactVideoProps,
+	ReactVideoSource,
+} from "./types";
+import {
+	generateHeaderForNative,
+	getReactTag,
+	getSubscribedEventsMask,
+	resolveAssetSourceForVideo,
+} from "./utils";
 
 export type VideoSaveData = {
 	uri: string;
@@ -55,6 +73,78 @@ export interface VideoRef {
 	save: (options: object) => Promise<VideoSaveData>;
 	setVolume: (volume: number) => void;
 	getCurrentPosition: () => Promise<number>;
+	getSuppressedProgressTicks: () => Promise<number>;
+	getPlaybackSnapshot: () => PlaybackSnapshot | null;
+	executeBatch: (commands: PlayerCommand[]) => Promise<number>;
+	setScrubbing: (scrubbing: boolean) => void;
+	getCoalescedSeeks: () => Promise<number>;
+	updateRequestHeaders: (headers: Record<string, string | null>, replace?: boolean) => void;
+	getThumbnail: (time: number) => Promise<Thumbnail | null>;
+}
+
+// reactTag getter of each mounted VideoRef, for getPlaybackSnapshots
+const videoRefTags = new WeakMap<VideoRef, () => number>();
+
+/**
+ * Playback snapshots of several players in one native call, null for unmounted players,
+ * players not created yet and on other platforms than Android.
+ */
+export function getPlaybackSnapshots(
+	videoRefs: (VideoRef | null)[]
+): Promise<(PlaybackSnapshot | null)[]> {
+	if (Platform.OS !== "android") {
+		return Promise.resolve(videoRefs.map(() => null));
+	}
+	const reactTags = videoRefs.map((videoRef) => {
+		const getTag = videoRef ? videoRefTags.get(videoRef) : undefined;
+		try {
+			return getTag ? getTag() : -1;
+		} catch {
+			return -1;
+		}
+	});
+	return VideoManager.getPlaybackSnapshot(reactTags);
+}
+
+/** Source as sent to native, for src and the queue items */
+function toVideoSrc(source: ReactVideoSource | undefined): VideoSrc | undefined {
+	if (!source) {
+		return undefined;
+	}
+	const resolvedSource = resolveAssetSourceForVideo(source);
+	let uri = resolvedSource.uri || "";
+	if (uri && uri.match(/^\//)) {
+		uri = `file://${uri}`;
+	}
+	if (!uri) {
+		console.log("Trying to load empty source");
+	}
+	const isNetwork = !!(uri && uri.match(/^(rtp|rtsp|http|https):/));
+	const isAsset = !!(
+		uri && uri.match(/^(assets-library|ipod-library|file|content|ms-appx|ms-appdata):/)
+	);
+
+	// DANI - Añadimos el ID y el TITLE
+	const id = resolvedSource?.id?.toString() || "";
+	const title = resolvedSource?.title || "";
+
+	return {
+		uri,
+		id,
+		title,
+		isNetwork,
+		isAsset,
+		shouldCache: resolvedSource.shouldCache || false,
+		type: resolvedSource.type || "",
+		mainVer: resolvedSource.mainVer || 0,
+		patchVer: resolvedSource.patchVer || 0,
+		requestHeaders: generateHeaderForNative(resolvedSource.headers),
+		startPosition: resolvedSource.startPosition ?? -1,
+		cropStart: resolvedSource.cropStart || 0,
+		cropEnd: resolvedSource.cropEnd,
+		metadata: resolvedSource.metadata,
+		abr: resolvedSource.abr,
+	};
 }
 
 const Video = forwardRef<VideoRef, ReactVideoProps>(
@@ -103,6 +193,11 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
 			onTextTrackDataChanged,
 			onVideoTracks,
 			onAspectRatio,
+			onBufferConfigApplied,
+			onAbrDecision,
+			onViewportCapChanged,
+			onQueueItemChange,
+			queue,
 			...rest
 		},
 		ref
@@ -126,44 +221,32 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
 			[posterResizeMode]
 		);
 
-		const src = useMemo<VideoSrc | undefined>(() => {
-			if (!source) {
+		const src = useMemo(() => toVideoSrc(source), [source]);
+
+		const _queue = useMemo(() => {
+			if (!queue) {
 				return undefined;
 			}
-			const resolvedSource = resolveAssetSourceForVideo(source);
-			let uri = resolvedSource.uri || "";
-			if (uri && uri.match(/^\//)) {
-				uri = `file://${uri}`;
-			}
-			if (!uri) {
-				console.log("Trying to load empty source");
-			}
-			const isNetwork = !!(uri && uri.match(/^(rtp|rtsp|http|https):/));
-			const isAsset = !!(
-				uri && uri.match(/^(assets-library|ipod-library|file|content|ms-appx|ms-appdata):/)
-			);
-
-			// DANI - Añadimos el ID y el TITLE
-			const id = resolvedSource?.id?.toString() || "";
-			const title = resolvedSource?.title || "";
-
 			return {
-				uri,
-				id,
-				title,
-				isNetwork,
-				isAsset,
-				shouldCache: resolvedSource.shouldCache || false,
-				type: resolvedSource.type || "",
-				mainVer: resolvedSource.mainVer || 0,
-				patchVer: resolvedSource.patchVer || 0,
-				requestHeaders: generateHeaderForNative(resolvedSource.headers),
-				startPosition: resolvedSource.startPosition ?? -1,
-				cropStart: resolvedSource.cropStart || 0,
-				cropEnd: resolvedSource.cropEnd,
-				metadata: resolvedSource.metadata,
+				items: queue.items
+					.map((item) => {
+						const itemSrc = toVideoSrc(item);
+						if (!itemSrc || !item.drm) {
+							return itemSrc;
+						}
+						return {
+							...itemSrc,
+							drm: {
+								type: item.drm.type,
+								licenseServer: item.drm.licenseServer,
+								headers: generateHeaderForNative(item.drm.headers),
+							},
+						};
+					})
+					.filter((item): item is VideoSrc => !!item),
+				preloadHorizonMs: queue.preloadHorizonMs,
 			};
-		}, [source]);
+		}, [queue]);
 
 		const _drm = useMemo(() => {
 			if (!drm) {
@@ -306,6 +389,71 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
 			return VideoManager.getCurrentPosition(getReactTag(nativeRef));
 		}, []);
 
+		const getSuppressedProgressTicks = useCallback(() => {
+			if (Platform.OS !== "android") {
+				return Promise.resolve(0);
+			}
+			return VideoManager.getSuppressedProgressTicks(getReactTag(nativeRef));
+		}, []);
+
+		const getPlaybackSnapshot = useCallback(() => {
+			if (Platform.OS !== "android") {
+				return null;
+			}
+			return VideoManager.getPlaybackSnapshotSync(getReactTag(nativeRef));
+		}, []);
+
+		const setScrubbing = useCallback((scrubbing: boolean) => {
+			if (Platform.OS !== "android") {
+				return;
+			}
+			return VideoManager.setScrubbing(scrubbing, getReactTag(nativeRef));
+		}, []);
+
+		const getCoalescedSeeks = useCallback(() => {
+			if (Platform.OS !== "android") {
+				return Promise.resolve(0);
+			}
+			return VideoManager.getCoalescedSeeks(getReactTag(nativeRef));
+		}, []);
+
+		const updateRequestHeaders = useCallback(
+			(headers: Record<string, string | null>, replace = false) => {
+				if (Platform.OS !== "android") {
+					return;
+				}
+				return VideoManager.updateRequestHeaders(getReactTag(nativeRef), headers, replace);
+			},
+			[]
+		);
+
+		const getThumbnail = useCallback((time: number) => {
+			if (Platform.OS !== "android") {
+				return Promise.resolve(null);
+			}
+			return VideoManager.getThumbnail(getReactTag(nativeRef), Math.round(time * 1000));
+		}, []);
+
+		const executeBatch = useCallback(
+			async (commands: PlayerCommand[]) => {
+				if (Platform.OS === "android") {
+					return VideoManager.executeBatch(getReactTag(nativeRef), commands);
+				}
+				// One call per command on other platforms, track, rate and muted commands are not supported
+				for (const command of commands) {
+					if (command.type === "seek") {
+						await seek(command.time);
+					} else if (command.type === "setPaused") {
+						await (command.paused ? pause() : resume());
+					} else if (command.type === "setVolume") {
+						await setVolume(command.volume);
+					}
+				}
+				return 0;
+			},
+			[seek, pause, resume, setVolume]
+		);
+
 		const onVideoLoadStart = useCallback(
 			(e: NativeSyntheticEvent<OnLoadStartData>) => {
 				hasPoster && setShowPoster(true);
@@ -471,19 +619,130 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
 			[onAspectRatio]
 		);
 
+		const _onBufferConfigApplied = useCallback(
+			(e: NativeSyntheticEvent<OnBufferConfigAppliedData>) => {
+				onBufferConfigApplied?.(e.nativeEvent);
+			},
+			[onBufferConfigApplied]
+		);
+
+		const _onAbrDecision = useCallback(
+			(e: NativeSyntheticEvent<OnAbrDecisionData>) => {
+				onAbrDecision?.(e.nativeEvent);
+			},
+			[onAbrDecision]
+		);
+
+		const _onViewportCapChanged = useCallback(
+			(e: NativeSyntheticEvent<OnViewportCapChangedData>) => {
+				onViewportCapChanged?.(e.nativeEvent);
+			},
+			[onViewportCapChanged]
+		);
+
+		const _onQueueItemChange = useCallback(
+			(e: NativeSyntheticEvent<OnQueueItemChangeData>) => {
+				onQueueItemChange?.(e.nativeEvent);
+			},
+			[onQueueItemChange]
+		);
+
+		// Android builds and sends only the events listed here
+		const subscribedEvents = useMemo(
+			() =>
+				getSubscribedEventsMask({
+					onVideoLoadStart: onLoadStart || hasPoster,
+					onVideoLoad: onLoad || hasPoster,
+					onVideoError: onError,
+					onVideoProgress: onProgress,
+					onVideoSeek: onSeek,
+					onVideoEnd: onEnd,
+					onVideoFullscreenPlayerWillPresent: onFullscreenPlayerWillPresent,
+					onVideoFullscreenPlayerDidPresent: onFullscreenPlayerDidPresent,
+					onVideoFullscreenPlayerWillDismiss: onFullscreenPlayerWillDismiss,
+					onVideoFullscreenPlayerDidDismiss: onFullscreenPlayerDidDismiss,
+					onReadyForDisplay: onReadyForDisplay || hasPoster,
+					onVideoBuffer: onBuffer,
+					onVideoPlaybackStateChanged: onPlaybackStateChanged,
+					onVideoIdle: onIdle,
+					onTimedMetadata,
+					onVideoAudioBecomingNoisy: onAudioBecomingNoisy,
+					onAudioFocusChanged,
+					onPlaybackRateChange,
+					onVolumeChange,
+					onAudioTracks,
+					onTextTracks,
+					onTextTrackDataChanged,
+					onVideoTracks,
+					onVideoBandwidthUpdate: onBandwidthUpdate,
+					onVideoPlaybackMetrics: onPlaybackMetrics,
+					onReceiveAdEvent,
+					onPictureInPictureStatusChanged,
+					onBufferConfigApplied,
+					onAbrDecision,
+					onViewportCapChanged,
+					onQueueItemChange,
+				}),
+			[
+				hasPoster,
+				onLoadStart,
+				onLoad,
+				onError,
+				onProgress,
+				onSeek,
+				onEnd,
+				onFullscreenPlayerWillPresent,
+				onFullscreenPlayerDidPresent,
+				onFullscreenPlayerWillDismiss,
+				onFullscreenPlayerDidDismiss,
+				onReadyForDisplay,
+				onBuffer,
+				onPlaybackStateChanged,
+				onIdle,
+				onTimedMetadata,
+				onAudioBecomingNoisy,
+				onAudioFocusChanged,
+				onPlaybackRateChange,
+				onVolumeChange,
+				onAudioTracks,
+				onTextTracks,
+				onTextTrackDataChanged,
+				onVideoTracks,
+				onBandwidthUpdate,
+				onPlaybackMetrics,
+				onReceiveAdEvent,
+				onPictureInPictureStatusChanged,
+				onBufferConfigApplied,
+				onAbrDecision,
+				onViewportCapChanged,
+				onQueueItemChange,
+			]
+		);
+
 		useImperativeHandle(
 			ref,
-			() => ({
-				seek,
-				presentFullscreenPlayer,
-				dismissFullscreenPlayer,
-				save,
-				pause,
-				resume,
-				restoreUserInterfaceForPictureInPictureStopCompleted,
-				setVolume,
-				getCurrentPosition,
-			}),
+			() => {
+				const videoRef: VideoRef = {
+					seek,
+					presentFullscreenPlayer,
+					dismissFullscreenPlayer,
+					save,
+					pause,
+					resume,
+					restoreUserInterfaceForPictureInPictureStopCompleted,
+					setVolume,
+					getCurrentPosition,
+					getSuppressedProgressTicks,
+					getPlaybackSnapshot,
+					executeBatch,
+					setScrubbing,
+					getCoalescedSeeks,
+					updateRequestHeaders,
+					getThumbnail,
+				};
+				videoRefTags.set(videoRef, () => getReactTag(nativeRef));
+				return videoRef;
+			},
 			[
 				seek,
 				presentFullscreenPlayer,
@@ -494,6 +753,13 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
 				restoreUserInterfaceForPictureInPictureStopCompleted,
 				setVolume,
 				getCurrentPosition,
+				getSuppressedProgressTicks,
+				getPlaybackSnapshot,
+				executeBatch,
+				setScrubbing,
+				getCoalescedSeeks,
+				updateRequestHeaders,
+				getThumbnail,
 			]
 		);
 
@@ -503,6 +769,7 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
 					ref={nativeRef}
 					{...rest}
 					src={src}
+					queue={_queue}
 					drm={_drm}
 					playOffline={_playOffline}
 					multiSession={_multiSession}
@@ -516,6 +783,7 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
 					selectedTextTrack={_selectedTextTrack}
 					selectedAudioTrack={_selectedAudioTrack}
 					selectedVideoTrack={_selectedVideoTrack}
+					subscribedEvents={subscribedEvents}
 					onVideoLoad={
 						onLoad || hasPoster
 							? (onVideoLoad as (e: NativeSyntheticEvent<object>) => void)
@@ -563,6 +831,14 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
 						onRestoreUserInterfaceForPictureInPictureStop
 					}
 					onVideoAspectRatio={onAspectRatio ? _onVideoAspectRatio : undefined}
+					onBufferConfigApplied={
+						onBufferConfigApplied ? _onBufferConfigApplied : undefined
+					}
+					onAbrDecision={onAbrDecision ? _onAbrDecision : undefined}
+					onViewportCapChanged={
+						onViewportCapChanged ? _onViewportCapChanged : undefined
+					}
+					onQueueItemChange={onQueueItemChange ? _onQueueItemChange : undefined}
 					onReceiveAdEvent={
 						onReceiveAdEvent
 							? (_onReceiveAdEvent as (e: NativeSyntheticEvent<object>) => void)
@@ -3,5 +3,6 @@ export * from "./Player";
 export * from "./player/index";
 export { VideoDecoderProperties } from "./specs/VideoNativeComponent";
 export * from "./types";
+export { getPlaybackSnapshots } from "./Video";
 export type { VideoRef } from "./Video";
 export default Video;
@@ -1598,6 +1598,64 @@ export function NormalFlavour(props: NormalFlavourProps): React.ReactElement {
 		setMenuData(generatedMenuData);
 	};
 
+	// En Android los subtítulos sideloaded (textTracks) cambian sin un nuevo onLoad: solo llega
+	// onTextTracks. Se regeneran las entradas de subtítulos del menú ya generado, el resto de
+	// entradas y la selección actual se mantienen.
+	const refreshTextMenuData = () => {
+		const currentMenuData = menuDataRef.current;
+		if (!currentMenuData?.length) return;
+
+		const syntheticLoadData: OnLoadData = {
+			currentTime: 0,
+			duration: 0,
+			naturalSize: { width: 0, height: 0, orientation: "landscape" },
+			audioTracks: cachedAudioTracksRef.current,
+			textTracks: cachedTextTracksRef.current,
+			videoTracks: cachedVideoTracksRef.current,
+		};
+
+		const manifestExternalTracks = sourceRef.current?.currentManifest?.textTracks;
+
+		let generatedMenuData: Array<IPlayerMenuData> | undefined;
+		if (props.hooks?.mergeMenuData && typeof props.hooks.mergeMenuData === "function") {
+			generatedMenuData = props.hooks.mergeMenuData(
+				syntheticLoadData,
+				props.languagesMapping,
+				sourceRef.current?.isDASH,
+				manifestExternalTracks
+			);
+		} else {
+			// Igual que en handleOnLoad: el menú por defecto no añade las pistas del manifest
+			generatedMenuData = mergeMenuData(
+				syntheticLoadData,
+				props.languagesMapping,
+				sourceRef.current?.isDASH
+			);
+		}
+		if (!generatedMenuData?.length) return;
+
+		const isText = (item: IPlayerMenuData) => item.type === PLAYER_MENU_DATA_TYPE.TEXT;
+		const textMenuData = generatedMenuData.filter(isText);
+		if (JSON.stringify(textMenuData) === JSON.stringify(currentMenuData.filter(isText))) return;
+
+		currentLogger.current?.info(
+			`refreshTextMenuData - Updating ${textMenuData.length} text entries`
+		);
+
+		// Las entradas de subtítulos ocupan el mismo sitio en el menú
+		const firstTextPosition = currentMenuData.findIndex(isText);
+		const otherMenuData = currentMenuData.filter(item => !isText(item));
+		const position = firstTextPosition === -1 ? otherMenuData.length : firstTextPosition;
+		const newMenuData = [
+			...otherMenuData.slice(0, position),
+			...textMenuData,
+			...otherMenuData.slice(position),
+		];
+
+		menuDataRef.current = newMenuData;
+		setMenuData(newMenuData);
+	};
+
 	const ensureContentLoaded = (source: string) => {
 		if (isContentLoadedRef.current) return;
 		if (currentSourceType.current !== "content") return;
@@ -2317,6 +2375,7 @@ export function NormalFlavour(props: NormalFlavourProps): React.ReactElement {
 				`handleOnTextTracks - Caching ${e.textTracks.length} text tracks`
 			);
 			cachedTextTracksRef.current = e.textTracks as OnLoadData["textTracks"];
+			refreshTextMenuData();
 		}
 	};
 
@@ -42,6 +42,43 @@ export type VideoSrc = Readonly<{
 	cropStart?: Float;
 	cropEnd?: Float;
 	metadata?: VideoMetadata;
+	abr?: AbrConfig; // Android
+	drm?: Drm; // Android, queue items only
+}>;
+
+type AbrConfig = Readonly<{
+	algorithm?: WithDefault<
+		"default" | "throughput" | "bola" | "hybrid",
+		"default"
+	>;
+	minDurationForQualityIncreaseMs?: Int32;
+	maxDurationForQualityDecreaseMs?: Int32;
+	minSwitchIntervalMs?: Int32;
+	bandwidthFraction?: Float;
+	bufferTargetMs?: Int32;
+}>;
+
+type CodecPreference = Readonly<{
+	policy?: WithDefault<"default" | "hardwareFirst" | "efficiency", "default">;
+	preferredCodecs?: string[];
+}>;
+
+type PlaybackMetricsConfig = Readonly<{
+	intervalMs?: Int32;
+	reportWhilePaused?: boolean;
+	reportInBackground?: boolean;
+}>;
+
+type ThumbnailsConfig = Readonly<{
+	url?: string;
+	maxWidth?: Int32;
+	cacheSizeMb?: Int32;
+	prefetchCount?: Int32;
+}>;
+
+type QueueConfig = Readonly<{
+	items?: ReadonlyArray<VideoSrc>;
+	preloadHorizonMs?: Int32;
 }>;
 
 type DRMType = WithDefault<string, "widevine">;
@@ -194,6 +231,13 @@ export type OnBandwidthUpdateData = Readonly<{
  * (sub-second under load), iOS emits per AVPlayerItemAccessLog entry (~1/s).
  * Consumers should tolerate / decimate as needed.
  */
+type MetricStats = Readonly<{
+	min: Double;
+	max: Double;
+	avg: Double;
+	last: Double;
+}>;
+
 export type OnPlaybackMetricsData = Readonly<{
 	throughput?: Double; // observed/estimated bandwidth (bps); omitted/-1 if unknown
 	bitrate?: Double; // indicated/selected rendition bitrate (bps)
@@ -202,6 +246,13 @@ export type OnPlaybackMetricsData = Readonly<{
 	totalBytesTransferred?: Double; // session-cumulative network bytes; -1 if unknown
 	width?: Float; // selected video rendition width
 	height?: Float; // selected video rendition height
+	codec?: string; // Android: mime type of the current video rendition
+	codecReason?: string; // Android: why the codecPreference policy chose the codec
+	interval?: Int32; // Android: aggregation interval (ms), the *Stats cover it
+	throughputStats?: MetricStats;
+	bitrateStats?: MetricStats;
+	framesPerSecondStats?: MetricStats;
+	droppedFramesStats?: MetricStats; // frames dropped between samples
 }>;
 
 export type OnSeekData = Readonly<{
@@ -258,6 +309,8 @@ export type OnVideoTracksData = Readonly<{
 		bitrate?: Float;
 		selected?: boolean;
 	}[];
+	preferredCodec?: string; // Android, when a codecPreference policy applies
+	codecReason?: string;
 }>;
 
 export type OnPlaybackRateChangeData = Readonly<{
@@ -276,6 +329,56 @@ export type OnPictureInPictureStatusChangedData = Readonly<{
 	isActive: boolean;
 }>;
 
+/**
+ * Android: reports how a bufferConfig change was applied on a running player.
+ * "hot" means the new values were applied in place, "rebuild" means the player
+ * had to be released and re-created (`reason` tells why). Inconsistent thresholds
+ * are ignored and reported as "hot" with reason "invalidThresholds".
+ */
+export type OnBufferConfigAppliedData = Readonly<{
+	mode: WithDefault<"hot" | "rebuild", "hot">;
+	reason?: string;
+}>;
+
+/**
+ * Sent each time the ABR engine of the source picks a video rendition.
+ * `bufferDuration` is in seconds, bitrates in bits per second.
+ */
+export type OnAbrDecisionData = Readonly<{
+	algorithm: string;
+	reason: string;
+	previousBitrate: Int32;
+	bitrate: Int32;
+	width: Int32;
+	height: Int32;
+	bitrateEstimate: Double;
+	bufferDuration: Double;
+	switchCount: Int32;
+}>;
+
+/**
+ * Sent when the video size cap following the displayed size changes.
+ * width/height are 0 when the video is not capped, bitrates in bits per second.
+ */
+export type OnViewportCapChangedData = Readonly<{
+	width: Int32;
+	height: Int32;
+	trigger: WithDefault<"layout" | "fullscreen" | "pictureInPicture", "layout">;
+	cappedBitrate: Double;
+	uncappedBitrate: Double;
+	bandwidthSaved: Double;
+}>;
+
+/**
+ * Sent when playback moves on to an item of the queue prop, index in queue.items.
+ */
+export type OnQueueItemChangeData = Readonly<{
+	index: Int32;
+	id?: string;
+	uri: string;
+	reason: WithDefault<"auto" | "seek", "auto">;
+}>;
+
 type OnReceiveAdEventData = Readonly<{
 	data?: {};
 	event: WithDefault<string, "AD_BREAK_ENDED">;
@@ -329,6 +432,7 @@ export interface VideoNativeProps extends ViewProps {
 	filterEnabled?: boolean;
 	volume?: Float; // default 1.0
 	playInBackground?: boolean;
+	audioOnlyInBackground?: boolean; // Android
 	preventsDisplaySleepDuringVideoPlayback?: boolean;
 	preferredForwardBufferDuration?: Float; //ios, 0
 	playWhenInactive?: boolean; // ios, false
@@ -341,6 +445,7 @@ export interface VideoNativeProps extends ViewProps {
 	fullscreenAutorotate?: boolean;
 	fullscreenOrientation?: WithDefault<string, "all">;
 	progressUpdateInterval?: Float;
+	relaxedProgressUpdateInterval?: Float; // Android
 	restoreUserInterfaceForPIPStopCompletionHandler?: boolean;
 	localSourceEncryptionKeyScheme?: string;
 	debug?: DebugConfig;
@@ -355,9 +460,16 @@ export interface VideoNativeProps extends ViewProps {
 	reportBandwidth?: boolean; //Android
 	subtitleStyle?: SubtitleStyle; // android
 	useTextureView?: boolean; // Android
+	capVideoToViewport?: boolean; // Android, true
+	capVideoToDecoderPerformance?: boolean; // Android, true
+	codecPreference?: CodecPreference; // Android
+	playbackMetricsConfig?: PlaybackMetricsConfig; // Android
+	thumbnails?: ThumbnailsConfig; // Android
+	queue?: QueueConfig; // Android
 	useSecureView?: boolean; // Android
 	bufferingStrategy?: BufferingStrategyType; // Android
 	controlsStyles?: ControlsStyles; // Android
+	subscribedEvents?: Double; // Android, mask of the events with a handler, see getSubscribedEventsMask
 	onVideoLoad?: DirectEventHandler<OnLoadData>;
 	onVideoLoadStart?: DirectEventHandler<OnLoadStartData>;
 	onVideoAspectRatio?: DirectEventHandler<OnVideoAspectRatioData>;
@@ -388,6 +500,10 @@ export interface VideoNativeProps extends ViewProps {
 	onTextTracks?: DirectEventHandler<OnTextTracksData>; // android
 	onTextTrackDataChanged?: DirectEventHandler<OnTextTrackDataChangedData>; // iOS
 	onVideoTracks?: DirectEventHandler<OnVideoTracksData>; // android
+	onBufferConfigApplied?: DirectEventHandler<OnBufferConfigAppliedData>; // android
+	onAbrDecision?: DirectEventHandler<OnAbrDecisionData>; // android
+	onViewportCapChanged?: DirectEventHandler<OnViewportCapChangedData>; // android
+	onQueueItemChange?: DirectEventHandler<OnQueueItemChangeData>; // android
 }
 
 export type VideoComponentType = HostComponent<VideoNativeProps>;
@@ -396,14 +512,88 @@ export type VideoSaveData = {
 	uri: string;
 };
 
+type PlayerCommandTrack = Readonly<{
+	type?: string;
+	value?: string | number;
+}>;
+
+// Commands of VideoManager.executeBatch, time in seconds
+export type PlayerCommand =
+	| Readonly<{ type: "seek"; time: number }>
+	| Readonly<{ type: "setPaused"; paused: boolean }>
+	| Readonly<{ type: "setVolume"; volume: number }>
+	| Readonly<{ type: "setMuted"; muted: boolean }>
+	| Readonly<{ type: "setRate"; rate: number }>
+	| Readonly<{
+			type: "selectAudioTrack" | "selectTextTrack" | "selectVideoTrack";
+			track?: PlayerCommandTrack;
+	  }>;
+
+// Seek preview thumbnail, times in seconds
+export type Thumbnail = Readonly<{
+	uri: string;
+	width: number;
+	height: number;
+	time: number;
+	duration: number;
+}>;
+
+// Times in seconds, -1 when unknown (liveOffset: not live)
+export type PlaybackSnapshot = Readonly<{
+	currentTime: number;
+	bufferedPosition: number;
+	duration: number;
+	playbackState: "idle" | "buffering" | "ready" | "ended";
+	isPlaying: boolean;
+	playbackRate: number;
+	bitrate: number;
+	liveOffset: number;
+}>;
+
 export interface VideoManagerType {
 	save: (option: object, reactTag: number) => Promise<VideoSaveData>;
 	seek: (option: Seek, reactTag: number) => Promise<void>;
 	setPlayerPauseState: (paused: boolean, reactTag: number) => Promise<void>;
 	setVolume: (volume: number, reactTag: number) => Promise<void>;
 	getCurrentPosition: (reactTag: number) => Promise<number>;
+	getSuppressedProgressTicks: (reactTag: number) => Promise<number>; // Android
+	getPlaybackSnapshotSync: (reactTag: number) => PlaybackSnapshot | null; // Android
+	executeBatch: (reactTag: number, commands: PlayerCommand[]) => Promise<number>; // Android
+	setScrubbing: (scrubbing: boolean, reactTag: number) => Promise<void>; // Android
+	getCoalescedSeeks: (reactTag: number) => Promise<number>; // Android
+	updateRequestHeaders: (
+		reactTag: number,
+		headers: Record<string, string | null>,
+		replace: boolean
+	) => Promise<void>; // Android
+	getThumbnail: (reactTag: number, positionMs: number) => Promise<Thumbnail | null>; // Android
+	getPlaybackSnapshot: (reactTags: number[]) => Promise<(PlaybackSnapshot | null)[]>; // Android
 }
 
+export type DecoderCapabilitiesQuery = {
+	mimeType: string;
+	width?: number;
+	height?: number;
+	fps?: number;
+};
+
+export type DecoderCapabilities = {
+	mimeType: string;
+	width: number;
+	height: number;
+	fps: number;
+	support: "unsupported" | "hardware" | "software";
+	decoderName?: string;
+	maxSupportedInstances?: number; // Android 6+
+	performancePoints?: string[]; // Android 10+
+	coveredByPerformancePoint?: boolean; // Android 10+, when fps is provided
+};
+
+export type DecoderCapabilitiesResult = {
+	widevineLevel: number;
+	decoders: DecoderCapabilities[];
+};
+
 export interface VideoDecoderPropertiesType {
 	getWidevineLevel: () => Promise<number>;
 	isCodecSupported: (
@@ -412,6 +602,9 @@ export interface VideoDecoderPropertiesType {
 		height: number
 	) => Promise<"unsupported" | "hardware" | "software">;
 	isHEVCSupported: () => Promise<"unsupported" | "hardware" | "software">;
+	getDecoderCapabilities: (
+		queries: DecoderCapabilitiesQuery[]
+	) => Promise<DecoderCapabilitiesResult>;
 }
 
 export const VideoManager = NativeModules.VideoManager as VideoManagerType;
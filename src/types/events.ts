@@ -1,8 +1,10 @@
 import type { WithDefault } from "react-native/Libraries/Types/CodegenTypes";
 import type {
+	OnAbrDecisionData,
 	OnAudioFocusChangedData,
 	OnAudioTracksData,
 	OnBandwidthUpdateData,
+	OnBufferConfigAppliedData,
 	OnBufferData,
 	OnExternalPlaybackChangeData,
 	OnLoadStartData,
@@ -11,12 +13,14 @@ import type {
 	OnPlaybackRateChangeData,
 	OnPlaybackStateChangedData,
 	OnProgressData,
+	OnQueueItemChangeData,
 	OnSeekData,
 	OnTextTrackDataChangedData,
 	OnTimedMetadataData,
 	OnVideoAspectRatioData,
 	OnVideoErrorData,
 	OnVideoTracksData,
+	OnViewportCapChangedData,
 	OnVolumeChangeData,
 } from "../specs/VideoNativeComponent";
 
@@ -263,4 +267,8 @@ export interface ReactVideoEvents {
 	onTextTrackDataChanged?: (e: OnTextTrackDataChangedData) => void; // iOS
 	onVideoTracks?: (e: OnVideoTracksData) => void; //Android
 	onAspectRatio?: (e: OnVideoAspectRatioData) => void;
+	onBufferConfigApplied?: (e: OnBufferConfigAppliedData) => void; // Android
+	onAbrDecision?: (e: OnAbrDecisionData) => void; // Android
+	onViewportCapChanged?: (e: OnViewportCapChangedData) => void; // Android
+	onQueueItemChange?: (e: OnQueueItemChangeData) => void; // Android
 }
@@ -23,6 +23,7 @@ export type ReactVideoSourceProperties = {
 	cropStart?: number;
 	cropEnd?: number;
 	metadata?: VideoMetadata;
+	abr?: AbrConfig; // Android
 };
 
 export type ReactVideoSource = Readonly<
@@ -39,6 +40,45 @@ export type VideoMetadata = Readonly<{
 	imageUri?: string;
 }>;
 
+export type AbrAlgorithm = "default" | "throughput" | "bola" | "hybrid";
+
+export type AbrConfig = Readonly<{
+	algorithm?: AbrAlgorithm;
+	minDurationForQualityIncreaseMs?: number;
+	maxDurationForQualityDecreaseMs?: number;
+	minSwitchIntervalMs?: number;
+	bandwidthFraction?: number;
+	bufferTargetMs?: number;
+}>;
+
+export type CodecPreferencePolicy = "default" | "hardwareFirst" | "efficiency";
+
+export type CodecPreference = Readonly<{
+	policy?: CodecPreferencePolicy;
+	preferredCodecs?: string[];
+}>;
+
+export type PlaybackMetricsConfig = Readonly<{
+	intervalMs?: number;
+	reportWhilePaused?: boolean;
+	reportInBackground?: boolean;
+}>;
+
+export type ThumbnailsConfig = Readonly<{
+	url?: string;
+	maxWidth?: number;
+	cacheSizeMb?: number;
+	prefetchCount?: number;
+}>;
+
+// drm of the item, the drm prop when absent
+export type QueueItem = ReactVideoSource & Readonly<{ drm?: Drm }>;
+
+export type QueueConfig = Readonly<{
+	items: ReadonlyArray<QueueItem>;
+	preloadHorizonMs?: number;
+}>;
+
 export type DebugConfig = Readonly<{
 	enable?: boolean;
 	thread?: boolean;
@@ -225,12 +265,14 @@ export interface ReactVideoProps extends ReactVideoEvents, ViewProps {
 	pictureInPicture?: boolean; // Android, iOS — true enters PiP now; on Android the exit is user-driven
 	enterPictureInPictureOnLeave?: boolean; // Android, iOS — auto-enter PiP on app background while playing
 	playInBackground?: boolean;
+	audioOnlyInBackground?: boolean; // Android
 	playWhenInactive?: boolean; // iOS
 	poster?: string;
 	posterResizeMode?: EnumValues<PosterResizeModeType>;
 	preferredForwardBufferDuration?: number; // iOS
 	preventsDisplaySleepDuringVideoPlayback?: boolean;
 	progressUpdateInterval?: number;
+	relaxedProgressUpdateInterval?: number; // Android
 	rate?: number;
 	repeat?: boolean;
 	reportBandwidth?: boolean; //Android
@@ -244,6 +286,12 @@ export interface ReactVideoProps extends ReactVideoEvents, ViewProps {
 	textTracks?: TextTracks;
 	testID?: string;
 	useTextureView?: boolean; // Android
+	capVideoToViewport?: boolean; // Android
+	capVideoToDecoderPerformance?: boolean; // Android
+	codecPreference?: CodecPreference; // Android
+	playbackMetricsConfig?: PlaybackMetricsConfig; // Android
+	thumbnails?: ThumbnailsConfig; // Android
+	queue?: QueueConfig; // Android
 	useSecureView?: boolean; // Android
 	volume?: number;
 	localSourceEncryptionKeyScheme?: string;
@@ -45,3 +45,59 @@ export function getReactTag(
 
 	return reactTag;
 }
+
+// Android native event names, in the order of VideoEventEmitter.Events: bit i of the
+// subscribedEvents mask stands for the event at index i
+const SUBSCRIBABLE_EVENTS = [
+	"onVideoLoadStart",
+	"onVideoLoad",
+	"onVideoError",
+	"onVideoProgress",
+	"onVideoSeek",
+	"onVideoEnd",
+	"onVideoFullscreenPlayerWillPresent",
+	"onVideoFullscreenPlayerDidPresent",
+	"onVideoFullscreenPlayerWillDismiss",
+	"onVideoFullscreenPlayerDidDismiss",
+	"onPlaybackStalled",
+	"onPlaybackResume",
+	"onReadyForDisplay",
+	"onVideoBuffer",
+	"onVideoPlaybackStateChanged",
+	"onVideoIdle",
+	"onTimedMetadata",
+	"onVideoAudioBecomingNoisy",
+	"onAudioFocusChanged",
+	"onPlaybackRateChange",
+	"onVolumeChange",
+	"onAudioTracks",
+	"onTextTracks",
+	"onTextTrackDataChanged",
+	"onVideoTracks",
+	"onVideoBandwidthUpdate",
+	"onVideoPlaybackMetrics",
+	"onReceiveAdEvent",
+	"onPictureInPictureStatusChanged",
+	"onBufferConfigApplied",
+	"onAbrDecision",
+	"onViewportCapChanged",
+	"onQueueItemChange",
+] as const;
+
+export type SubscribableEvent = (typeof SUBSCRIBABLE_EVENTS)[number];
+
+/**
+ * Mask of the native events having a handler, so native code skips building the others.
+ * Built with additions: bitwise operators are limited to 32 bits.
+ */
+export function getSubscribedEventsMask(
+	handlers: Partial<Record<SubscribableEvent, unknown>>
+): number {
+	let mask = 0;
+	SUBSCRIBABLE_EVENTS.forEach((name, index) => {
+		if (handlers[name]) {
+			mask += 2 ** index;
+		}
+	});
+	return mask;
+}